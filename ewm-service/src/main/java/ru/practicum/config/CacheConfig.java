@@ -0,0 +1,13 @@
+package ru.practicum.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the cache manager behind the "categories" and "users" caches. The repositories read and evict them
+ * programmatically, so that only detached copies of entities are cached.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,77 @@
+package ru.practicum.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.client.AsyncStatsClient;
+import ru.practicum.client.CircuitBreaker;
+import ru.practicum.client.StatsClient;
+import ru.practicum.client.StatsRecorder;
+import ru.practicum.service.EventEnricher;
+import ru.practicum.service.ViewCounter;
+
+@Configuration
+public class StatsMetricsConfig {
+
+    @Bean
+    public MeterBinder statsRecorderMetrics(StatsRecorder recorder) {
+        return registry -> {
+            FunctionCounter.builder("stats.recorder.hits", recorder, StatsRecorder::getRecordedCount)
+                    .tag("result", "queued").register(registry);
+            FunctionCounter.builder("stats.recorder.hits", recorder, StatsRecorder::getSentCount)
+                    .tag("result", "sent").register(registry);
+            FunctionCounter.builder("stats.recorder.hits", recorder, StatsRecorder::getDroppedCount)
+                    .tag("result", "dropped").register(registry);
+            FunctionCounter.builder("stats.recorder.hits", recorder, StatsRecorder::getFailedCount)
+                    .tag("result", "failed").register(registry);
+            Gauge.builder("stats.recorder.queue.size", recorder, StatsRecorder::getQueueSize)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder statsClientPoolMetrics(StatsClient client, AsyncStatsClient asyncClient) {
+        return registry -> {
+            Gauge.builder("stats.client.pool.connections", client, c -> c.getPoolStats().getLeased())
+                    .tag("state", "leased").register(registry);
+            Gauge.builder("stats.client.pool.connections", client, c -> c.getPoolStats().getAvailable())
+                    .tag("state", "idle").register(registry);
+            Gauge.builder("stats.client.pool.connections", client, c -> c.getPoolStats().getMax())
+                    .tag("state", "max").register(registry);
+            Gauge.builder("stats.client.pool.pending", client, c -> c.getPoolStats().getPending())
+                    .register(registry);
+            Gauge.builder("stats.client.async.in-flight", asyncClient, AsyncStatsClient::getInFlightCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder statsClientBreakerMetrics(CircuitBreaker breaker) {
+        return registry -> {
+            FunctionCounter.builder("stats.client.breaker.calls", breaker, CircuitBreaker::getSuccessfulCount)
+                    .tag("result", "successful").register(registry);
+            FunctionCounter.builder("stats.client.breaker.calls", breaker, CircuitBreaker::getFailedCount)
+                    .tag("result", "failed").register(registry);
+            FunctionCounter.builder("stats.client.breaker.calls", breaker, CircuitBreaker::getRejectedCount)
+                    .tag("result", "rejected").register(registry);
+            // 0 closed, 1 open, 2 half-open
+            Gauge.builder("stats.client.breaker.state", breaker, b -> b.getState().ordinal())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder eventEnricherMetrics(EventEnricher eventEnricher) {
+        return new ExecutorServiceMetrics(eventEnricher.getExecutor(), "event.enrichment", Tags.empty());
+    }
+
+    @Bean
+    public MeterBinder viewCounterMetrics(ViewCounter viewCounter) {
+        return registry -> Gauge.builder("views.tracked.events", viewCounter, ViewCounter::getTrackedEvents)
+                .register(registry);
+    }
+}
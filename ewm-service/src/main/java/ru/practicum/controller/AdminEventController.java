@@ -9,7 +9,9 @@ import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
 import ru.practicum.service.CommentService;
 import ru.practicum.service.EventService;
+import ru.practicum.util.CursorPage;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -29,14 +31,18 @@ public class AdminEventController {
                                         @RequestParam(required = false) List<Long> categories,
                                         @RequestParam(required = false) String rangeStart,
                                         @RequestParam(required = false) String rangeEnd,
+                                        @RequestParam(required = false) String cursor,
                                         @RequestParam(defaultValue = "0") int from,
-                                        @RequestParam(defaultValue = "10") int size) {
+                                        @RequestParam(defaultValue = "10") int size,
+                                        HttpServletResponse response) {
         log.info("Admin request for all the events: users: {}, states: {}, categories: {}, rangeStart: {}, " +
-                "rangeEnd: {}, from: {}, size: {}", users, states, categories, rangeStart, rangeEnd, from, size);
-        AdminGetEventParamsDto params = createParams(users, states, categories, rangeStart, rangeEnd, from, size);
-        List<EventFullDto> result = eventService.getAll(params);
-        log.info("Admin response for all the events: {}", result);
-        return result;
+                        "rangeEnd: {}, cursor: {}, from: {}, size: {}", users, states, categories, rangeStart, rangeEnd,
+                cursor, from, size);
+        AdminGetEventParamsDto params = createParams(users, states, categories, rangeStart, rangeEnd, cursor, from, size);
+        CursorPage<EventFullDto> result = eventService.getAll(params);
+        result.setNextCursorHeader(response);
+        log.info("Admin response for all the events: {}", result.getContent());
+        return result.getContent();
     }
 
     @PatchMapping("/{eventId}")
@@ -58,13 +64,14 @@ public class AdminEventController {
     }
 
     private AdminGetEventParamsDto createParams(List<Long> users, List<String> states, List<Long> categories,
-                                                String rangeStart, String rangeEnd, int from, int size) {
+                                                String rangeStart, String rangeEnd, String cursor, int from, int size) {
         return AdminGetEventParamsDto.builder()
                 .users(users)
                 .states(states)
                 .categories(categories)
                 .rangeStart(rangeStart)
                 .rangeEnd(rangeEnd)
+                .cursor(cursor)
                 .from(from)
                 .size(size)
                 .build();
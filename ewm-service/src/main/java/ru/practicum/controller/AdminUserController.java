@@ -3,13 +3,16 @@ package ru.practicum.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.user.NewUserRequest;
 import ru.practicum.dto.user.UserDto;
 import ru.practicum.service.UserService;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.OffsetPageRequest;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 
@@ -24,13 +27,16 @@ public class AdminUserController {
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public List<UserDto> getUsers(@RequestParam(required = false) List<Long> ids,
+                                  @RequestParam(required = false) String cursor,
                                   @RequestParam(defaultValue = "0") int from,
-                                  @RequestParam(defaultValue = "10") int size) {
-        log.info("Get users request: ids: {}, from: {}, size; {}", ids, from, size);
-        Pageable page = OffsetPageRequest.createPageRequest(from, size);
-        List<UserDto> users = userService.getAll(ids, page);
-        log.info("Get users response: found {} users: {}", users.size(), users);
-        return users;
+                                  @RequestParam(defaultValue = "10") int size,
+                                  HttpServletResponse response) {
+        log.info("Get users request: ids: {}, cursor: {}, from: {}, size; {}", ids, cursor, from, size);
+        Pageable page = OffsetPageRequest.createPageRequest(from, size, Sort.by("id"));
+        CursorPage<UserDto> users = userService.getAll(ids, cursor, page);
+        users.setNextCursorHeader(response);
+        log.info("Get users response: found {} users: {}", users.getContent().size(), users.getContent());
+        return users.getContent();
     }
 
     @PostMapping
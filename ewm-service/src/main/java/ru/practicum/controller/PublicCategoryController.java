@@ -4,8 +4,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.category.CategoryDto;
+import ru.practicum.dto.category.CategoryPage;
 import ru.practicum.service.CategoryService;
 import ru.practicum.util.OffsetPageRequest;
 
@@ -18,15 +20,17 @@ import java.util.List;
 public class PublicCategoryController {
     private final CategoryService categoryService;
 
+    /**
+     * Responds with a strong ETag of the page, a matching If-None-Match is answered with 304.
+     */
     @GetMapping
-    @ResponseStatus(HttpStatus.OK)
-    public List<CategoryDto> getCategories(@RequestParam(defaultValue = "0") int from,
-                                           @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<List<CategoryDto>> getCategories(@RequestParam(defaultValue = "0") int from,
+                                                           @RequestParam(defaultValue = "10") int size) {
         log.info("Request for a page of categories with params: from: {}, size: {}", from, size);
         PageRequest page = OffsetPageRequest.createPageRequest(from, size);
-        List<CategoryDto> result = categoryService.getAll(page);
-        log.info("Response for a page of categories, found {} categories", result.size());
-        return result;
+        CategoryPage result = categoryService.getAll(page);
+        log.info("Response for a page of categories, found {} categories", result.getContent().size());
+        return ResponseEntity.ok().eTag(result.getEtag()).body(result.getContent());
     }
 
     @GetMapping("/{catId}")
@@ -7,7 +7,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
-import ru.practicum.client.Client;
+import ru.practicum.client.StatsRecorder;
 import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.comment.CommentShort;
 import ru.practicum.dto.event.EventFullDto;
@@ -15,9 +15,12 @@ import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.event.PublicGetEventParamsDto;
 import ru.practicum.service.CommentService;
 import ru.practicum.service.EventService;
+import ru.practicum.service.ViewCounter;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.OffsetPageRequest;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.Min;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,9 +32,10 @@ import java.util.List;
 public class PublicEventController {
 
     public static final String APP = "ewm-main-service";
-    private final Client client;
+    private final StatsRecorder statsRecorder;
     private final EventService eventService;
     private final CommentService commentService;
+    private final ViewCounter viewCounter;
 
     @Transactional
     @GetMapping
@@ -43,19 +47,22 @@ public class PublicEventController {
                                       @RequestParam(required = false) String rangeEnd,
                                       @RequestParam(defaultValue = "false") boolean onlyAvailable,
                                       @RequestParam(required = false) String sort,
+                                      @RequestParam(required = false) String cursor,
                                       @RequestParam(defaultValue = "0") int from,
                                       @RequestParam(defaultValue = "10") int size,
-                                      HttpServletRequest request) {
+                                      HttpServletRequest request,
+                                      HttpServletResponse response) {
         log.info("Request for the list of public events with params: text: {}, categories: {}, paid: {}, rangeStart: {}, " +
-                        "rangeEnd: {}, onlyAvailable: {}, sort: {}, from: {}, size: {}", text, categories, paid, rangeStart,
-                rangeEnd, onlyAvailable, sort, from, size);
+                        "rangeEnd: {}, onlyAvailable: {}, sort: {}, cursor: {}, from: {}, size: {}", text, categories, paid,
+                rangeStart, rangeEnd, onlyAvailable, sort, cursor, from, size);
         PublicGetEventParamsDto params = createParams(text, categories, paid, rangeStart, rangeEnd,
-                onlyAvailable, sort, from, size);
-        List<EventShortDto> result = eventService.getAll(params);
-        log.info("Response for the list of public events: found {} events", result.size());
+                onlyAvailable, sort, cursor, from, size);
+        CursorPage<EventShortDto> result = eventService.getAll(params);
+        result.setNextCursorHeader(response);
+        log.info("Response for the list of public events: found {} events", result.getContent().size());
         saveStats(request);
         log.info("Saving stats for /events");
-        return result;
+        return result.getContent();
     }
 
     @Transactional
@@ -68,6 +75,7 @@ public class PublicEventController {
         log.info("Response for getting event: {}", response);
 
         saveStats(request);
+        viewCounter.record(id, request.getRemoteAddr());
         log.info("Saving stats for /events/{} ", id);
         return response;
     }
@@ -75,13 +83,17 @@ public class PublicEventController {
     @GetMapping("/{id}/comments")
     @ResponseStatus(HttpStatus.OK)
     public List<CommentShort> getComments(@PathVariable Long id,
+                                          @RequestParam(required = false) String cursor,
                                           @RequestParam(defaultValue = "0") @Min(0) int from,
-                                          @RequestParam(defaultValue = "10") @Min(1) int size) {
+                                          @RequestParam(defaultValue = "10") @Min(1) int size,
+                                          HttpServletResponse response) {
         log.info("Request for all comments to event: {}", id);
-        Pageable page = OffsetPageRequest.createPageRequest(from, size, Sort.by(Sort.Direction.DESC, "CreatedOn"));
-        List<CommentShort> response = commentService.getAll(id, page);
+        Pageable page = OffsetPageRequest.createPageRequest(from, size,
+                Sort.by(Sort.Direction.DESC, "createdOn", "id"));
+        CursorPage<CommentShort> comments = commentService.getAll(id, cursor, page);
+        comments.setNextCursorHeader(response);
         log.info("Request for all comments to event: {}", id);
-        return response;
+        return comments.getContent();
     }
 
     @GetMapping("/{id}/comments/{commentId}")
@@ -95,7 +107,8 @@ public class PublicEventController {
     }
 
     private PublicGetEventParamsDto createParams(String text, List<Long> categories, Boolean paid, String rangeStart,
-                                                 String rangeEnd, boolean onlyAvailable, String sort, int from, int size) {
+                                                 String rangeEnd, boolean onlyAvailable, String sort, String cursor,
+                                                 int from, int size) {
         return PublicGetEventParamsDto.builder()
                 .text(text)
                 .categories(categories)
@@ -104,6 +117,7 @@ public class PublicEventController {
                 .rangeEnd(rangeEnd)
                 .onlyAvailable(onlyAvailable)
                 .sort(sort)
+                .cursor(cursor)
                 .from(from)
                 .size(size)
                 .build();
@@ -112,6 +126,6 @@ public class PublicEventController {
     private void saveStats(HttpServletRequest request) {
         String uri = request.getRequestURI();
         String ip = request.getRemoteAddr();
-        client.saveStats(new StatsRequestDto(APP, uri, ip, LocalDateTime.now()));
+        statsRecorder.record(new StatsRequestDto(APP, uri, ip, LocalDateTime.now()));
     }
 }
@@ -0,0 +1,13 @@
+package ru.practicum.dto.category;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class CategoryPage {
+    private final List<CategoryDto> content;
+    private final String etag;
+}
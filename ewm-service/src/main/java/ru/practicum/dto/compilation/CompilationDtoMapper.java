@@ -52,6 +52,9 @@ public interface CompilationDtoMapper {
     @Mapping(target = "initiator", source = "event.initiator", qualifiedByName = "userToUserShortDto")
     EventShortDto eventToEventShortDto(Event event);
 
+    @Mapping(target = "views", source = "views")
+    EventShortDto eventShortDtoWithViews(EventShortDto event, long views);
+
     @Named("categoryToCategoryDto")
     static CategoryDto categoryToCategoryDto(Category category) {
         if (category == null) {
@@ -13,6 +13,7 @@ public class AdminGetEventParamsDto {
     private final List<Long> categories;
     private final String rangeStart;
     private final String rangeEnd;
+    private final String cursor;
     private final int from;
     private final int size;
 }
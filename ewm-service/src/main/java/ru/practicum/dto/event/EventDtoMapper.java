@@ -20,6 +20,9 @@ public interface EventDtoMapper {
     @Mapping(source = "category", target = "category", qualifiedByName = "categoryIdToCategory")
     @Mapping(source = "eventDate", target = "eventDate", qualifiedByName = "stringToLocalDateTime")
     @Mapping(source = "location", target = "location", qualifiedByName = "locationDtoToLocation")
+    @Mapping(target = "views", ignore = true)
+    @Mapping(target = "confirmedRequests", ignore = true)
+    @Mapping(target = "available", ignore = true)
     Event newEventDtoToEvent(NewEventDto newEventDto);
 
     @Mapping(target = "category", source = "event.category")
@@ -38,7 +41,6 @@ public interface EventDtoMapper {
     EventFullDto eventToEventFullDto(Event event);
 
     @Mapping(target = "category", source = "event.category")
-    @Mapping(target = "description", source = "event.description")
     @Mapping(target = "eventDate", source = "event.eventDate", qualifiedByName = "localDateTimeToString")
     @Mapping(target = "id", source = "event.id")
     @Mapping(target = "initiator", source = "event.initiator")
@@ -46,6 +48,15 @@ public interface EventDtoMapper {
     @Mapping(target = "title", source = "event.title")
     EventShortDto eventToEventShortDto(Event event);
 
+    @Mapping(target = "category.id", source = "categoryId")
+    @Mapping(target = "category.name", source = "categoryName")
+    @Mapping(target = "eventDate", source = "eventDate", qualifiedByName = "localDateTimeToString")
+    @Mapping(target = "initiator.id", source = "initiatorId")
+    @Mapping(target = "initiator.name", source = "initiatorName")
+    @Mapping(target = "views", ignore = true)
+    @Mapping(target = "commentsCount", ignore = true)
+    EventShortDto eventShortProjectionToEventShortDto(EventShortProjection event);
+
     @Named("categoryIdToCategory")
     static Category categoryIdToCategory(long categoryId) {
         Category category = new Category();
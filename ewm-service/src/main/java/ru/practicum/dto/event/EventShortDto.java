@@ -7,7 +7,6 @@ import ru.practicum.dto.user.UserShortDto;
 @Data
 public class EventShortDto {
     private long id;
-    private String description;
     private String annotation;
     private CategoryDto category;
     private long confirmedRequests;
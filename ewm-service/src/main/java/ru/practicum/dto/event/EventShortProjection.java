@@ -0,0 +1,29 @@
+package ru.practicum.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of an event listing row, selected directly into this class instead of loading Event entities.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventShortProjection {
+    private long id;
+    private String annotation;
+    private Long categoryId;
+    private String categoryName;
+    private LocalDateTime eventDate;
+    private Long initiatorId;
+    private String initiatorName;
+    private Boolean paid;
+    private String title;
+    private Long views;
+    private Long confirmedRequests;
+    private LocalDateTime createdOn;
+    private LocalDateTime publishedOn;
+}
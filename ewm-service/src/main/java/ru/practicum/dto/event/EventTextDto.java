@@ -0,0 +1,14 @@
+package ru.practicum.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventTextDto {
+    private long eventId;
+    private String annotation;
+    private String description;
+}
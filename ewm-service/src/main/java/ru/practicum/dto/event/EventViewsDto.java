@@ -0,0 +1,16 @@
+package ru.practicum.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventViewsDto {
+    private long eventId;
+    private LocalDateTime publishedOn;
+    private long views;
+}
@@ -15,6 +15,7 @@ public class PublicGetEventParamsDto {
     private final String rangeEnd;
     private final boolean onlyAvailable;
     private final String sort;
+    private final String cursor;
     private final int from;
     private final int size;
 }
@@ -3,7 +3,7 @@ package ru.practicum.enums;
 import java.util.Optional;
 
 public enum EventSort {
-    EVENT_DATE, VIEWS;
+    EVENT_DATE, VIEWS, RELEVANCE;
 
     public static Optional<EventSort> getSort(String stringSort) {
         for (EventSort sort : values()) {
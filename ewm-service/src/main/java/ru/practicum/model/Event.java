@@ -63,4 +63,15 @@ public class Event {
 
     @Column(name = "event_title")
     private String title;
+
+    @Column(name = "event_views", insertable = false, updatable = false)
+    private Long views;
+
+    @Builder.Default
+    @Column(name = "event_confirmed_requests", insertable = false, updatable = false)
+    private Long confirmedRequests = 0L;
+
+    @Builder.Default
+    @Column(name = "event_available", insertable = false, updatable = false)
+    private Boolean available = true;
 }
@@ -7,7 +7,13 @@ import ru.practicum.model.Category;
 import java.util.Optional;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Long> {
+public interface CategoryRepository extends JpaRepository<Category, Long>, CategoryRepositoryCustom {
+
+    /**
+     * Served by the cache of detached copies, see {@link CategoryRepositoryCustom#findById(Long)}.
+     */
+    @Override
+    Optional<Category> findById(Long id);
 
     Optional<Category> findByName(String name);
 }
@@ -0,0 +1,18 @@
+package ru.practicum.repository;
+
+import ru.practicum.model.Category;
+
+import java.util.Optional;
+
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Same as the standard lookup, served from the "categories" cache of detached copies.
+     */
+    Optional<Category> findById(Long id);
+
+    /**
+     * Drops the cached category now and once the current transaction commits or rolls back.
+     */
+    void evictCached(Long id);
+}
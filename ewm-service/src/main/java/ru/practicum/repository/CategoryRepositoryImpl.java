@@ -0,0 +1,30 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import ru.practicum.model.Category;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+public class CategoryRepositoryImpl implements CategoryRepositoryCustom {
+
+    private final EntityManager entityManager;
+    private final EntityCopyCache<Category> cache;
+
+    public CategoryRepositoryImpl(EntityManager entityManager, ObjectProvider<CacheManager> cacheManager) {
+        this.entityManager = entityManager;
+        this.cache = new EntityCopyCache<>(Category.class, "categories",
+                category -> new Category(category.getId(), category.getName()), cacheManager);
+    }
+
+    @Override
+    public Optional<Category> findById(Long id) {
+        return cache.findById(entityManager, id);
+    }
+
+    @Override
+    public void evictCached(Long id) {
+        cache.evict(id);
+    }
+}
@@ -9,6 +9,7 @@ import ru.practicum.dto.comment.CommentCountDto;
 import ru.practicum.dto.comment.CommentShort;
 import ru.practicum.model.Comment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
@@ -16,6 +17,16 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     Page<CommentShort> findAllByEventId(long eventId, Pageable pageable);
 
+    @Query("SELECT c.id AS id, c.text AS text, c.author.name AS authorName, c.createdOn AS createdOn, " +
+            "c.updated AS updated " +
+            "FROM Comment c " +
+            "WHERE c.event.id = :eventId " +
+            "AND (c.createdOn < :createdOn OR (c.createdOn = :createdOn AND c.id < :id))")
+    List<CommentShort> findAllByEventIdBefore(@Param("eventId") long eventId,
+                                              @Param("createdOn") LocalDateTime createdOn,
+                                              @Param("id") long id,
+                                              Pageable pageable);
+
     CommentShort findByEventIdAndId(long eventId, long commentId);
 
     @Query("SELECT new ru.practicum.dto.comment.CommentCountDto(c.event.id, COUNT(c)) " +
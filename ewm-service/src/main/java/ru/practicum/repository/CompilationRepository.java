@@ -3,11 +3,30 @@ package ru.practicum.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.model.Compilation;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
 
     Page<Compilation> findByPinned(boolean pinned, Pageable pageable);
+
+    @Query("SELECT c.id FROM Compilation c ORDER BY c.id")
+    List<Long> findIds(Pageable pageable);
+
+    @Query("SELECT c.id FROM Compilation c WHERE c.pinned = :pinned ORDER BY c.id")
+    List<Long> findIdsByPinned(@Param("pinned") boolean pinned, Pageable pageable);
+
+    @Query("SELECT DISTINCT c FROM Compilation c " +
+            "LEFT JOIN FETCH c.events e " +
+            "LEFT JOIN FETCH e.category " +
+            "LEFT JOIN FETCH e.initiator " +
+            "LEFT JOIN FETCH e.location " +
+            "WHERE c.id IN :ids")
+    List<Compilation> findWithEventsByIdIn(@Param("ids") Collection<Long> ids);
 }
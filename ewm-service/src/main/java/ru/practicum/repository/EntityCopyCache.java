@@ -0,0 +1,70 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Looks entities up by id through a Spring cache that only ever holds detached copies. A hit hands every caller a copy
+ * of its own and a miss returns the entity managed by the caller's session, so a change or merge made by one
+ * transaction never reaches the cache or another session. Without a cache manager entities are read directly.
+ */
+class EntityCopyCache<T> {
+    private final Class<T> type;
+    private final String cacheName;
+    private final UnaryOperator<T> copy;
+    private final ObjectProvider<CacheManager> cacheManager;
+
+    EntityCopyCache(Class<T> type, String cacheName, UnaryOperator<T> copy, ObjectProvider<CacheManager> cacheManager) {
+        this.type = type;
+        this.cacheName = cacheName;
+        this.copy = copy;
+        this.cacheManager = cacheManager;
+    }
+
+    Optional<T> findById(EntityManager entityManager, Long id) {
+        Cache cache = getCache();
+        if (cache != null) {
+            T cached = cache.get(id, type);
+            if (cached != null) {
+                return Optional.of(copy.apply(cached));
+            }
+        }
+        T entity = entityManager.find(type, id);
+        if (entity != null && cache != null) {
+            cache.put(id, copy.apply(entity));
+        }
+        return Optional.ofNullable(entity);
+    }
+
+    /**
+     * Evicts the entry now and again when the current transaction completes, whether it commits or rolls back, so
+     * that neither a copy read before the change nor one read inside the transaction outlives it.
+     */
+    void evict(Long id) {
+        Cache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        cache.evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+
+    private Cache getCache() {
+        CacheManager manager = cacheManager.getIfAvailable();
+        return manager == null ? null : manager.getCache(cacheName);
+    }
+}
@@ -3,21 +3,95 @@ package ru.practicum.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.event.EventTextDto;
+import ru.practicum.dto.event.EventViewsDto;
+import ru.practicum.enums.EventState;
+import ru.practicum.enums.ParticipationRequestStatus;
 import ru.practicum.model.Event;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventRepositoryCustom {
 
     Set<Event> findByIdIn(Set<Long> ids);
 
     Page<Event> findByInitiatorId(long initiatorId, Pageable pageable);
 
     Optional<Event> findFirstByCategoryId(@Param("categoryId") long categoryId);
+
+    @Query("SELECT new ru.practicum.dto.event.EventViewsDto(e.id, e.publishedOn, e.views) " +
+            "FROM Event e " +
+            "WHERE e.state = :state AND e.id > :afterId " +
+            "ORDER BY e.id")
+    List<EventViewsDto> findViewsAfter(@Param("state") EventState state, @Param("afterId") long afterId, Pageable pageable);
+
+    @Query("SELECT new ru.practicum.dto.event.EventTextDto(e.id, e.annotation, e.description) " +
+            "FROM Event e " +
+            "WHERE e.id > :afterId " +
+            "ORDER BY e.id")
+    List<EventTextDto> findTextAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.views = :views WHERE e.id = :eventId")
+    int updateViews(@Param("eventId") long eventId, @Param("views") long views);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + :delta, " +
+            "e.available = CASE WHEN e.participantLimit = 0 OR e.confirmedRequests + :delta < e.participantLimit " +
+            "THEN true ELSE false END " +
+            "WHERE e.id = :eventId")
+    int addConfirmedRequests(@Param("eventId") long eventId, @Param("delta") long delta);
+
+    /**
+     * Adds count confirmed participants only if the event has room for them, returns 0 when it has not.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = e.confirmedRequests + :count, " +
+            "e.available = CASE WHEN e.participantLimit = 0 OR e.confirmedRequests + :count < e.participantLimit " +
+            "THEN true ELSE false END " +
+            "WHERE e.id = :eventId AND (e.participantLimit = 0 OR e.confirmedRequests + :count <= e.participantLimit)")
+    int reserveConfirmedRequests(@Param("eventId") long eventId, @Param("count") long count);
+
+    /**
+     * Recomputes event_confirmed_requests from participation_requests for events where the two disagree.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.confirmedRequests = " +
+            "(SELECT COUNT(r) FROM ParticipationRequest r WHERE r.event.id = e.id AND r.status = :status) " +
+            "WHERE e.confirmedRequests <> " +
+            "(SELECT COUNT(r) FROM ParticipationRequest r WHERE r.event.id = e.id AND r.status = :status)")
+    int repairConfirmedRequests(@Param("status") ParticipationRequestStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.available = " +
+            "CASE WHEN e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit THEN true ELSE false END " +
+            "WHERE e.id = :eventId")
+    int updateAvailable(@Param("eventId") long eventId);
+
+    /**
+     * Recomputes event_available from event_confirmed_requests for events where the two disagree.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Event e SET e.available = " +
+            "CASE WHEN e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit THEN true ELSE false END " +
+            "WHERE e.available <> " +
+            "CASE WHEN e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit THEN true ELSE false END")
+    int repairAvailable();
 }
 
@@ -0,0 +1,24 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.dto.event.EventShortProjection;
+import ru.practicum.model.Event;
+
+import java.util.List;
+
+public interface EventRepositoryCustom {
+
+    /**
+     * Same as {@code findAll(predicate, pageable)} without the count query, with category, initiator and location
+     * fetched in the same select.
+     */
+    List<Event> findSlice(Predicate predicate, Pageable pageable);
+
+    /**
+     * Reads only the columns of an event listing row: no entities, no description.
+     */
+    List<EventShortProjection> findShortSlice(Predicate predicate, Pageable pageable);
+
+    List<Long> findIds(Predicate predicate);
+}
@@ -0,0 +1,62 @@
+package ru.practicum.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.Querydsl;
+import ru.practicum.dto.event.EventShortProjection;
+import ru.practicum.model.Event;
+import ru.practicum.model.QCategory;
+import ru.practicum.model.QEvent;
+import ru.practicum.model.QUser;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EventRepositoryImpl implements EventRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Event> findSlice(Predicate predicate, Pageable pageable) {
+        QEvent event = QEvent.event;
+        Querydsl querydsl = createQuerydsl();
+        JPQLQuery<Event> query = querydsl.createQuery(event)
+                .select(event)
+                .leftJoin(event.category).fetchJoin()
+                .leftJoin(event.initiator).fetchJoin()
+                .leftJoin(event.location).fetchJoin()
+                .where(predicate);
+        return querydsl.applyPagination(pageable, query).fetch();
+    }
+
+    @Override
+    public List<EventShortProjection> findShortSlice(Predicate predicate, Pageable pageable) {
+        QEvent event = QEvent.event;
+        QCategory category = QCategory.category;
+        QUser initiator = QUser.user;
+        Querydsl querydsl = createQuerydsl();
+        JPQLQuery<EventShortProjection> query = querydsl.createQuery(event)
+                .select(Projections.constructor(EventShortProjection.class,
+                        event.id, event.annotation, category.id, category.name, event.eventDate,
+                        initiator.id, initiator.name, event.paid, event.title, event.views,
+                        event.confirmedRequests, event.createdOn, event.publishedOn))
+                .leftJoin(event.category, category)
+                .leftJoin(event.initiator, initiator)
+                .where(predicate);
+        return querydsl.applyPagination(pageable, query).fetch();
+    }
+
+    @Override
+    public List<Long> findIds(Predicate predicate) {
+        return createQuerydsl().createQuery(QEvent.event).select(QEvent.event.id).where(predicate).fetch();
+    }
+
+    private Querydsl createQuerydsl() {
+        return new Querydsl(entityManager, new PathBuilder<>(Event.class, QEvent.event.getMetadata()));
+    }
+}
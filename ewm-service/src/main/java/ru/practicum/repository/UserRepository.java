@@ -9,11 +9,23 @@ import org.springframework.stereotype.Repository;
 import ru.practicum.model.User;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+
+    /**
+     * Served by the cache of detached copies, see {@link UserRepositoryCustom#findById(Long)}.
+     */
+    @Override
+    Optional<User> findById(Long id);
 
     @Query("SELECT u FROM User u WHERE u.id IN :ids")
     Page<User> findByIds(@Param("ids") List<Long> ids, Pageable pageable);
 
+    @Query("SELECT u FROM User u WHERE u.id IN :ids AND u.id > :id")
+    List<User> findByIdsAfter(@Param("ids") List<Long> ids, @Param("id") long id, Pageable pageable);
+
+    List<User> findAllByIdGreaterThan(long id, Pageable pageable);
+
 }
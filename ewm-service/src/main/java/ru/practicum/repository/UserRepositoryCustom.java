@@ -0,0 +1,18 @@
+package ru.practicum.repository;
+
+import ru.practicum.model.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Same as the standard lookup, served from the "users" cache of detached copies.
+     */
+    Optional<User> findById(Long id);
+
+    /**
+     * Drops the cached user now and once the current transaction commits or rolls back.
+     */
+    void evictCached(Long id);
+}
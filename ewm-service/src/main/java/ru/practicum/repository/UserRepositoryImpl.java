@@ -0,0 +1,30 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import ru.practicum.model.User;
+
+import javax.persistence.EntityManager;
+import java.util.Optional;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+    private final EntityCopyCache<User> cache;
+
+    public UserRepositoryImpl(EntityManager entityManager, ObjectProvider<CacheManager> cacheManager) {
+        this.entityManager = entityManager;
+        this.cache = new EntityCopyCache<>(User.class, "users",
+                user -> new User(user.getId(), user.getEmail(), user.getName()), cacheManager);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return cache.findById(entityManager, id);
+    }
+
+    @Override
+    public void evictCached(Long id) {
+        cache.evict(id);
+    }
+}
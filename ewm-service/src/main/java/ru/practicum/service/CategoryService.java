@@ -2,10 +2,9 @@ package ru.practicum.service;
 
 import org.springframework.data.domain.PageRequest;
 import ru.practicum.dto.category.CategoryDto;
+import ru.practicum.dto.category.CategoryPage;
 import ru.practicum.dto.category.NewCategoryDto;
 
-import java.util.List;
-
 public interface CategoryService {
     CategoryDto create(NewCategoryDto newCategoryDto);
 
@@ -13,7 +12,7 @@ public interface CategoryService {
 
     CategoryDto update(NewCategoryDto newCategoryDto, long catId);
 
-    List<CategoryDto> getAll(PageRequest page);
+    CategoryPage getAll(PageRequest page);
 
     CategoryDto getById(long catId);
 }
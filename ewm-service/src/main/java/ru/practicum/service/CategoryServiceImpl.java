@@ -1,11 +1,16 @@
 package ru.practicum.service;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
 import ru.practicum.dto.category.CategoryDto;
 import ru.practicum.dto.category.CategoryDtoMapper;
+import ru.practicum.dto.category.CategoryPage;
 import ru.practicum.dto.category.NewCategoryDto;
 import ru.practicum.exception.CategoryInUseException;
 import ru.practicum.model.Category;
@@ -14,20 +19,43 @@ import ru.practicum.repository.CategoryRepository;
 import ru.practicum.repository.EventRepository;
 
 import javax.persistence.EntityNotFoundException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final EventRepository eventRepository;
     private final CategoryDtoMapper categoryDtoMapper;
+    private final CompilationDtoCache compilationDtoCache;
+
+    // the public listing is served from a snapshot of all categories, dropped whenever a category changes here;
+    // changes made by other instances are picked up when the snapshot expires
+    private final long snapshotTtlNanos;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public CategoryServiceImpl(CategoryRepository categoryRepository,
+                               EventRepository eventRepository,
+                               CategoryDtoMapper categoryDtoMapper,
+                               CompilationDtoCache compilationDtoCache,
+                               @Value("${categories.snapshot.ttl-ms:5000}") long snapshotTtlMs) {
+        this.categoryRepository = categoryRepository;
+        this.eventRepository = eventRepository;
+        this.categoryDtoMapper = categoryDtoMapper;
+        this.compilationDtoCache = compilationDtoCache;
+        this.snapshotTtlNanos = TimeUnit.MILLISECONDS.toNanos(snapshotTtlMs);
+    }
 
     @Transactional
     @Override
     public CategoryDto create(NewCategoryDto newCategoryDto) {
         Category saved = categoryRepository.save(categoryDtoMapper.newCategoryDtoToCategory(newCategoryDto));
+        invalidateSnapshotAfterCommit();
         return categoryDtoMapper.categoryToCategoryDto(saved);
     }
 
@@ -40,6 +68,8 @@ public class CategoryServiceImpl implements CategoryService {
             throw new CategoryInUseException("Failed to delete category with id='" + catId + "'");
         }
         categoryRepository.deleteById(catId);
+        categoryRepository.evictCached(catId);
+        invalidateSnapshotAfterCommit();
     }
 
     @Transactional
@@ -49,16 +79,19 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new EntityNotFoundException("Category with id='" + catId + "' not found"));
         category.setName(newCategoryDto.getName());
         Category saved = categoryRepository.save(category);
+        categoryRepository.evictCached(catId);
+        invalidateSnapshotAfterCommit();
+        compilationDtoCache.evictAllAfterCommit();
         return categoryDtoMapper.categoryToCategoryDto(saved);
     }
 
-    @Transactional(readOnly = true)
     @Override
-    public List<CategoryDto> getAll(PageRequest pageable) {
-        return categoryRepository
-                .findAll(pageable)
-                .map(categoryDtoMapper::categoryToCategoryDto)
-                .getContent();
+    public CategoryPage getAll(PageRequest pageable) {
+        List<CategoryDto> categories = getSnapshot().categories;
+        int from = (int) Math.min(pageable.getOffset(), categories.size());
+        int to = Math.min(from + pageable.getPageSize(), categories.size());
+        List<CategoryDto> content = categories.subList(from, to);
+        return new CategoryPage(content, etag(content));
     }
 
     @Transactional(readOnly = true)
@@ -69,4 +102,50 @@ public class CategoryServiceImpl implements CategoryService {
 
         return categoryDtoMapper.categoryToCategoryDto(category);
     }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        long currentVersion = version.get();
+        if (current != null && current.version == currentVersion && System.nanoTime() - current.builtAt < snapshotTtlNanos) {
+            return current;
+        }
+        // a snapshot read while a change commits keeps the old version and is rebuilt on the next call
+        List<CategoryDto> categories = categoryRepository.findAll(Sort.by("id")).stream()
+                .map(categoryDtoMapper::categoryToCategoryDto)
+                .collect(Collectors.toUnmodifiableList());
+        current = new Snapshot(currentVersion, System.nanoTime(), categories);
+        snapshot = current;
+        return current;
+    }
+
+    private void invalidateSnapshotAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            version.incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.incrementAndGet();
+            }
+        });
+    }
+
+    private static String etag(List<CategoryDto> categories) {
+        StringBuilder content = new StringBuilder();
+        categories.forEach(category -> content.append(category.getId()).append(':').append(category.getName()).append('\n'));
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final long builtAt;
+        private final List<CategoryDto> categories;
+
+        Snapshot(long version, long builtAt, List<CategoryDto> categories) {
+            this.version = version;
+            this.builtAt = builtAt;
+            this.categories = categories;
+        }
+    }
 }
@@ -4,8 +4,7 @@ import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.comment.CommentDto;
 import ru.practicum.dto.comment.CommentShort;
 import ru.practicum.dto.comment.NewCommentDto;
-
-import java.util.List;
+import ru.practicum.util.CursorPage;
 
 public interface CommentService {
     CommentDto create(NewCommentDto createDto, long userId, long eventId);
@@ -16,7 +15,7 @@ public interface CommentService {
 
     void deleteByAdmin(long eventId, long commentId);
 
-    List<CommentShort> getAll(long eventId, Pageable pageable);
+    CursorPage<CommentShort> getAll(long eventId, String cursor, Pageable pageable);
 
     CommentShort getCommentById(long eventId, long commentId);
 }
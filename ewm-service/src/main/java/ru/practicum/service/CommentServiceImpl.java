@@ -1,6 +1,7 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.dto.comment.CommentDto;
@@ -15,6 +16,8 @@ import ru.practicum.model.User;
 import ru.practicum.repository.CommentRepository;
 import ru.practicum.repository.EventRepository;
 import ru.practicum.repository.UserRepository;
+import ru.practicum.util.CursorPage;
+import ru.practicum.util.KeysetCursor;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
@@ -83,10 +86,18 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    public List<CommentShort> getAll(long eventId, Pageable pageable) {
+    public CursorPage<CommentShort> getAll(long eventId, String cursor, Pageable pageable) {
         Event event = eventRepository.findById(eventId).orElseThrow(() -> new EntityNotFoundException("Event with id='" + eventId + "' not found"));
-        List<CommentShort> comments = commentRepository.findAllByEventId(eventId, pageable).toList();
-        return comments;
+        List<CommentShort> comments;
+        if (cursor != null) {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            comments = commentRepository.findAllByEventIdBefore(eventId, after.getDateKey(), after.getId(),
+                    PageRequest.of(0, pageable.getPageSize(), pageable.getSort()));
+        } else {
+            comments = commentRepository.findAllByEventId(eventId, pageable).toList();
+        }
+        return new CursorPage<>(comments, CursorPage.nextCursor(comments, pageable,
+                comment -> KeysetCursor.encode(comment.getCreatedOn(), comment.getId())));
     }
 
     @Override
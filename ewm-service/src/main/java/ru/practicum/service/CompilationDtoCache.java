@@ -0,0 +1,94 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.dto.event.EventShortDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rendered public compilations by id. An entry is dropped when its compilation changes, all entries are dropped
+ * when any event, category or user changes. Confirmed requests and comment counts are refreshed by expiry,
+ * views are not cached at all.
+ */
+@Component
+public class CompilationDtoCache {
+    private final Cache<Long, Entry> cache;
+    // bumped by every eviction, entries rendered before an eviction are not stored
+    private final AtomicLong generation = new AtomicLong();
+
+    public CompilationDtoCache(@Value("${compilations.cache.max-size:1000}") long maxSize,
+                               @Value("${compilations.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public Map<Long, Entry> getAllPresent(Collection<Long> compIds) {
+        return cache.getAllPresent(compIds);
+    }
+
+    public void putAll(Map<Long, Entry> entries, long renderedGeneration) {
+        if (generation.get() == renderedGeneration) {
+            cache.putAll(entries);
+        }
+    }
+
+    public void evictAfterCommit(long compId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.invalidate(compId);
+        });
+    }
+
+    public void evictAllAfterCommit() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        });
+    }
+
+    public Cache<Long, Entry> getCache() {
+        return cache;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+        private final long id;
+        private final boolean pinned;
+        private final String title;
+        private final List<EventShortDto> events;
+        private final Map<Long, LocalDateTime> viewStarts;
+    }
+}
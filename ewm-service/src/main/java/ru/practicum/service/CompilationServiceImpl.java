@@ -1,22 +1,24 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.comment.CommentCountDto;
 import ru.practicum.dto.compilation.CompilationDto;
 import ru.practicum.dto.compilation.CompilationDtoMapper;
 import ru.practicum.dto.compilation.NewCompilationDto;
 import ru.practicum.dto.compilation.UpdateCompilationRequest;
+import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.model.Compilation;
 import ru.practicum.model.Event;
+import ru.practicum.repository.CommentRepository;
 import ru.practicum.repository.CompilationRepository;
 import ru.practicum.repository.EventRepository;
 
 import javax.persistence.EntityNotFoundException;
-import java.util.List;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +27,9 @@ public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
     private final CompilationDtoMapper compilationDtoMapper;
+    private final CommentRepository commentRepository;
+    private final ViewCounter viewCounter;
+    private final CompilationDtoCache compilationDtoCache;
 
     @Override
     public CompilationDto create(NewCompilationDto compilationDto) {
@@ -35,6 +40,7 @@ public class CompilationServiceImpl implements CompilationService {
     @Override
     public void delete(long compId) {
         compilationRepository.deleteById(compId);
+        compilationDtoCache.evictAfterCommit(compId);
     }
 
     @Transactional
@@ -56,29 +62,88 @@ public class CompilationServiceImpl implements CompilationService {
             compilation.setTitle(updateCompilationRequest.getTitle());
         }
 
+        compilationDtoCache.evictAfterCommit(compId);
         return compilationDtoMapper.compilationToCompilationDto(compilationRepository.save(compilation));
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<CompilationDto> getAll(Boolean pinned, Pageable pageable) {
-        Page<Compilation> compilationDtoPage;
-        if (pinned == null) {
-            compilationDtoPage = compilationRepository.findAll(pageable);
-        } else {
-            compilationDtoPage = compilationRepository.findByPinned(pinned, pageable);
-        }
-
-        return compilationDtoPage.getContent().stream()
-                .map(compilationDtoMapper::compilationToCompilationDto)
-                .collect(Collectors.toList());
+        List<Long> compIds = pinned == null
+                ? compilationRepository.findIds(pageable)
+                : compilationRepository.findIdsByPinned(pinned, pageable);
+        return getRendered(compIds);
     }
 
     @Transactional(readOnly = true)
     @Override
     public CompilationDto getById(long compId) {
-        Compilation compilation = compilationRepository.findById(compId)
-                .orElseThrow(() -> new EntityNotFoundException("Compilation with id='" + compId + "' not found"));
-        return compilationDtoMapper.compilationToCompilationDto(compilation);
+        List<CompilationDto> result = getRendered(List.of(compId));
+        if (result.isEmpty()) {
+            throw new EntityNotFoundException("Compilation with id='" + compId + "' not found");
+        }
+        return result.get(0);
+    }
+
+    private List<CompilationDto> getRendered(List<Long> compIds) {
+        Map<Long, CompilationDtoCache.Entry> rendered = new HashMap<>(compilationDtoCache.getAllPresent(compIds));
+        List<Long> missing = compIds.stream()
+                .filter(id -> !rendered.containsKey(id))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            long generation = compilationDtoCache.getGeneration();
+            Map<Long, CompilationDtoCache.Entry> loaded = render(compilationRepository.findWithEventsByIdIn(missing));
+            compilationDtoCache.putAll(loaded, generation);
+            rendered.putAll(loaded);
+        }
+
+        Map<Long, LocalDateTime> viewStarts = new HashMap<>();
+        rendered.values().forEach(entry -> viewStarts.putAll(entry.getViewStarts()));
+        Map<Long, Long> views = viewStarts.isEmpty() ? Map.of() : viewCounter.getViewsSince(viewStarts);
+
+        return compIds.stream()
+                .map(rendered::get)
+                .filter(Objects::nonNull)
+                .map(entry -> toDto(entry, views))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Renders compilations loaded together with their events, comment counts of all events are read in one query.
+     */
+    private Map<Long, CompilationDtoCache.Entry> render(List<Compilation> compilations) {
+        Set<Long> eventIds = compilations.stream()
+                .flatMap(compilation -> compilation.getEvents().stream())
+                .map(Event::getId)
+                .collect(Collectors.toSet());
+        Map<Long, Long> commentCounts = eventIds.isEmpty() ? Map.of() : commentRepository.countByEventId(eventIds).stream()
+                .collect(Collectors.toMap(CommentCountDto::getEventId, CommentCountDto::getCommentCount));
+
+        Map<Long, CompilationDtoCache.Entry> result = new HashMap<>();
+        for (Compilation compilation : compilations) {
+            List<EventShortDto> events = new ArrayList<>();
+            Map<Long, LocalDateTime> viewStarts = new HashMap<>();
+            for (Event event : compilation.getEvents()) {
+                EventShortDto eventDto = compilationDtoMapper.eventToEventShortDto(event);
+                eventDto.setCommentsCount(commentCounts.getOrDefault(event.getId(), 0L));
+                events.add(eventDto);
+                viewStarts.put(event.getId(), ViewCounter.getStart(event.getPublishedOn(), event.getCreatedOn()));
+            }
+            result.put(compilation.getId(), new CompilationDtoCache.Entry(compilation.getId(),
+                    Boolean.TRUE.equals(compilation.getPinned()), compilation.getTitle(), events, viewStarts));
+        }
+        return result;
+    }
+
+    private CompilationDto toDto(CompilationDtoCache.Entry entry, Map<Long, Long> views) {
+        CompilationDto dto = new CompilationDto();
+        dto.setId(entry.getId());
+        dto.setPinned(entry.isPinned());
+        dto.setTitle(entry.getTitle());
+        // cached event dtos are shared between requests, views go into copies
+        dto.setEvents(entry.getEvents().stream()
+                .map(event -> compilationDtoMapper.eventShortDtoWithViews(event, views.getOrDefault(event.getId(), 0L)))
+                .collect(Collectors.toSet()));
+        return dto;
     }
 }
\ No newline at end of file
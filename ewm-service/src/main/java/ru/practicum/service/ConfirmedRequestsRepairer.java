@@ -0,0 +1,37 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.enums.ParticipationRequestStatus;
+import ru.practicum.repository.EventRepository;
+
+/**
+ * Recomputes events.event_confirmed_requests from participation_requests and events.event_available from the
+ * counter, fixing values that drifted from what they are derived from (manual edits, deleted requests,
+ * rows written before the columns existed).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConfirmedRequestsRepairer {
+    private final EventRepository eventRepository;
+
+    @Scheduled(initialDelayString = "${events.confirmed-requests.repair-initial-delay-ms:60000}",
+            fixedDelayString = "${events.confirmed-requests.repair-ms:3600000}")
+    public void repair() {
+        try {
+            int repaired = eventRepository.repairConfirmedRequests(ParticipationRequestStatus.CONFIRMED);
+            int repairedAvailable = eventRepository.repairAvailable();
+            if (repaired > 0 || repairedAvailable > 0) {
+                log.warn("Repaired confirmed requests counter of {} events and availability of {} events",
+                        repaired, repairedAvailable);
+            } else {
+                log.debug("Confirmed requests counters are consistent");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to repair confirmed requests counters: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.comment.CommentCountDto;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.repository.CommentRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Fills views and comment counts of listed events. Views may wait for stats-server, so they are looked up on a
+ * bounded pool while comments are counted on the calling thread, inside its transaction; a listing waits for the
+ * slower of the two lookups instead of their sum. When the pool is saturated the caller looks up views itself.
+ */
+@Component
+public class EventEnricher {
+    private final ViewCounter viewCounter;
+    private final CommentRepository commentRepository;
+    private final ThreadPoolExecutor executor;
+
+    public EventEnricher(ViewCounter viewCounter,
+                         CommentRepository commentRepository,
+                         @Value("${events.enrichment.threads:8}") int threads,
+                         @Value("${events.enrichment.queue-size:100}") int queueSize) {
+        this.viewCounter = viewCounter;
+        this.commentRepository = commentRepository;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "event-enrichment-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public void enrich(List<EventShortDto> events, Map<Long, LocalDateTime> viewStarts) {
+        if (events.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Map<Long, Long>> views = CompletableFuture.supplyAsync(
+                () -> viewCounter.getViewsSince(viewStarts), executor);
+        Map<Long, Long> commentCounts = countComments(viewStarts.keySet());
+        Map<Long, Long> viewsMap = join(views);
+
+        for (EventShortDto event : events) {
+            event.setViews(viewsMap.getOrDefault(event.getId(), 0L));
+        }
+        setCommentCounts(events, commentCounts);
+    }
+
+    /**
+     * Fills comment counts only, for events that already carry the views they are listed with.
+     */
+    public void enrichComments(List<EventShortDto> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Set<Long> eventIds = events.stream().map(EventShortDto::getId).collect(Collectors.toSet());
+        setCommentCounts(events, countComments(eventIds));
+    }
+
+    public ThreadPoolExecutor getExecutor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static void setCommentCounts(List<EventShortDto> events, Map<Long, Long> commentCounts) {
+        for (EventShortDto event : events) {
+            Long commentCount = commentCounts.get(event.getId());
+            if (commentCount != null) {
+                event.setCommentsCount(commentCount);
+            }
+        }
+    }
+
+    private Map<Long, Long> countComments(Set<Long> eventIds) {
+        return commentRepository.countByEventId(eventIds).stream()
+                .collect(Collectors.toMap(CommentCountDto::getEventId, CommentCountDto::getCommentCount));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -5,11 +5,12 @@ import ru.practicum.dto.event.*;
 import ru.practicum.dto.participation.EventRequestStatusUpdateRequest;
 import ru.practicum.dto.participation.EventRequestStatusUpdateResult;
 import ru.practicum.dto.participation.ParticipationRequestDto;
+import ru.practicum.util.CursorPage;
 
 import java.util.List;
 
 public interface EventService {
-    List<EventFullDto> getAll(AdminGetEventParamsDto params);
+    CursorPage<EventFullDto> getAll(AdminGetEventParamsDto params);
 
     EventFullDto updateByAdmin(long eventId, UpdateEventAdminRequest updateRequest);
 
@@ -25,7 +26,7 @@ public interface EventService {
 
     EventRequestStatusUpdateResult updateRequestStatus(long userId, long eventId, EventRequestStatusUpdateRequest request);
 
-    List<EventShortDto> getAll(PublicGetEventParamsDto params);
+    CursorPage<EventShortDto> getAll(PublicGetEventParamsDto params);
 
     EventFullDto getByIdPublic(long id);
 }
@@ -2,16 +2,12 @@ package ru.practicum.service;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.jpa.JPAExpressions;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.client.Client;
-import ru.practicum.dto.ClientRequestDto;
-import ru.practicum.dto.StatsResponseDto;
 import ru.practicum.dto.comment.CommentCountDto;
 import ru.practicum.dto.event.*;
 import ru.practicum.dto.location.LocationDtoMapper;
@@ -25,6 +21,8 @@ import ru.practicum.exception.ParticipationLimitExceededException;
 import ru.practicum.exception.ParticipationRequestUpdateNotPendingException;
 import ru.practicum.model.*;
 import ru.practicum.repository.*;
+import ru.practicum.util.CursorPage;
+import ru.practicum.util.KeysetCursor;
 import ru.practicum.util.LocalDateTimeStringParser;
 import ru.practicum.util.OffsetPageRequest;
 
@@ -34,8 +32,6 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static ru.practicum.model.QParticipationRequest.participationRequest;
-
 @Service
 @RequiredArgsConstructor
 public class EventServiceImpl implements EventService {
@@ -51,23 +47,24 @@ public class EventServiceImpl implements EventService {
     private final LocationDtoMapper locationDtoMapper;
     private final EventDtoMapper eventDtoMapper;
 
-    private final Client client;
+    private final ViewCounter viewCounter;
+    private final EventTextIndex eventTextIndex;
+    private final CompilationDtoCache compilationDtoCache;
+    private final EventEnricher eventEnricher;
 
     @Transactional(readOnly = true)
     @Override
-    public List<EventFullDto> getAll(AdminGetEventParamsDto params) {
+    public CursorPage<EventFullDto> getAll(AdminGetEventParamsDto params) {
         Predicate predicate = buildPredicate(params);
-        Pageable page = OffsetPageRequest.createPageRequest(params.getFrom(), params.getSize());
-
-        List<Event> events = eventRepository.findAll(predicate, page).toList();
-        Map<Long, Event> eventMap = createEventMap(events);
-        Map<Long, Long> confirmedRequestsCountMap = getConfirmedRequestsCount(eventMap.keySet());
+        Pageable page = createPage(params.getCursor(), params.getFrom(), params.getSize(), Sort.by("id"));
+        Predicate seek = params.getCursor() == null ? null
+                : QEvent.event.id.gt(KeysetCursor.decode(params.getCursor()).getId());
 
+        List<Event> events = eventRepository.findSlice(withSeek(predicate, seek), page);
         List<EventFullDto> eventFullDtos = events.stream().map(eventDtoMapper::eventToEventFullDto)
                 .collect(Collectors.toList());
-
-        updateEventConfirmedRequestsFullDtos(confirmedRequestsCountMap, eventFullDtos);
-        return eventFullDtos;
+        return new CursorPage<>(eventFullDtos,
+                CursorPage.nextCursor(events, page, event -> KeysetCursor.encode(null, event.getId())));
     }
 
     @Transactional
@@ -76,15 +73,16 @@ public class EventServiceImpl implements EventService {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new EntityNotFoundException("Event with id='" + eventId + "' not found"));
         applyUpdateByAdmin(event, updateRequest);
-        return eventDtoMapper.eventToEventFullDto(eventRepository.save(event));
+        return eventDtoMapper.eventToEventFullDto(saveEvent(event));
     }
 
     @Transactional(readOnly = true)
     @Override
     public List<EventShortDto> getAllByInitiator(long initiatorId, Pageable pageable) {
-        List<EventShortDto> events = eventRepository.findByInitiatorId(initiatorId, pageable)
-                .map(eventDtoMapper::eventToEventShortDto)
-                .getContent();
+        List<EventShortDto> events = eventRepository.findShortSlice(QEvent.event.initiator.id.eq(initiatorId), pageable)
+                .stream()
+                .map(eventDtoMapper::eventShortProjectionToEventShortDto)
+                .collect(Collectors.toList());
         Map<Long, EventShortDto> eventMap = createEventShortDtoMap(events);
         Map<Long, Long> commentCountMap = getCommentCount(eventMap.keySet());
         updateEventCommentsShortDtos(commentCountMap, events);
@@ -110,7 +108,7 @@ public class EventServiceImpl implements EventService {
         event.setLocation(location);
         event.setCreatedOn(LocalDateTime.now());
         event.setState(EventState.PENDING);
-        Event savedEvent = eventRepository.save(event);
+        Event savedEvent = saveEvent(event);
         return eventDtoMapper.eventToEventFullDto(savedEvent);
     }
 
@@ -136,7 +134,7 @@ public class EventServiceImpl implements EventService {
         }
 
         applyUpdateByInitiator(event, updateEventUserRequest);
-        return eventDtoMapper.eventToEventFullDto(eventRepository.save(event));
+        return eventDtoMapper.eventToEventFullDto(saveEvent(event));
     }
 
     @Transactional(readOnly = true)
@@ -177,20 +175,23 @@ public class EventServiceImpl implements EventService {
                     participationRequest.setStatus(status);
                     confirmedRequests.add(participationRequest);
                 }
+                if (!confirmedRequests.isEmpty()) {
+                    eventRepository.addConfirmedRequests(eventId, confirmedRequests.size());
+                }
             } else {
-                long participantsCount = participationRequestRepository.countByEventIdAndStatus(event.getId(), ParticipationRequestStatus.CONFIRMED);
-                int participantsLimit = event.getParticipantLimit();
-                checkEventHasFreeSlots(participantsCount, participantsLimit);
+                checkEventHasFreeSlots(event.getConfirmedRequests(), event.getParticipantLimit());
 
+                boolean hasFreeSlots = true;
                 for (ParticipationRequest participationRequest : requestsListToUpdate) {
-                    // reject the request if participants amount hit the limit
-                    if (participantsCount >= participantsLimit) {
-                        participationRequest.setStatus(ParticipationRequestStatus.REJECTED);
-                        rejectedRequests.add(participationRequest);
-                    } else {
-                        // otherwise confirm it
+                    // every slot is reserved with a conditional update, so concurrent confirmations cannot exceed the limit
+                    hasFreeSlots = hasFreeSlots && eventRepository.reserveConfirmedRequests(eventId, 1) == 1;
+                    if (hasFreeSlots) {
                         participationRequest.setStatus(ParticipationRequestStatus.CONFIRMED);
                         confirmedRequests.add(participationRequest);
+                    } else {
+                        // reject the request if participants amount hit the limit
+                        participationRequest.setStatus(ParticipationRequestStatus.REJECTED);
+                        rejectedRequests.add(participationRequest);
                     }
                 }
             }
@@ -219,23 +220,37 @@ public class EventServiceImpl implements EventService {
 
     @Transactional(readOnly = true)
     @Override
-    public List<EventShortDto> getAll(PublicGetEventParamsDto params) {
+    public CursorPage<EventShortDto> getAll(PublicGetEventParamsDto params) {
+        String text = params.getText();
+        EventTextIndex.Matches matches = text == null || text.isEmpty() ? null : eventTextIndex.search(text);
         Predicate predicate = buildPredicate(params);
-        Pageable page = OffsetPageRequest.createPageRequest(params.getFrom(), params.getSize(), Sort.by(Sort.Direction.DESC, "EventDate"));
-
         EventSort sortType = getValidatedSort(params.getSort());
-
-        List<EventShortDto> eventShortDtos = new ArrayList<>();
-        if (sortType == null || sortType == EventSort.EVENT_DATE) {
-            eventShortDtos = getEventsSortedByDate(predicate, page, params.getRangeStart());
-        } else if (sortType == EventSort.VIEWS) {
-            eventShortDtos = getEventsSortedByViews(predicate, params);
+        boolean byViews = sortType == EventSort.VIEWS;
+
+        Pageable page;
+        List<EventShortProjection> events;
+        Function<EventShortProjection, String> cursor;
+        if (sortType == EventSort.RELEVANCE) {
+            if (matches == null) {
+                throw new IllegalArgumentException("Sorting by relevance requires the text parameter");
+            }
+            page = PageRequest.of(0, params.getSize());
+            events = findEventsByRelevance(predicate, matches, params);
+            cursor = event -> KeysetCursor.encode(matches.getScore(event.getId()), event.getId());
+        } else {
+            Sort sort = byViews
+                    ? Sort.by(Sort.Direction.DESC, "views").and(Sort.by(Sort.Direction.ASC, "id"))
+                    : Sort.by(Sort.Direction.DESC, "eventDate", "id");
+            page = createPage(params.getCursor(), params.getFrom(), params.getSize(), sort);
+            Predicate seek = params.getCursor() == null ? null
+                    : buildSeekPredicate(byViews, KeysetCursor.decode(params.getCursor()));
+            events = matches == null
+                    ? eventRepository.findShortSlice(withSeek(predicate, seek), page)
+                    : findMatchingSlice(withSeek(predicate, seek), matches, page, byViews);
+            cursor = event -> KeysetCursor.encode(byViews ? event.getViews() : event.getEventDate(), event.getId());
         }
-
-        Map<Long, EventShortDto> eventMap = createEventShortDtoMap(eventShortDtos);
-        Map<Long, Long> commentCountMap = getCommentCount(eventMap.keySet());
-        updateEventCommentsShortDtos(commentCountMap, eventShortDtos);
-        return eventShortDtos;
+        List<EventShortDto> eventShortDtos = getEventsPage(events, byViews);
+        return new CursorPage<>(eventShortDtos, CursorPage.nextCursor(events, page, cursor));
     }
 
     @Transactional(readOnly = true)
@@ -248,82 +263,154 @@ public class EventServiceImpl implements EventService {
         }
 
         EventFullDto result = eventDtoMapper.eventToEventFullDto(event);
-
-        String uri = "/events/" + event.getId();
-        List<String> uris = List.of(uri);
-        List<StatsResponseDto> stats = getStats(event.getPublishedOn(), LocalDateTime.now(), uris, true);
-
-        if (!stats.isEmpty()) {
-            long hits = stats.get(0).getHits();
-            result.setViews(hits);
-        }
-
+        result.setViews(viewCounter.getViews(event));
         return result;
     }
 
-    private List<EventShortDto> getEventsSortedByViews(Predicate predicate, PublicGetEventParamsDto params) {
-        List<Event> resultEvents = (List<Event>) eventRepository.findAll(predicate);
-        LocalDateTime startDate = getStartDate(params.getRangeStart());
-
-        Map<Long, Event> eventMap = createEventMap(resultEvents);
-        Map<Long, Long> confirmedRequestsCountMap = getConfirmedRequestsCount(eventMap.keySet());
-
-        List<StatsResponseDto> stats = getStatsForEvents(resultEvents, startDate);
-        Map<String, Long> viewsMap = createViewsMap(stats);
-
-        List<EventShortDto> eventShortDtos = convertEventsToDtos(resultEvents, viewsMap);
-        updateEventConfirmedRequestsShortDto(confirmedRequestsCountMap, eventShortDtos);
-        eventShortDtos.sort(Comparator.comparing(EventShortDto::getViews).reversed());
-
-        return eventShortDtos;
+    private Event saveEvent(Event event) {
+        Event savedEvent = eventRepository.save(event);
+        // the participant limit may have changed, availability is recomputed against the stored counter
+        eventRepository.updateAvailable(savedEvent.getId());
+        eventTextIndex.indexAfterCommit(savedEvent);
+        compilationDtoCache.evictAllAfterCommit();
+        return savedEvent;
+    }
+
+    private Pageable createPage(String cursor, int from, int size, Sort sort) {
+        return cursor == null ? OffsetPageRequest.createPageRequest(from, size, sort) : PageRequest.of(0, size, sort);
+    }
+
+    /**
+     * Adds the seek condition of a cursor, if any, so that only the rows following the cursor are read.
+     */
+    private Predicate withSeek(Predicate predicate, Predicate seek) {
+        return seek == null ? predicate : new BooleanBuilder(predicate).and(seek);
+    }
+
+    /**
+     * Walks the text matches from the highest score down and keeps those matching the predicate until a page is
+     * filled. The predicate is checked in SQL for one chunk of ranked ids at a time, so filters are applied before
+     * anything is cut and a page usually costs a single query.
+     */
+    private List<EventShortProjection> findEventsByRelevance(Predicate predicate, EventTextIndex.Matches matches,
+                                                             PublicGetEventParamsDto params) {
+        KeysetCursor cursor = params.getCursor() == null ? null : KeysetCursor.decode(params.getCursor());
+        long skip = cursor == null ? params.getFrom() : 0;
+        List<Long> pageIds = new ArrayList<>(params.getSize());
+        for (List<Long> chunk : matches.rankedChunks()) {
+            List<Long> candidates = chunk;
+            if (cursor != null) {
+                double lastScore = cursor.getDoubleKey();
+                candidates = chunk.stream()
+                        .filter(id -> matches.getScore(id) < lastScore
+                                || matches.getScore(id) == lastScore && id > cursor.getId())
+                        .collect(Collectors.toList());
+                if (candidates.isEmpty()) {
+                    continue;
+                }
+            }
+            Set<Long> matching = new HashSet<>(eventRepository.findIds(
+                    new BooleanBuilder(predicate).and(QEvent.event.id.in(candidates))));
+            for (Long id : candidates) {
+                if (!matching.contains(id)) {
+                    continue;
+                }
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    pageIds.add(id);
+                }
+            }
+            if (pageIds.size() >= params.getSize()) {
+                break;
+            }
+        }
+        if (pageIds.size() > params.getSize()) {
+            pageIds = pageIds.subList(0, params.getSize());
+        }
+        if (pageIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, EventShortProjection> eventMap = eventRepository
+                .findShortSlice(QEvent.event.id.in(pageIds), Pageable.unpaged()).stream()
+                .collect(Collectors.toMap(EventShortProjection::getId, Function.identity()));
+        return pageIds.stream().map(eventMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Reads one page, in the order of the page, of the events matching both the text and the predicate. Each chunk
+     * of matching ids is queried for the rows up to the end of the page and the page is cut from their merge.
+     */
+    private List<EventShortProjection> findMatchingSlice(Predicate predicate, EventTextIndex.Matches matches,
+                                                         Pageable page, boolean byViews) {
+        List<List<Long>> chunks = matches.rankedChunks();
+        if (chunks.size() <= 1) {
+            return chunks.isEmpty() ? List.of()
+                    : eventRepository.findShortSlice(new BooleanBuilder(predicate).and(QEvent.event.id.in(chunks.get(0))), page);
+        }
+        Pageable firstRows = PageRequest.of(0, (int) page.getOffset() + page.getPageSize(), page.getSort());
+        Comparator<EventShortProjection> order = byViews
+                ? Comparator.comparing(EventShortProjection::getViews, Comparator.reverseOrder())
+                        .thenComparing(EventShortProjection::getId)
+                : Comparator.comparing(EventShortProjection::getEventDate, Comparator.reverseOrder())
+                        .thenComparing(EventShortProjection::getId, Comparator.reverseOrder());
+        return chunks.stream()
+                .flatMap(chunk -> eventRepository.findShortSlice(
+                        new BooleanBuilder(predicate).and(QEvent.event.id.in(chunk)), firstRows).stream())
+                .sorted(order)
+                .skip(page.getOffset())
+                .limit(page.getPageSize())
+                .collect(Collectors.toList());
     }
 
-    private List<EventShortDto> getEventsSortedByDate(Predicate predicate, Pageable page, String rangeStart) {
-        Page<Event> resultEvents = eventRepository.findAll(predicate, page);
-        LocalDateTime startDate = getStartDate(rangeStart);
-
-        Map<Long, Event> eventMap = createEventMap(resultEvents.getContent());
-        Map<Long, Long> confirmedRequestsCountMap = getConfirmedRequestsCount(eventMap.keySet());
-
-        List<StatsResponseDto> stats = getStatsForEvents(resultEvents.getContent(), startDate);
-        Map<String, Long> viewsMap = createViewsMap(stats);
-
-        List<EventShortDto> eventShortDtos = convertEventsToDtos(resultEvents.getContent());
-        updateEventConfirmedRequestsShortDto(confirmedRequestsCountMap, eventShortDtos);
-        setEventDtoViews(eventShortDtos, viewsMap);
-
-        return eventShortDtos;
-    }
+    /**
+     * Rows after the cursor in the public sort order: event date descending, or views descending.
+     * Views are compared with the stored event_views, which the listing also shows; an event whose stored views
+     * are updated between two pages may still be skipped or repeated. Together with the PUBLISHED condition of the
+     * public predicate the next page is read in order from idx_events_state_views.
+     */
+    private Predicate buildSeekPredicate(boolean byViews, KeysetCursor cursor) {
+        QEvent event = QEvent.event;
+        if (byViews) {
+            long views = cursor.getLongKey();
+            return event.views.lt(views).or(event.views.eq(views).and(event.id.gt(cursor.getId())));
+        }
+        LocalDateTime eventDate = cursor.getDateKey();
+        return event.eventDate.lt(eventDate).or(event.eventDate.eq(eventDate).and(event.id.lt(cursor.getId())));
+    }
+
+    /**
+     * Maps a page of events with views and comment counts. A page sorted by views shows the stored event_views
+     * it was ordered and seeked by, not the live counts, which may be ahead of them by up to the refresh interval.
+     */
+    private List<EventShortDto> getEventsPage(List<EventShortProjection> events, boolean storedViews) {
+        if (storedViews) {
+            List<EventShortDto> eventShortDtos = new ArrayList<>(events.size());
+            for (EventShortProjection event : events) {
+                EventShortDto dto = eventDtoMapper.eventShortProjectionToEventShortDto(event);
+                dto.setViews(Objects.requireNonNullElse(event.getViews(), 0L));
+                eventShortDtos.add(dto);
+            }
+            eventEnricher.enrichComments(eventShortDtos);
+            return eventShortDtos;
+        }
+        Map<Long, LocalDateTime> viewsStarts = new HashMap<>();
+        events.forEach(event -> viewsStarts.put(event.getId(),
+                ViewCounter.getStart(event.getPublishedOn(), event.getCreatedOn())));
 
-    private List<EventShortDto> convertEventsToDtos(List<Event> events, Map<String, Long> viewsMap) {
-        return events.stream()
-                .map(event -> {
-                    EventShortDto dto = eventDtoMapper.eventToEventShortDto(event);
-                    String eventUri = "/events/" + event.getId();
-                    long views = viewsMap.getOrDefault(eventUri, 0L);
-                    dto.setViews(views);
-                    return dto;
-                })
+        List<EventShortDto> eventShortDtos = events.stream()
+                .map(eventDtoMapper::eventShortProjectionToEventShortDto)
                 .collect(Collectors.toList());
-    }
+        eventEnricher.enrich(eventShortDtos, viewsStarts);
 
-    private Map<Long, Event> createEventMap(List<Event> resultEvents) {
-        return resultEvents.stream().collect(Collectors.toMap(Event::getId, Function.identity()));
+        return eventShortDtos;
     }
 
     private Map<Long, EventShortDto> createEventShortDtoMap(List<EventShortDto> resultEvents) {
         return resultEvents.stream().collect(Collectors.toMap(EventShortDto::getId, Function.identity()));
     }
 
-    private Map<Long, Long> getConfirmedRequestsCount(Set<Long> eventIds) {
-        List<ParticipantCountDto> results = participationRequestRepository.countParticipantsInAndStatus(eventIds, ParticipationRequestStatus.CONFIRMED);
-        return results.stream()
-                .collect(Collectors.toMap(
-                        ParticipantCountDto::getEventId,
-                        ParticipantCountDto::getConfirmedRequestCount
-                ));
-    }
-
     private Map<Long, Long> getCommentCount(Set<Long> eventIds) {
         List<CommentCountDto> results = commentRepository.countByEventId(eventIds);
         return results.stream()
@@ -340,15 +427,6 @@ public class EventServiceImpl implements EventService {
                 .orElse(null);
     }
 
-    private void updateEventConfirmedRequestsShortDto(Map<Long, Long> confirmedRequestsCountMap, List<EventShortDto> eventsDto) {
-        for (EventShortDto event : eventsDto) {
-            Long count = confirmedRequestsCountMap.get(event.getId());
-            if (count != null) {
-                event.setConfirmedRequests(count);
-            }
-        }
-    }
-
     private void updateEventCommentsShortDtos(Map<Long, Long> commentCountMap, List<EventShortDto> eventsDto) {
         for (EventShortDto event : eventsDto) {
             Long count = commentCountMap.get(event.getId());
@@ -358,54 +436,10 @@ public class EventServiceImpl implements EventService {
         }
     }
 
-    private void updateEventConfirmedRequestsFullDtos(Map<Long, Long> confirmedRequestsCountMap, List<EventFullDto> eventsDto) {
-        for (EventFullDto event : eventsDto) {
-            Long count = confirmedRequestsCountMap.get(event.getId());
-            if (count != null) {
-                event.setConfirmedRequests(count);
-            }
-        }
-    }
-
-
-    private List<StatsResponseDto> getStatsForEvents(List<Event> resultEvents, LocalDateTime startDate) {
-        List<String> uris = resultEvents.stream()
-                .map(Event::getId)
-                .map(id -> "/events/" + id)
-                .collect(Collectors.toList());
-        List<StatsResponseDto> stats = getStats(startDate, LocalDateTime.now(), uris, false);
-        return stats;
-    }
-
-    private Map<String, Long> createViewsMap(List<StatsResponseDto> stats) {
-        return stats.stream().collect(Collectors.toMap(StatsResponseDto::getUri, StatsResponseDto::getHits));
-    }
-
-
-    private List<EventShortDto> convertEventsToDtos(List<Event> resultEvents) {
-        return resultEvents.stream()
-                .map(eventDtoMapper::eventToEventShortDto)
-                .collect(Collectors.toList());
-    }
-
-    private void setEventDtoViews(List<EventShortDto> eventShortDtos, Map<String, Long> viewsMap) {
-        for (EventShortDto eventDto : eventShortDtos) {
-            String eventUri = "/events/" + eventDto.getId();
-            long views = viewsMap.getOrDefault(eventUri, 0L);
-            eventDto.setViews(views);
-        }
-    }
-
     private Predicate buildPredicate(PublicGetEventParamsDto params) {
         QEvent event = QEvent.event;
-        BooleanBuilder builder = new BooleanBuilder();
-
-        String text = params.getText();
-
-        if (text != null && !text.isEmpty()) {
-            builder.and(event.annotation.containsIgnoreCase(text)
-                    .or(event.description.containsIgnoreCase(text)));
-        }
+        // only published events are public; it is also the leading column of the listing indexes
+        BooleanBuilder builder = new BooleanBuilder(event.state.eq(EventState.PUBLISHED));
 
         List<Long> categories = params.getCategories();
 
@@ -438,12 +472,7 @@ public class EventServiceImpl implements EventService {
         boolean onlyAvailable = params.isOnlyAvailable();
 
         if (onlyAvailable) {
-            builder.and(event.participantLimit.gt(
-                    JPAExpressions
-                            .selectFrom(participationRequest)
-                            .where(participationRequest.event.id.eq(event.id))
-                            .groupBy(participationRequest.event.id)
-                            .select(participationRequest.count())));
+            builder.and(event.available.isTrue());
         }
 
         return builder;
@@ -659,9 +688,4 @@ public class EventServiceImpl implements EventService {
             throw new IllegalArgumentException("End date should be after start date.");
         }
     }
-
-    private List<StatsResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
-        ClientRequestDto requestDto = new ClientRequestDto(start, end, uris, unique);
-        return client.getStats(requestDto);
-    }
 }
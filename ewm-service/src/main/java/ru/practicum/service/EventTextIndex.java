@@ -0,0 +1,287 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.dto.event.EventTextDto;
+import ru.practicum.model.Event;
+import ru.practicum.repository.EventRepository;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index over event annotations and descriptions, used for the public {@code text} filter.
+ * Every word of the text has to match an indexed word, by prefix for words of at least MIN_PREFIX_LENGTH characters,
+ * and matching events are scored with BM25. All matches are returned; their ids are handed to the database in
+ * chunks of at most ids-per-query, so that no query carries an unbounded id list however common the words are.
+ * The index is built from the database on startup and updated after every committed event change. Changes made by
+ * other instances only reach it when the whole index is rebuilt from the database, every refresh-ms.
+ */
+@Slf4j
+@Component
+public class EventTextIndex implements InitializingBean {
+    static final int MIN_PREFIX_LENGTH = 3;
+    private static final int BUILD_CHUNK = 1000;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final EventRepository eventRepository;
+    private final int idsPerQuery;
+
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Long, Integer> lengths = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+    // texts indexed while a rebuild reads the database, applied over what it has read; null when not rebuilding
+    private Map<Long, Map<String, Integer>> changedDuringRebuild;
+
+    public EventTextIndex(EventRepository eventRepository,
+                          @Value("${events.text-search.ids-per-query:1000}") int idsPerQuery) {
+        this.eventRepository = eventRepository;
+        this.idsPerQuery = idsPerQuery;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Map<Long, Map<String, Integer>> loaded = load();
+        lock.writeLock().lock();
+        try {
+            loaded.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed text of {} events", size());
+    }
+
+    /**
+     * Replaces the index with the texts stored in the database. Events indexed locally while the database is read
+     * keep their newer text.
+     */
+    @Scheduled(initialDelayString = "${events.text-search.refresh-ms:300000}",
+            fixedDelayString = "${events.text-search.refresh-ms:300000}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, Map<String, Integer>> loaded = null;
+        try {
+            loaded = load();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (loaded != null) {
+                    loaded.putAll(changedDuringRebuild);
+                    postings.clear();
+                    documents.clear();
+                    lengths.clear();
+                    totalLength = 0;
+                    loaded.forEach(this::put);
+                }
+                changedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.debug("Rebuilt text index of {} events", size());
+    }
+
+    /**
+     * Indexes the event once the current transaction commits, or right away outside of a transaction.
+     */
+    public void indexAfterCommit(Event event) {
+        long eventId = event.getId();
+        String annotation = event.getAnnotation();
+        String description = event.getDescription();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            index(eventId, annotation, description);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                index(eventId, annotation, description);
+            }
+        });
+    }
+
+    public void index(long eventId, String annotation, String description) {
+        Map<String, Integer> terms = terms(annotation, description);
+        lock.writeLock().lock();
+        try {
+            put(eventId, terms);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(eventId, terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the events matching all words of the text with their scores, none if the text has no words.
+     */
+    public Matches search(String text) {
+        List<String> words = tokenize(text).stream().distinct().collect(Collectors.toList());
+        Map<Long, Double> scores = null;
+
+        lock.readLock().lock();
+        try {
+            for (String word : words) {
+                Map<Long, Double> wordScores = scoreWord(word, scores);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((eventId, score) -> score + wordScores.get(eventId));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Matches(scores == null ? Map.of() : scores, idsPerQuery);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Map<String, Integer>> load() {
+        Map<Long, Map<String, Integer>> loaded = new HashMap<>();
+        long afterId = 0;
+        List<EventTextDto> chunk;
+        do {
+            chunk = eventRepository.findTextAfter(afterId, PageRequest.of(0, BUILD_CHUNK));
+            for (EventTextDto event : chunk) {
+                loaded.put(event.getEventId(), terms(event.getAnnotation(), event.getDescription()));
+                afterId = event.getEventId();
+            }
+        } while (chunk.size() == BUILD_CHUNK);
+        return loaded;
+    }
+
+    private void put(long eventId, Map<String, Integer> terms) {
+        remove(eventId);
+        int length = terms.values().stream().mapToInt(Integer::intValue).sum();
+        documents.put(eventId, terms);
+        lengths.put(eventId, length);
+        totalLength += length;
+        terms.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(eventId, frequency));
+    }
+
+    private Map<Long, Double> scoreWord(String word, Map<Long, Double> candidates) {
+        int documentCount = documents.size();
+        double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+        Map<Long, Double> wordScores = new HashMap<>();
+        // a word matches every indexed term it is a prefix of, an event scores by its best matching term;
+        // a short word would be a prefix of most terms, so it only matches itself
+        Collection<Map<Long, Integer>> matches = word.length() < MIN_PREFIX_LENGTH
+                ? Optional.ofNullable(postings.get(word)).map(List::of).orElse(List.of())
+                : postings.subMap(word, true, word + Character.MAX_VALUE, true).values();
+        for (Map<Long, Integer> termPostings : matches) {
+            int frequency = termPostings.size();
+            double idf = Math.log(1 + (documentCount - frequency + 0.5) / (frequency + 0.5));
+            for (Map.Entry<Long, Integer> posting : termPostings.entrySet()) {
+                Long eventId = posting.getKey();
+                if (candidates != null && !candidates.containsKey(eventId)) {
+                    continue;
+                }
+                int termFrequency = posting.getValue();
+                double norm = 1 - B + B * lengths.get(eventId) / averageLength;
+                double score = idf * termFrequency * (K1 + 1) / (termFrequency + K1 * norm);
+                wordScores.merge(eventId, score, Math::max);
+            }
+        }
+        return wordScores;
+    }
+
+    private void remove(long eventId) {
+        Map<String, Integer> terms = documents.remove(eventId);
+        if (terms == null) {
+            return;
+        }
+        totalLength -= lengths.remove(eventId);
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            termPostings.remove(eventId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static Map<String, Integer> terms(String annotation, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        tokenize(annotation).forEach(term -> terms.merge(term, 1, Integer::sum));
+        tokenize(description).forEach(term -> terms.merge(term, 1, Integer::sum));
+        return terms;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Events matching a text, with their scores.
+     */
+    public static class Matches {
+        private final Map<Long, Double> scores;
+        private final int idsPerQuery;
+
+        public Matches(Map<Long, Double> scores, int idsPerQuery) {
+            this.scores = scores;
+            this.idsPerQuery = idsPerQuery;
+        }
+
+        public Map<Long, Double> getScores() {
+            return Collections.unmodifiableMap(scores);
+        }
+
+        public double getScore(long eventId) {
+            return scores.get(eventId);
+        }
+
+        public int size() {
+            return scores.size();
+        }
+
+        /**
+         * Returns the ids ranked by score, highest first and then by id, split into chunks of at most ids-per-query.
+         */
+        public List<List<Long>> rankedChunks() {
+            List<Long> ranked = scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            List<List<Long>> chunks = new ArrayList<>();
+            for (int from = 0; from < ranked.size(); from += idsPerQuery) {
+                chunks.add(ranked.subList(from, Math.min(from + idsPerQuery, ranked.size())));
+            }
+            return chunks;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.AsyncClient;
+import ru.practicum.dto.event.EventViewsDto;
+import ru.practicum.enums.EventState;
+import ru.practicum.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps events.event_views close to the view counts, so that public search can sort and page by views in SQL.
+ * Events tracked by {@link ViewCounter} are written after every reconcile, all other published events
+ * are refreshed from stats-server on a longer interval. Listings sorted by views show these stored values, so
+ * their order and cursors agree with what is shown, at the cost of lagging the live counts by up to refresh-ms.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsSynchronizer {
+    private static final int REFRESH_CHUNK = 100;
+
+    private final ViewCounter viewCounter;
+    private final EventRepository eventRepository;
+    private final AsyncClient client;
+
+    @Scheduled(fixedDelayString = "${stats-service.views.reconcile-ms:30000}")
+    public void reconcile() {
+        viewCounter.reconcileAll();
+        Map<Long, Long> changed = viewCounter.collectChangedViews();
+        changed.forEach(eventRepository::updateViews);
+        log.debug("Stored views of {} tracked events", changed.size());
+    }
+
+    @Scheduled(initialDelayString = "${stats-service.views.refresh-initial-delay-ms:60000}",
+            fixedDelayString = "${stats-service.views.refresh-ms:600000}")
+    public void refresh() {
+        long afterId = 0;
+        int updated = 0;
+        try {
+            List<EventViewsDto> chunk;
+            do {
+                chunk = eventRepository.findViewsAfter(EventState.PUBLISHED, afterId, PageRequest.of(0, REFRESH_CHUNK));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).getEventId();
+                updated += refreshChunk(chunk);
+            } while (chunk.size() == REFRESH_CHUNK);
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh event views after event {}: {}", afterId, e.getMessage());
+        }
+        log.info("Refreshed views of published events, {} changed", updated);
+    }
+
+    private int refreshChunk(List<EventViewsDto> chunk) {
+        List<EventViewsDto> untracked = chunk.stream()
+                .filter(event -> event.getPublishedOn() != null && !viewCounter.isTracked(event.getEventId()))
+                .collect(Collectors.toList());
+        if (untracked.isEmpty()) {
+            return 0;
+        }
+        // views are counted from each event's own publication, so only events published together share a request
+        Map<LocalDateTime, List<Long>> idsByStart = untracked.stream()
+                .collect(Collectors.groupingBy(EventViewsDto::getPublishedOn,
+                        Collectors.mapping(EventViewsDto::getEventId, Collectors.toList())));
+        LocalDateTime end = LocalDateTime.now();
+        List<CompletableFuture<Map<Long, Long>>> requests = new ArrayList<>();
+        idsByStart.forEach((start, eventIds) -> requests.add(client.getEventHits(start, end, eventIds, true)));
+        Map<Long, Long> remote = new HashMap<>();
+        requests.forEach(request -> remote.putAll(request.join()));
+
+        int updated = 0;
+        for (EventViewsDto event : untracked) {
+            long views = remote.getOrDefault(event.getEventId(), 0L);
+            if (views != event.getViews()) {
+                eventRepository.updateViews(event.getEventId(), views);
+                updated++;
+            }
+        }
+        return updated;
+    }
+}
@@ -52,15 +52,18 @@ public class ParticipationServiceImpl implements ParticipationService {
         Event event = eventRepository.findById(eventId)
                 .orElseThrow(() -> new EntityNotFoundException("Event with id='" + eventId + "' not found"));
 
-        long participantsCount = participationRequestRepository.countByEventIdAndStatus(event.getId(), ParticipationRequestStatus.CONFIRMED);
+        long participantsCount = event.getConfirmedRequests();
         long participantsLimit = event.getParticipantLimit();
         validateRequest(userId, eventId, event, participantsCount, participantsLimit);
 
         ParticipationRequest participationRequest = new ParticipationRequest();
 
         if (!event.getRequestModeration() || participantsLimit == 0) {
+            // the slot is taken by a conditional update, the count read above may already be stale
+            if (eventRepository.reserveConfirmedRequests(eventId, 1) == 0) {
+                throw new ParticipationLimitExceededException("Participant limit='" + event.getParticipantLimit() + "' exceeded");
+            }
             participationRequest.setStatus(ParticipationRequestStatus.CONFIRMED);
-            eventRepository.save(event);
         } else {
             participationRequest.setStatus(ParticipationRequestStatus.PENDING);
         }
@@ -73,6 +76,7 @@ public class ParticipationServiceImpl implements ParticipationService {
         return participationRequestMapper.toDto(savedParticipationRequest);
     }
 
+    @Transactional
     @Override
     public ParticipationRequestDto cancel(long userId, long requestId) {
         ParticipationRequest participationRequest = participationRequestRepository.findById(requestId)
@@ -82,6 +86,9 @@ public class ParticipationServiceImpl implements ParticipationService {
             throw new EntityNotFoundException("request with id='" + requestId + "' not found");
         }
 
+        if (participationRequest.getStatus() == ParticipationRequestStatus.CONFIRMED) {
+            eventRepository.addConfirmedRequests(participationRequest.getEvent().getId(), -1);
+        }
         participationRequest.setStatus(ParticipationRequestStatus.CANCELED);
         return participationRequestMapper.toDto(participationRequestRepository.save(participationRequest));
     }
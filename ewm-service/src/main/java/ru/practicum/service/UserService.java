@@ -3,13 +3,14 @@ package ru.practicum.service;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.user.NewUserRequest;
 import ru.practicum.dto.user.UserDto;
+import ru.practicum.util.CursorPage;
 
 import java.util.List;
 
 public interface UserService {
     UserDto create(NewUserRequest newUserRequest);
 
-    List<UserDto> getAll(List<Long> ids, Pageable pageable);
+    CursorPage<UserDto> getAll(List<Long> ids, String cursor, Pageable pageable);
 
     void delete(long userId);
 
@@ -1,7 +1,7 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,6 +10,8 @@ import ru.practicum.dto.user.UserDto;
 import ru.practicum.dto.user.UserDtoMapper;
 import ru.practicum.model.User;
 import ru.practicum.repository.UserRepository;
+import ru.practicum.util.CursorPage;
+import ru.practicum.util.KeysetCursor;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,20 +21,28 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final UserDtoMapper userDtoMapper;
+    private final CompilationDtoCache compilationDtoCache;
 
     @Transactional(readOnly = true)
     @Override
-    public List<UserDto> getAll(List<Long> ids, Pageable pageable) {
-        Page<User> users;
-        if (ids != null && !ids.isEmpty()) {
-            users = userRepository.findByIds(ids, pageable);
+    public CursorPage<UserDto> getAll(List<Long> ids, String cursor, Pageable pageable) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        List<User> users;
+        if (cursor != null) {
+            long afterId = KeysetCursor.decode(cursor).getId();
+            Pageable page = PageRequest.of(0, pageable.getPageSize(), pageable.getSort());
+            users = byIds ? userRepository.findByIdsAfter(ids, afterId, page)
+                    : userRepository.findAllByIdGreaterThan(afterId, page);
         } else {
-            users = userRepository.findAll(pageable);
+            users = byIds ? userRepository.findByIds(ids, pageable).getContent()
+                    : userRepository.findAll(pageable).getContent();
         }
 
-        return users.getContent().stream()
+        List<UserDto> userDtos = users.stream()
                 .map(userDtoMapper::userToUserDto)
                 .collect(Collectors.toList());
+        return new CursorPage<>(userDtos,
+                CursorPage.nextCursor(users, pageable, user -> KeysetCursor.encode(null, user.getId())));
     }
 
     @Override
@@ -44,5 +54,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public void delete(long userId) {
         userRepository.deleteById(userId);
+        userRepository.evictCached(userId);
+        compilationDtoCache.evictAllAfterCommit();
     }
 }
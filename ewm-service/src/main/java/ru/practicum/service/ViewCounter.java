@@ -0,0 +1,224 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.client.AsyncClient;
+import ru.practicum.model.Event;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-process unique view counts of public events. Every event view is added to a local distinct-IP sketch,
+ * and the count reported is the last count reconciled with stats-server plus the growth of the local sketch
+ * since then. Events are seeded from stats-server the first time they are read. When stats-server does not
+ * answer in time, local counts are served and seeding is retried on the next read.
+ */
+@Slf4j
+@Component
+public class ViewCounter {
+    private static final int SKETCH_PRECISION = 10;
+    private static final int RECONCILE_CHUNK = 500;
+    private static final int RECONCILE_LANES = 8;
+
+    private final AsyncClient client;
+    private final long timeoutMs;
+    private final Cache<Long, EventViews> views;
+
+    public ViewCounter(AsyncClient client,
+                       @Value("${stats-service.views.max-events:100000}") long maxEvents,
+                       @Value("${stats-service.views.timeout-ms:2000}") long timeoutMs) {
+        this.client = client;
+        this.timeoutMs = timeoutMs;
+        this.views = Caffeine.newBuilder()
+                .maximumSize(maxEvents)
+                .build();
+    }
+
+    public void record(long eventId, String ip) {
+        views.get(eventId, id -> new EventViews()).add(ip);
+    }
+
+    public long getViews(Event event) {
+        return getViews(List.of(event)).getOrDefault(event.getId(), 0L);
+    }
+
+    public Map<Long, Long> getViews(Collection<Event> events) {
+        Map<Long, LocalDateTime> starts = new HashMap<>();
+        events.forEach(event -> starts.put(event.getId(), getStart(event.getPublishedOn(), event.getCreatedOn())));
+        return getViewsSince(starts);
+    }
+
+    /**
+     * Returns the views of events given by id and the time their views are counted from.
+     */
+    public Map<Long, Long> getViewsSince(Map<Long, LocalDateTime> starts) {
+        List<Long> unseeded = new ArrayList<>();
+        starts.forEach((eventId, start) -> {
+            EventViews eventViews = views.get(eventId, id -> new EventViews());
+            if (!eventViews.seeded) {
+                eventViews.since = start;
+                unseeded.add(eventId);
+            }
+        });
+        if (!unseeded.isEmpty()) {
+            reconcile(unseeded);
+        }
+
+        Map<Long, Long> result = new HashMap<>();
+        for (Long eventId : starts.keySet()) {
+            EventViews eventViews = views.getIfPresent(eventId);
+            result.put(eventId, eventViews != null ? eventViews.estimate() : 0L);
+        }
+        return result;
+    }
+
+    public long getTrackedEvents() {
+        return views.estimatedSize();
+    }
+
+    public boolean isTracked(long eventId) {
+        EventViews eventViews = views.getIfPresent(eventId);
+        return eventViews != null && eventViews.seeded;
+    }
+
+    /**
+     * Returns the views of seeded events that changed since the previous call.
+     */
+    public Map<Long, Long> collectChangedViews() {
+        Map<Long, Long> result = new HashMap<>();
+        views.asMap().forEach((id, eventViews) -> {
+            if (eventViews.seeded) {
+                long estimate = eventViews.estimate();
+                if (estimate != eventViews.collected) {
+                    eventViews.collected = estimate;
+                    result.put(id, estimate);
+                }
+            }
+        });
+        return result;
+    }
+
+    public void reconcileAll() {
+        List<Long> seeded = views.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().seeded)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        reconcile(seeded);
+    }
+
+    private void reconcile(List<Long> eventIds) {
+        // views are counted from each event's own start, so only events sharing a start are requested together
+        Map<LocalDateTime, Map<Long, EventViews>> byStart = new HashMap<>();
+        for (Long id : eventIds) {
+            EventViews eventViews = views.getIfPresent(id);
+            if (eventViews != null && eventViews.since != null) {
+                byStart.computeIfAbsent(eventViews.since, start -> new HashMap<>()).put(id, eventViews);
+            }
+        }
+        List<Supplier<CompletableFuture<Void>>> requests = new ArrayList<>();
+        byStart.forEach((start, byId) -> {
+            List<Long> ids = new ArrayList<>(byId.keySet());
+            for (int from = 0; from < ids.size(); from += RECONCILE_CHUNK) {
+                List<Long> chunk = ids.subList(from, Math.min(from + RECONCILE_CHUNK, ids.size()));
+                requests.add(() -> reconcile(start, chunk, byId));
+            }
+        });
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        // requests go out over a few lanes, one after another in each, and a failed request does not stop its lane;
+        // events of a failed or late request keep their previous counts
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (int lane = 0; lane < Math.min(RECONCILE_LANES, requests.size()); lane++) {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (int i = lane; i < requests.size(); i += RECONCILE_LANES) {
+                Supplier<CompletableFuture<Void>> request = requests.get(i);
+                chain = chain.thenCompose(ignored -> request.get().exceptionally(e -> {
+                    failed.incrementAndGet();
+                    return null;
+                }));
+            }
+            lanes.add(chain);
+        }
+        try {
+            CompletableFuture.allOf(lanes.toArray(new CompletableFuture[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.warn("Failed to reconcile views of {} events: {}", eventIds.size(), e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            log.warn("Views of {} events were not reconciled in {} ms", eventIds.size(), timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failed.get() > 0) {
+            log.warn("{} of {} requests to reconcile views failed", failed.get(), requests.size());
+        }
+    }
+
+    private CompletableFuture<Void> reconcile(LocalDateTime start, List<Long> chunk, Map<Long, EventViews> byId) {
+        Map<Long, Long> snapshots = new HashMap<>();
+        chunk.forEach(id -> snapshots.put(id, byId.get(id).localEstimate()));
+        return client.getEventHits(start, LocalDateTime.now(), chunk, true)
+                .thenAccept(remote -> chunk.forEach(id ->
+                        byId.get(id).reconciled(remote.getOrDefault(id, 0L), snapshots.get(id))));
+    }
+
+    public static LocalDateTime getStart(LocalDateTime publishedOn, LocalDateTime createdOn) {
+        return publishedOn != null ? publishedOn : createdOn;
+    }
+
+    private static class EventViews {
+        private final LongAdder localHits = new LongAdder();
+        private final HyperLogLog localIps = new HyperLogLog(SKETCH_PRECISION);
+        private volatile LocalDateTime since;
+        private volatile boolean seeded;
+        private long remoteUnique;
+        private long localAtReconcile;
+        private long hitsAtEstimate = -1;
+        private long localEstimate;
+        private volatile long collected = -1;
+
+        void add(String ip) {
+            synchronized (localIps) {
+                localIps.add(ip);
+            }
+            localHits.increment();
+        }
+
+        long localEstimate() {
+            synchronized (localIps) {
+                return localIps.estimate();
+            }
+        }
+
+        synchronized void reconciled(long remote, long localSnapshot) {
+            remoteUnique = remote;
+            localAtReconcile = localSnapshot;
+            seeded = true;
+        }
+
+        synchronized long estimate() {
+            // the sketch is only re-estimated when views were recorded since the last read
+            long hits = localHits.sum();
+            if (hits != hitsAtEstimate) {
+                localEstimate = localEstimate();
+                hitsAtEstimate = hits;
+            }
+            return remoteUnique + Math.max(0, localEstimate - localAtReconcile);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.util;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@RequiredArgsConstructor
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+
+    public void setNextCursorHeader(HttpServletResponse response) {
+        if (nextCursor != null) {
+            response.setHeader(KeysetCursor.HEADER, nextCursor);
+        }
+    }
+
+    /**
+     * Returns the cursor of the page following {@code rows}, or null if {@code rows} is the last page.
+     */
+    public static <E> String nextCursor(List<E> rows, Pageable pageable, Function<E, String> cursor) {
+        if (pageable.isUnpaged() || rows.isEmpty() || rows.size() < pageable.getPageSize()) {
+            return null;
+        }
+        return cursor.apply(rows.get(rows.size() - 1));
+    }
+}
@@ -69,4 +69,4 @@ CREATE TABLE IF NOT EXISTS comments (
     updated boolean,
     FOREIGN KEY (event_id) REFERENCES events(event_id) ON DELETE CASCADE,
     FOREIGN KEY (author_id) REFERENCES users(user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
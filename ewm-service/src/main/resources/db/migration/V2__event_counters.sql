@@ -0,0 +1,7 @@
+-- denormalized per-event values read by listings instead of aggregating stats and participation_requests
+ALTER TABLE events ADD COLUMN IF NOT EXISTS event_views BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS event_confirmed_requests BIGINT DEFAULT 0 NOT NULL;
+
+-- false once event_confirmed_requests reached a non-zero event_participant_limit
+ALTER TABLE events ADD COLUMN IF NOT EXISTS event_available BOOLEAN DEFAULT TRUE NOT NULL;
@@ -0,0 +1,15 @@
+-- public search: published events by date, by views and by availability
+CREATE INDEX IF NOT EXISTS idx_events_state_date ON events (event_state, event_date, event_id);
+CREATE INDEX IF NOT EXISTS idx_events_state_views ON events (event_state, event_views DESC, event_id);
+CREATE INDEX IF NOT EXISTS idx_events_date ON events (event_date DESC, event_id DESC);
+CREATE INDEX IF NOT EXISTS idx_events_state_available_date ON events (event_state, event_available, event_date DESC, event_id DESC);
+
+-- category filter, category deletion check and the events of an initiator
+CREATE INDEX IF NOT EXISTS idx_events_category ON events (category_id);
+CREATE INDEX IF NOT EXISTS idx_events_initiator ON events (initiator_id, event_id);
+
+-- confirmed requests of an event and the requests of a user; uq_request already covers (event_id, requester_id)
+CREATE INDEX IF NOT EXISTS idx_participation_requests_event_status ON participation_requests (event_id, status);
+CREATE INDEX IF NOT EXISTS idx_participation_requests_requester ON participation_requests (requester_id);
+
+CREATE INDEX IF NOT EXISTS idx_comments_event_created ON comments (event_id, comment_created_on DESC, comment_id DESC);
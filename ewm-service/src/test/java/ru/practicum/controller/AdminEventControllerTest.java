@@ -13,6 +13,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import ru.practicum.dto.event.UpdateEventAdminRequest;
 import ru.practicum.service.CommentService;
 import ru.practicum.service.EventService;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.DataUtils;
 
 import java.util.List;
@@ -45,7 +46,7 @@ class AdminEventControllerTest {
     @DisplayName("Test get events functionality")
     void givenParams_whenGetEvents_thenSuccessResponse() throws Exception {
         BDDMockito.given(eventService.getAll(DataUtils.getAdminEventParamsDto()))
-                .willReturn(List.of(DataUtils.getEventFullDto()));
+                .willReturn(new CursorPage<>(List.of(DataUtils.getEventFullDto()), null));
 
         ResultActions result = mvc.perform(get("/admin/events")
                 .param("users", "1")
@@ -14,6 +14,7 @@ import org.springframework.test.web.servlet.ResultActions;
 import ru.practicum.dto.user.NewUserRequest;
 import ru.practicum.dto.user.UserDto;
 import ru.practicum.service.UserService;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.DataUtils;
 
 import java.util.List;
@@ -45,8 +46,8 @@ class AdminUserControllerTest {
     void givenParams_whenGetUsers_thenSuccessResponse() throws Exception {
         List<UserDto> response = List.of(DataUtils.getUserDto());
 
-        BDDMockito.given(userService.getAll(anyList(), any(Pageable.class)))
-                .willReturn(response);
+        BDDMockito.given(userService.getAll(anyList(), isNull(), any(Pageable.class)))
+                .willReturn(new CursorPage<>(response, null));
 
         ResultActions result = mvc.perform(get("/admin/users")
                 .param("ids", "1")
@@ -7,9 +7,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import ru.practicum.dto.category.CategoryDto;
+import ru.practicum.dto.category.CategoryPage;
 import ru.practicum.service.CategoryService;
 import ru.practicum.util.DataUtils;
 
@@ -20,6 +22,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,7 +39,7 @@ class PublicCategoryControllerTest {
     @Test
     @DisplayName("Test get categories functionality")
     void givenParams_whenGetCategories_thenSuccessResponse() throws Exception {
-        List<CategoryDto> response = List.of(DataUtils.getCategoryDto());
+        CategoryPage response = new CategoryPage(List.of(DataUtils.getCategoryDto()), "\"abc\"");
         BDDMockito.given(categoryService.getAll(any(PageRequest.class)))
                 .willReturn(response);
 
@@ -46,9 +50,26 @@ class PublicCategoryControllerTest {
         result
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
                 .andExpect(jsonPath("$.[0].id", notNullValue()));
     }
 
+    @Test
+    @DisplayName("Test get categories with matching If-None-Match functionality")
+    void givenMatchingEtag_whenGetCategories_thenNotModifiedResponse() throws Exception {
+        CategoryPage response = new CategoryPage(List.of(DataUtils.getCategoryDto()), "\"abc\"");
+        BDDMockito.given(categoryService.getAll(any(PageRequest.class)))
+                .willReturn(response);
+
+        ResultActions result = mvc.perform(get("/categories")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"abc\""));
+
+        result
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
     @Test
     @DisplayName("Test get category by id functionality")
     void givenCatId_whenGetCategory_thenSuccessResponse() throws Exception {
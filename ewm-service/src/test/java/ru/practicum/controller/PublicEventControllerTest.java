@@ -9,21 +9,29 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
-import ru.practicum.client.Client;
+import ru.practicum.client.StatsRecorder;
+import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.event.EventFullDto;
 import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.dto.event.PublicGetEventParamsDto;
 import ru.practicum.service.CommentService;
 import ru.practicum.service.EventService;
+import ru.practicum.service.ViewCounter;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.DataUtils;
+import ru.practicum.util.KeysetCursor;
 
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -31,7 +39,10 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class PublicEventControllerTest {
 
     @MockBean
-    private Client client;
+    private StatsRecorder statsRecorder;
+
+    @MockBean
+    private ViewCounter viewCounter;
 
     @MockBean
     private EventService eventService;
@@ -46,8 +57,8 @@ class PublicEventControllerTest {
     void givenParams_whenGetAll_thenSuccessResponse() throws Exception {
         List<EventShortDto> response = List.of(DataUtils.getEventShortDto());
         BDDMockito.given(eventService.getAll(any(PublicGetEventParamsDto.class)))
-                .willReturn(response);
-        BDDMockito.doNothing().when(client).saveStats(DataUtils.getStatsRequestDto());
+                .willReturn(new CursorPage<>(response, null));
+        BDDMockito.given(statsRecorder.record(any(StatsRequestDto.class))).willReturn(true);
 
         ResultActions result = mvc.perform(get("/events")
                 .param("text", "text")
@@ -66,13 +77,31 @@ class PublicEventControllerTest {
                 .andExpect(jsonPath("$.[0].id", notNullValue()));
     }
 
+    @Test
+    @DisplayName("Test get all with cursor functionality")
+    void givenCursor_whenGetAll_thenNextCursorHeaderIsReturned() throws Exception {
+        BDDMockito.given(eventService.getAll(any(PublicGetEventParamsDto.class)))
+                .willReturn(new CursorPage<>(List.of(DataUtils.getEventShortDto()), "next"));
+        BDDMockito.given(statsRecorder.record(any(StatsRequestDto.class))).willReturn(true);
+
+        ResultActions result = mvc.perform(get("/events")
+                .param("cursor", "current")
+                .param("size", "1"));
+
+        result
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(KeysetCursor.HEADER, "next"));
+        verify(eventService).getAll(argThat((PublicGetEventParamsDto params) -> "current".equals(params.getCursor())));
+    }
+
     @Test
     @DisplayName("Test get by id functionality")
     void getById() throws Exception {
         EventFullDto response = DataUtils.getEventFullDto();
         BDDMockito.given(eventService.getByIdPublic(anyLong()))
                 .willReturn(response);
-        BDDMockito.doNothing().when(client).saveStats(DataUtils.getStatsRequestDto());
+        BDDMockito.given(statsRecorder.record(any(StatsRequestDto.class))).willReturn(true);
 
         ResultActions result = mvc.perform(get("/events/{id}", 1L));
 
@@ -80,13 +109,14 @@ class PublicEventControllerTest {
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", notNullValue()));
+        verify(viewCounter).record(1L, "127.0.0.1");
     }
 
     @Test
     @DisplayName("Test get comments functionality")
     void givenParams_whenGetComments_thenSuccessResponse() throws Exception {
-        BDDMockito.given(commentService.getAll(anyLong(), any(Pageable.class)))
-                .willReturn(DataUtils.getCommentsShort());
+        BDDMockito.given(commentService.getAll(anyLong(), isNull(), any(Pageable.class)))
+                .willReturn(new CursorPage<>(DataUtils.getCommentsShort(), null));
 
         ResultActions result = mvc.perform(get("/events/{id}/comments", 1L)
                         .param("from", "0")
@@ -5,12 +5,15 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import ru.practicum.dto.comment.CommentCountDto;
 import ru.practicum.dto.comment.CommentShort;
 import ru.practicum.model.*;
 import ru.practicum.util.DataUtils;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 
@@ -129,4 +132,39 @@ class CommentRepositoryTest {
         assertThat(result).isNotNull();
         assertThat(result.get(0).getCommentCount()).isEqualTo(2);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test find comments before a cursor functionality")
+    void givenCursor_whenFindAllByEventIdBefore_thenOlderCommentsAreReturned() {
+        Category category = DataUtils.getCategoryTransient();
+        categoryRepository.save(category);
+
+        User initiator = DataUtils.getUserInitiatorTransient();
+        userRepository.save(initiator);
+        User author = DataUtils.getUserAuthorTransient();
+        userRepository.save(author);
+
+        Location location = DataUtils.getLocationTransient();
+        locationRepository.save(location);
+
+        Event event = DataUtils.getEventTransient(category, initiator, location);
+        eventRepository.save(event);
+
+        LocalDateTime createdOn = LocalDateTime.of(2030, 1, 1, 12, 0);
+        Comment comment1 = DataUtils.getCommentOneTransient(event, author);
+        comment1.setCreatedOn(createdOn.minusHours(1));
+        Comment comment2 = DataUtils.getCommentTwoTransient(event, author);
+        comment2.setCreatedOn(createdOn);
+        Comment comment3 = DataUtils.getCommentOneTransient(event, author);
+        comment3.setCreatedOn(createdOn);
+        commentRepository.save(comment1);
+        commentRepository.save(comment2);
+        commentRepository.save(comment3);
+
+        List<CommentShort> commentShorts = commentRepository.findAllByEventIdBefore(event.getId(), createdOn,
+                comment3.getId(), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdOn", "id")));
+
+        assertThat(commentShorts).extracting(CommentShort::getId).containsExactly(comment2.getId(), comment1.getId());
+        assertThat(commentShorts.get(0).getAuthorName()).isEqualTo(author.getName());
+    }
+}
@@ -1,14 +1,20 @@
 package ru.practicum.repository;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import ru.practicum.model.Compilation;
+import ru.practicum.model.*;
 import ru.practicum.util.DataUtils;
 
+import java.util.List;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
@@ -16,6 +22,16 @@ class CompilationRepositoryTest {
 
     @Autowired
     private CompilationRepository compilationRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     @DisplayName("Test find compilation by pinned false functionality")
@@ -50,4 +66,37 @@ class CompilationRepositoryTest {
         assertThat(obtainedCompilation.getContent().size()).isEqualTo(1);
         assertThat(obtainedCompilation.getContent().get(0).getPinned()).isTrue();
     }
+
+    @Test
+    @DisplayName("Test find compilation ids by pinned functionality")
+    void givenPinnedFalseAndTrue_whenFindIdsByPinned_thenOnlyPinnedIdsAreReturned() {
+        compilationRepository.save(DataUtils.getCompilationTransient());
+        Compilation compilationPinned = DataUtils.getCompilationTransient();
+        compilationPinned.setPinned(true);
+        Long pinnedId = compilationRepository.save(compilationPinned).getId();
+
+        List<Long> obtainedIds = compilationRepository.findIdsByPinned(true, PageRequest.of(0, 10));
+
+        assertThat(obtainedIds).containsExactly(pinnedId);
+    }
+
+    @Test
+    @DisplayName("Test find compilations with events functionality")
+    void givenCompilationWithEvent_whenFindWithEventsByIdIn_thenEventsAreLoadedWithCompilation() {
+        Category category = categoryRepository.save(DataUtils.getCategoryTransient());
+        User initiator = userRepository.save(DataUtils.getUserInitiatorTransient());
+        Location location = locationRepository.save(DataUtils.getLocationTransient());
+        Event event = eventRepository.save(DataUtils.getEventTransient(category, initiator, location));
+        Compilation compilation = DataUtils.getCompilationTransient();
+        compilation.setEvents(Set.of(event));
+        Long compilationId = compilationRepository.save(compilation).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Compilation> obtainedCompilations = compilationRepository.findWithEventsByIdIn(List.of(compilationId));
+
+        assertThat(obtainedCompilations).hasSize(1);
+        assertThat(Hibernate.isInitialized(obtainedCompilations.get(0).getEvents())).isTrue();
+        assertThat(obtainedCompilations.get(0).getEvents()).extracting(Event::getId).containsExactly(event.getId());
+    }
 }
\ No newline at end of file
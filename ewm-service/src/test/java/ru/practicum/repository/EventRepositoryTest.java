@@ -1,18 +1,29 @@
 package ru.practicum.repository;
 
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import ru.practicum.model.Category;
-import ru.practicum.model.Event;
-import ru.practicum.model.Location;
-import ru.practicum.model.User;
+import org.springframework.data.domain.Sort;
+import ru.practicum.dto.event.EventShortProjection;
+import ru.practicum.dto.event.EventViewsDto;
+import ru.practicum.enums.EventState;
+import ru.practicum.enums.ParticipationRequestStatus;
+import ru.practicum.model.*;
 import ru.practicum.util.DataUtils;
+import ru.practicum.util.OffsetPageRequest;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -29,6 +40,10 @@ class EventRepositoryTest {
     private LocationRepository locationRepository;
     @Autowired
     private EventRepository eventRepository;
+    @Autowired
+    private ParticipationRequestRepository participationRequestRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @BeforeEach
     void setUp() {
@@ -96,4 +111,167 @@ class EventRepositoryTest {
 
         assertTrue(foundEvent.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test page of events sorted by stored views functionality")
+    void givenEventsWithViews_whenFindAllSortedByViews_thenPageIsOrderedInDatabase() {
+        Category category = DataUtils.getCategoryTransient();
+        categoryRepository.save(category);
+        User initiator = DataUtils.getUserInitiatorTransient();
+        userRepository.save(initiator);
+        Location location = DataUtils.getLocationTransient();
+        locationRepository.save(location);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Event event = DataUtils.getEventTransient(category, initiator, location);
+            eventRepository.save(event);
+            ids.add(event.getId());
+        }
+        eventRepository.updateViews(ids.get(0), 10);
+        eventRepository.updateViews(ids.get(1), 50);
+        eventRepository.updateViews(ids.get(2), 30);
+        eventRepository.updateViews(ids.get(3), 40);
+        eventRepository.updateViews(ids.get(4), 20);
+
+        Page<Event> page = eventRepository.findAll(QEvent.event.state.eq(EventState.PUBLISHED),
+                OffsetPageRequest.createPageRequest(1, 2, Sort.by(Sort.Direction.DESC, "views")));
+        List<EventViewsDto> views = eventRepository.findViewsAfter(EventState.PUBLISHED, ids.get(2), PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).extracting(Event::getId).containsExactly(ids.get(3), ids.get(2));
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(views).extracting(EventViewsDto::getViews).containsExactly(40L, 20L);
+    }
+
+    @Test
+    @DisplayName("Test keyset page of events after a cursor functionality")
+    void givenEventsWithSameDate_whenFindSliceAfterCursor_thenNextRowsAreReturned() {
+        Category category = DataUtils.getCategoryTransient();
+        categoryRepository.save(category);
+        User initiator = DataUtils.getUserInitiatorTransient();
+        userRepository.save(initiator);
+        Location location = DataUtils.getLocationTransient();
+        locationRepository.save(location);
+        LocalDateTime eventDate = LocalDateTime.of(2030, 1, 1, 12, 0);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Event event = DataUtils.getEventTransient(category, initiator, location);
+            event.setEventDate(i < 2 ? eventDate : eventDate.minusDays(i));
+            eventRepository.save(event);
+            ids.add(event.getId());
+        }
+
+        QEvent event = QEvent.event;
+        List<Event> page = eventRepository.findSlice(
+                event.eventDate.lt(eventDate).or(event.eventDate.eq(eventDate).and(event.id.lt(ids.get(1)))),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "eventDate", "id")));
+
+        assertThat(page).extracting(Event::getId).containsExactly(ids.get(0), ids.get(2));
+    }
+
+    @Test
+    @DisplayName("Test listing page loads related entities in one statement functionality")
+    void givenEventsWithDistinctRelations_whenFindSlice_thenOneStatementIsPrepared() {
+        for (int i = 0; i < 3; i++) {
+            Category category = DataUtils.getCategoryTransient();
+            category.setName("Category " + i);
+            categoryRepository.save(category);
+            User initiator = DataUtils.getUserInitiatorTransient();
+            initiator.setEmail("user" + i + "@email.com");
+            userRepository.save(initiator);
+            Location location = DataUtils.getLocationTransient();
+            locationRepository.save(location);
+            eventRepository.save(DataUtils.getEventTransient(category, initiator, location));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        List<Event> events = eventRepository.findSlice(QEvent.event.state.eq(EventState.PUBLISHED),
+                PageRequest.of(0, 10, Sort.by("id")));
+        events.forEach(event -> assertThat(event.getCategory().getName() + event.getInitiator().getName()
+                + event.getLocation().getLat()).isNotEmpty());
+
+        assertThat(events).hasSize(3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test listing rows are read as projections without managed entities functionality")
+    void givenEvents_whenFindShortSlice_thenProjectionsAreReturnedOutsideThePersistenceContext() {
+        Category category = DataUtils.getCategoryTransient();
+        categoryRepository.save(category);
+        User initiator = DataUtils.getUserInitiatorTransient();
+        userRepository.save(initiator);
+        Location location = DataUtils.getLocationTransient();
+        locationRepository.save(location);
+        Event event = DataUtils.getEventTransient(category, initiator, location);
+        eventRepository.save(event);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<EventShortProjection> rows = eventRepository.findShortSlice(QEvent.event.initiator.id.eq(initiator.getId()),
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "eventDate", "id")));
+
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getId()).isEqualTo(event.getId());
+        assertThat(rows.get(0).getCategoryName()).isEqualTo(category.getName());
+        assertThat(rows.get(0).getInitiatorName()).isEqualTo(initiator.getName());
+        assertThat(rows.get(0).getViews()).isZero();
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Test confirmed requests counter is incremented and repaired from participation requests functionality")
+    void givenDriftedCounter_whenRepairConfirmedRequests_thenCounterMatchesConfirmedRequests() {
+        Category category = DataUtils.getCategoryTransient();
+        categoryRepository.save(category);
+        User initiator = DataUtils.getUserInitiatorTransient();
+        userRepository.save(initiator);
+        User requester = DataUtils.getUserRequesterTransient();
+        userRepository.save(requester);
+        Location location = DataUtils.getLocationTransient();
+        locationRepository.save(location);
+        Event event = DataUtils.getEventTransient(category, initiator, location);
+        eventRepository.save(event);
+        participationRequestRepository.save(DataUtils.getParticipationRequestConfirmedTransient(event, requester));
+
+        eventRepository.addConfirmedRequests(event.getId(), 3);
+        entityManager.clear();
+        assertThat(eventRepository.findById(event.getId()).get().getConfirmedRequests()).isEqualTo(3L);
+
+        assertThat(eventRepository.repairConfirmedRequests(ParticipationRequestStatus.CONFIRMED)).isEqualTo(1);
+        assertThat(eventRepository.repairConfirmedRequests(ParticipationRequestStatus.CONFIRMED)).isZero();
+        entityManager.clear();
+        assertThat(eventRepository.findById(event.getId()).get().getConfirmedRequests()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Test event availability follows the confirmed requests counter and participant limit functionality")
+    void givenEventFilledUp_whenReserveAndChangeLimit_thenOnlyAvailableEventsMatch() {
+        Category category = DataUtils.getCategoryTransient();
+        categoryRepository.save(category);
+        User initiator = DataUtils.getUserInitiatorTransient();
+        userRepository.save(initiator);
+        Location location = DataUtils.getLocationTransient();
+        locationRepository.save(location);
+        Event event = DataUtils.getEventTransient(category, initiator, location);
+        event.setParticipantLimit(1);
+        eventRepository.save(event);
+        entityManager.flush();
+
+        assertThat(eventRepository.reserveConfirmedRequests(event.getId(), 1)).isEqualTo(1);
+        assertThat(eventRepository.reserveConfirmedRequests(event.getId(), 1)).isZero();
+        assertThat(eventRepository.findIds(QEvent.event.available.isTrue())).isEmpty();
+
+        entityManager.clear();
+        Event filled = eventRepository.findById(event.getId()).get();
+        filled.setParticipantLimit(0);
+        eventRepository.save(filled);
+        eventRepository.updateAvailable(filled.getId());
+        assertThat(eventRepository.findIds(QEvent.event.available.isTrue())).containsExactly(event.getId());
+        assertThat(eventRepository.repairAvailable()).isZero();
+    }
+}
@@ -0,0 +1,221 @@
+package ru.practicum.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import ru.practicum.dto.event.EventDtoMapperImpl;
+import ru.practicum.dto.event.PublicGetEventParamsDto;
+import ru.practicum.dto.location.LocationDtoMapper;
+import ru.practicum.dto.participation.ParticipationRequestMapper;
+import ru.practicum.enums.EventState;
+import ru.practicum.model.*;
+import ru.practicum.service.CompilationDtoCache;
+import ru.practicum.service.EventEnricher;
+import ru.practicum.service.EventServiceImpl;
+import ru.practicum.service.EventTextIndex;
+import ru.practicum.service.ViewCounter;
+import ru.practicum.util.DataUtils;
+import ru.practicum.util.EmbeddedPostgresConfig;
+import ru.practicum.util.KeysetCursor;
+import ru.practicum.util.StatementRecordingDataSource;
+import ru.practicum.util.StatementRecordingDataSource.RecordedStatement;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks on PostgreSQL that the hot listing queries are answered through an index. The public listing is explained
+ * as the application sends it: the statement Hibernate prepared for {@link EventServiceImpl#getAll} is recorded with
+ * its parameters and explained. Sequential scans are disabled, so a plan still scanning the table means that no
+ * index can serve the query, whatever the table size.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, EventServiceImpl.class, EventDtoMapperImpl.class})
+class QueryPlanTest {
+    private static final int USERS = 20;
+    private static final int EVENTS = 200;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipationRequestRepository participationRequestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private StatementRecordingDataSource dataSource;
+    @Autowired
+    private EventServiceImpl eventService;
+
+    @MockBean
+    private LocationDtoMapper locationDtoMapper;
+    @MockBean
+    private ParticipationRequestMapper participationRequestMapper;
+    @MockBean
+    private ViewCounter viewCounter;
+    @MockBean
+    private EventTextIndex eventTextIndex;
+    @MockBean
+    private CompilationDtoCache compilationDtoCache;
+    @MockBean
+    private EventEnricher eventEnricher;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(DataUtils.getCategoryTransient());
+        Location location = locationRepository.save(DataUtils.getLocationTransient());
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@email.com");
+            users.add(userRepository.save(user));
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            Event event = DataUtils.getEventTransient(category, users.get(i % USERS), location);
+            // most stored events are not public: pending, canceled or long past
+            event.setState(i % 5 == 0 ? EventState.PUBLISHED : EventState.PENDING);
+            event.setEventDate(LocalDateTime.now().plusDays(i));
+            eventRepository.save(event);
+            User requester = users.get((i + 1) % USERS);
+            participationRequestRepository.save(DataUtils.getParticipationRequestConfirmedTransient(event, requester));
+            commentRepository.save(DataUtils.getCommentOneTransient(event, requester));
+        }
+        entityManager.flush();
+        // availability is maintained by the database, some of the events are made full
+        execute("UPDATE events SET event_available = FALSE WHERE event_id % 3 = 0");
+        execute("ANALYZE");
+        execute("SET LOCAL enable_seqscan = off");
+        dataSource.clear();
+    }
+
+    @Test
+    @DisplayName("Test public listing sorted by views reads the state and views index functionality")
+    void givenViewsSort_whenGetAll_thenGeneratedQueryUsesStateViewsIndex() {
+        List<String> plan = explainPublicListing(PublicGetEventParamsDto.builder().sort("VIEWS").size(10).build());
+
+        assertThat(plan).as(String.join("\n", plan)).anyMatch(line -> line.contains("idx_events_state_views"));
+        assertOrderedByIndex(plan);
+    }
+
+    @Test
+    @DisplayName("Test public listing of available events sorted by views reads the state and views index functionality")
+    void givenOnlyAvailableAndViewsSort_whenGetAll_thenGeneratedQueryUsesStateViewsIndex() {
+        List<String> plan = explainPublicListing(PublicGetEventParamsDto.builder()
+                .onlyAvailable(true).sort("VIEWS").size(10).build());
+
+        assertThat(plan).as(String.join("\n", plan)).anyMatch(line -> line.contains("idx_events_state_views"));
+        assertOrderedByIndex(plan);
+    }
+
+    @Test
+    @DisplayName("Test next page of public listing sorted by views reads the state and views index functionality")
+    void givenViewsSortAndCursor_whenGetAll_thenGeneratedQueryUsesStateViewsIndex() {
+        List<String> plan = explainPublicListing(PublicGetEventParamsDto.builder()
+                .sort("VIEWS").size(10).cursor(KeysetCursor.encode(0L, 50)).build());
+
+        assertThat(plan).as(String.join("\n", plan)).anyMatch(line -> line.contains("idx_events_state_views"));
+        assertOrderedByIndex(plan);
+    }
+
+    @Test
+    @DisplayName("Test public listing of available events by date reads the availability index functionality")
+    void givenOnlyAvailable_whenGetAll_thenGeneratedQueryUsesAvailableDateIndex() {
+        List<String> plan = explainPublicListing(PublicGetEventParamsDto.builder()
+                .onlyAvailable(true).size(10).build());
+
+        assertThat(plan).as(String.join("\n", plan)).anyMatch(line -> line.contains("idx_events_state_available_date"));
+        assertOrderedByIndex(plan);
+    }
+
+    @Test
+    @DisplayName("Test public listing by date reads the state and date index functionality")
+    void givenDefaultSort_whenGetAll_thenGeneratedQueryUsesStateDateIndex() {
+        List<String> plan = explainPublicListing(PublicGetEventParamsDto.builder().size(10).build());
+
+        assertThat(plan).as(String.join("\n", plan)).anyMatch(line -> line.contains("idx_events_state_date"));
+        assertOrderedByIndex(plan);
+    }
+
+    @Test
+    @DisplayName("Test events by category and by initiator use an index functionality")
+    void givenCategoryAndInitiatorFilters_whenExplain_thenForeignKeyIndexesAreUsed() {
+        assertUsesIndex("SELECT event_id FROM events WHERE category_id = 1");
+        assertUsesIndex("SELECT event_id FROM events WHERE initiator_id = 1 ORDER BY event_id");
+    }
+
+    @Test
+    @DisplayName("Test participation requests by event status and by requester use an index functionality")
+    void givenParticipationRequestFilters_whenExplain_thenIndexesAreUsed() {
+        assertUsesIndex("SELECT COUNT(*) FROM participation_requests WHERE event_id = 1 AND status = 'CONFIRMED'");
+        assertUsesIndex("SELECT participation_request_id FROM participation_requests WHERE requester_id = 1");
+    }
+
+    @Test
+    @DisplayName("Test comments of an event use an index functionality")
+    void givenEventComments_whenExplain_thenCommentsIndexIsUsed() {
+        assertUsesIndex("SELECT comment_id FROM comments WHERE event_id = 1 " +
+                "ORDER BY comment_created_on DESC, comment_id DESC");
+    }
+
+    private List<String> explainPublicListing(PublicGetEventParamsDto params) {
+        eventService.getAll(params);
+        RecordedStatement statement = dataSource.findLast("from events").orElseThrow();
+        return session().doReturningWork(statement::explain);
+    }
+
+    /**
+     * The rows come out of the index in the listing order, so a page is read without sorting the matching events.
+     */
+    private static void assertOrderedByIndex(List<String> plan) {
+        assertThat(plan).as(String.join("\n", plan))
+                .noneMatch(line -> line.contains("Seq Scan on events"))
+                .noneMatch(line -> line.trim().startsWith("->  Sort") || line.startsWith("Sort"));
+    }
+
+    private void assertUsesIndex(String sql) {
+        List<String> plan = session().doReturningWork(connection -> {
+            List<String> lines = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+                while (resultSet.next()) {
+                    lines.add(resultSet.getString(1));
+                }
+            }
+            return lines;
+        });
+        assertThat(plan).as(String.join("\n", plan)).noneMatch(line -> line.contains("Seq Scan"));
+    }
+
+    private void execute(String sql) {
+        session().doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        });
+    }
+
+    private Session session() {
+        return entityManager.getEntityManager().unwrap(Session.class);
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.config.CacheConfig;
+import ru.practicum.dto.category.CategoryDtoMapperImpl;
+import ru.practicum.dto.category.NewCategoryDto;
+import ru.practicum.model.Category;
+import ru.practicum.repository.CategoryRepository;
+import ru.practicum.util.DataUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@AutoConfigureCache(cacheProvider = CacheType.CAFFEINE)
+@Import({CacheConfig.class, CategoryServiceImpl.class, CategoryDtoMapperImpl.class, CompilationDtoCache.class})
+class CategoryCacheTest {
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    @DisplayName("Test category is cached on read and evicted on update functionality")
+    void givenCachedCategory_whenUpdate_thenCacheEntryIsEvictedAndNewNameIsRead() {
+        Category category = categoryRepository.save(DataUtils.getCategoryTransient());
+        Cache cache = cacheManager.getCache("categories");
+
+        categoryService.getById(category.getId());
+        assertThat(cache.get(category.getId())).isNotNull();
+
+        NewCategoryDto newCategoryDto = new NewCategoryDto();
+        newCategoryDto.setName("New category name");
+        categoryService.update(newCategoryDto, category.getId());
+        assertThat(cache.get(category.getId())).isNull();
+
+        assertThat(categoryService.getById(category.getId()).getName()).isEqualTo("New category name");
+    }
+
+    @Test
+    @DisplayName("Test missing category is not cached functionality")
+    void givenMissingCategory_whenFindById_thenNothingIsCached() {
+        assertThat(categoryRepository.findById(Long.MAX_VALUE)).isEmpty();
+        assertThat(cacheManager.getCache("categories").get(Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Test failed update leaves the committed name in the cache functionality")
+    void givenUncachedCategory_whenUpdateRollsBack_thenCommittedNameIsRead() {
+        Category category = categoryRepository.save(new Category(null, "Cached before rollback"));
+        Category other = categoryRepository.save(new Category(null, "Taken name"));
+        NewCategoryDto newCategoryDto = new NewCategoryDto();
+        newCategoryDto.setName("Taken name");
+
+        try {
+            assertThrows(DataIntegrityViolationException.class, () -> categoryService.update(newCategoryDto, category.getId()));
+
+            assertThat(categoryService.getById(category.getId()).getName()).isEqualTo("Cached before rollback");
+            assertThat(categoryService.getById(category.getId()).getName()).isEqualTo("Cached before rollback");
+        } finally {
+            categoryRepository.deleteAll(List.of(category, other));
+            categoryRepository.evictCached(category.getId());
+            categoryRepository.evictCached(other.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Test every lookup of a cached category returns a copy of its own functionality")
+    void givenCachedCategory_whenFoundTwice_thenDifferentInstancesAreReturned() {
+        Category category = categoryRepository.save(DataUtils.getCategoryTransient());
+        categoryRepository.findById(category.getId());
+
+        Category first = categoryRepository.findById(category.getId()).orElseThrow();
+        Category second = categoryRepository.findById(category.getId()).orElseThrow();
+        first.setName("Changed by one caller");
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(cacheManager.getCache("categories").get(category.getId(), Category.class).getName())
+                .isEqualTo("Category name");
+    }
+}
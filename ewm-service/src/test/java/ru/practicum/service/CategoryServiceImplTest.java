@@ -1,18 +1,17 @@
 package ru.practicum.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.BDDMockito;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import ru.practicum.dto.category.CategoryDto;
 import ru.practicum.dto.category.CategoryDtoMapper;
+import ru.practicum.dto.category.CategoryPage;
 import ru.practicum.dto.category.NewCategoryDto;
 import ru.practicum.exception.CategoryInUseException;
 import ru.practicum.model.Category;
@@ -42,9 +41,16 @@ class CategoryServiceImplTest {
     private CategoryRepository categoryRepository;
     @Mock
     private EventRepository eventRepository;
-    @InjectMocks
+    @Mock
+    private CompilationDtoCache compilationDtoCache;
     private CategoryServiceImpl categoryServiceTest;
 
+    @BeforeEach
+    void setUp() {
+        categoryServiceTest = new CategoryServiceImpl(categoryRepository, eventRepository, categoryDtoMapper,
+                compilationDtoCache, 60_000);
+    }
+
     @Test
     @DisplayName("Test create category functionality")
     void givenCategory_whenCreate_thenNewCategoryIsReturned() {
@@ -136,9 +142,7 @@ class CategoryServiceImplTest {
         category2.setName("Cat2");
         List<Category> categories = List.of(category1, category2);
 
-        Pageable pageable = PageRequest.of(0, 2);
-        Page<Category> categoryPage = new PageImpl<>(categories, pageable, categories.size());
-        BDDMockito.given(categoryRepository.findAll(any(Pageable.class))).willReturn(categoryPage);
+        BDDMockito.given(categoryRepository.findAll(any(Sort.class))).willReturn(categories);
 
         CategoryDto categoryDto1 = DataUtils.getCategoryDto();
         CategoryDto categoryDto2 = DataUtils.getCategoryDto();
@@ -148,12 +152,61 @@ class CategoryServiceImplTest {
         BDDMockito.given(categoryDtoMapper.categoryToCategoryDto(category1)).willReturn(categoryDto1);
         BDDMockito.given(categoryDtoMapper.categoryToCategoryDto(category2)).willReturn(categoryDto2);
 
-        List<CategoryDto> result = categoryServiceTest.getAll(PageRequest.of(0, 2));
+        List<CategoryDto> result = categoryServiceTest.getAll(PageRequest.of(0, 2)).getContent();
         assertEquals(2, result.size());
         assertEquals("Category name", result.get(0).getName());
         assertEquals("Cat2", result.get(1).getName());
     }
 
+    @Test
+    @DisplayName("Test get all is served from the snapshot until a category changes functionality")
+    void givenSnapshot_whenGetAllTwiceAndCreate_thenRepositoryIsReadOnceUntilChangedAndEtagChanges() {
+        Category category = DataUtils.getCategoryPersisted();
+        BDDMockito.given(categoryRepository.findAll(any(Sort.class))).willReturn(List.of(category));
+        BDDMockito.given(categoryDtoMapper.categoryToCategoryDto(category)).willReturn(DataUtils.getCategoryDto());
+
+        CategoryPage first = categoryServiceTest.getAll(PageRequest.of(0, 10));
+        CategoryPage second = categoryServiceTest.getAll(PageRequest.of(0, 10));
+
+        assertThat(second.getEtag()).isEqualTo(first.getEtag());
+        verify(categoryRepository, times(1)).findAll(any(Sort.class));
+
+        Category created = new Category(2L, "Cat2");
+        CategoryDto createdDto = new CategoryDto();
+        createdDto.setId(2L);
+        createdDto.setName("Cat2");
+        BDDMockito.given(categoryDtoMapper.newCategoryDtoToCategory(any(NewCategoryDto.class))).willReturn(created);
+        BDDMockito.given(categoryRepository.save(any(Category.class))).willReturn(created);
+        BDDMockito.given(categoryDtoMapper.categoryToCategoryDto(created)).willReturn(createdDto);
+        BDDMockito.given(categoryRepository.findAll(any(Sort.class))).willReturn(List.of(category, created));
+        categoryServiceTest.create(DataUtils.getNewCategoryDto());
+
+        CategoryPage third = categoryServiceTest.getAll(PageRequest.of(0, 10));
+        assertThat(third.getContent().size()).isEqualTo(2);
+        assertThat(third.getEtag()).isNotEqualTo(first.getEtag());
+        verify(categoryRepository, times(2)).findAll(any(Sort.class));
+    }
+
+    @Test
+    @DisplayName("Test get all rereads categories changed elsewhere once the snapshot expires functionality")
+    void givenExpiredSnapshot_whenGetAll_thenRepositoryIsReadAgain() {
+        categoryServiceTest = new CategoryServiceImpl(categoryRepository, eventRepository, categoryDtoMapper,
+                compilationDtoCache, 0);
+        Category category = DataUtils.getCategoryPersisted();
+        CategoryDto renamed = DataUtils.getCategoryDto();
+        renamed.setName("Renamed");
+        BDDMockito.given(categoryRepository.findAll(any(Sort.class))).willReturn(List.of(category));
+        BDDMockito.given(categoryDtoMapper.categoryToCategoryDto(category))
+                .willReturn(DataUtils.getCategoryDto(), renamed);
+
+        CategoryPage first = categoryServiceTest.getAll(PageRequest.of(0, 10));
+        CategoryPage second = categoryServiceTest.getAll(PageRequest.of(0, 10));
+
+        assertThat(second.getContent().get(0).getName()).isEqualTo("Renamed");
+        assertThat(second.getEtag()).isNotEqualTo(first.getEtag());
+        verify(categoryRepository, times(2)).findAll(any(Sort.class));
+    }
+
     @Test
     @DisplayName("Test get by id functionality")
     void givenId_whenGetById_thenCategoryIsReturned() {
@@ -342,7 +342,7 @@ class CommentServiceImplTest {
         Page<CommentShort> commentPage = new PageImpl<>(List.of(comment1, comment2), Pageable.unpaged(), 2);
         BDDMockito.given(commentRepository.findAllByEventId(eventPersisted.getId(), Pageable.unpaged())).willReturn(commentPage);
 
-        List<CommentShort> result = commentServiceTest.getAll(eventPersisted.getId(), Pageable.unpaged());
+        List<CommentShort> result = commentServiceTest.getAll(eventPersisted.getId(), null, Pageable.unpaged()).getContent();
 
         assertThat(result.size()).isEqualTo(2);
     }
@@ -7,21 +7,23 @@ import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.compilation.CompilationDto;
 import ru.practicum.dto.compilation.CompilationDtoMapper;
 import ru.practicum.dto.compilation.NewCompilationDto;
 import ru.practicum.dto.compilation.UpdateCompilationRequest;
+import ru.practicum.dto.event.EventShortDto;
 import ru.practicum.model.Compilation;
+import ru.practicum.repository.CommentRepository;
 import ru.practicum.repository.CompilationRepository;
 import ru.practicum.repository.EventRepository;
 import ru.practicum.util.DataUtils;
 
 import javax.persistence.EntityNotFoundException;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,6 +40,12 @@ class CompilationServiceImplTest {
     private EventRepository eventRepository;
     @Mock
     private CompilationDtoMapper compilationDtoMapper;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private ViewCounter viewCounter;
+    @Mock
+    private CompilationDtoCache compilationDtoCache;
 
     @InjectMocks
     private CompilationServiceImpl compilationServiceTest;
@@ -97,23 +105,54 @@ class CompilationServiceImplTest {
         Compilation compilation1 = DataUtils.getCompilationPersisted();
         Compilation compilation2 = DataUtils.getCompilationPersisted();
         compilation2.setId(2L);
-        Page<Compilation> compilationPage = new PageImpl<>(List.of(compilation1, compilation2), Pageable.unpaged(), 2);
-        BDDMockito.given(compilationRepository.findAll(Pageable.unpaged())).willReturn(compilationPage);
-        BDDMockito.given(compilationDtoMapper.compilationToCompilationDto(any(Compilation.class))).willReturn(DataUtils.getCompilationDto());
+        BDDMockito.given(compilationRepository.findIds(Pageable.unpaged())).willReturn(List.of(1L, 2L));
+        BDDMockito.given(compilationRepository.findWithEventsByIdIn(List.of(1L, 2L))).willReturn(List.of(compilation2, compilation1));
 
         List<CompilationDto> result = compilationServiceTest.getAll(null, Pageable.unpaged());
 
-        assertThat(result).isNotNull();
+        assertThat(result).extracting(CompilationDto::getId).containsExactly(1L, 2L);
+        verify(compilationDtoCache, times(1)).putAll(anyMap(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Test get cached compilation reads only fresh views functionality")
+    void givenCachedCompilation_whenGetById_thenOnlyViewsAreRead() {
+        EventShortDto event = new EventShortDto();
+        event.setId(1L);
+        event.setCommentsCount(3L);
+        LocalDateTime viewStart = LocalDateTime.now();
+        CompilationDtoCache.Entry entry = new CompilationDtoCache.Entry(1L, false, "Compilation",
+                List.of(event), Map.of(1L, viewStart));
+        BDDMockito.given(compilationDtoCache.getAllPresent(List.of(1L))).willReturn(Map.of(1L, entry));
+        BDDMockito.given(viewCounter.getViewsSince(Map.of(1L, viewStart))).willReturn(Map.of(1L, 5L));
+        EventShortDto eventWithViews = new EventShortDto();
+        eventWithViews.setId(1L);
+        eventWithViews.setViews(5L);
+        BDDMockito.given(compilationDtoMapper.eventShortDtoWithViews(event, 5L)).willReturn(eventWithViews);
+
+        CompilationDto obtainedCompilation = compilationServiceTest.getById(1L);
+
+        assertThat(obtainedCompilation.getEvents()).containsExactly(eventWithViews);
+        verify(compilationRepository, never()).findWithEventsByIdIn(anyCollection());
+        verifyNoInteractions(commentRepository);
+    }
+
+    @Test
+    @DisplayName("Test get compilation by incorrect id functionality")
+    void givenIncorrectCompilationId_whenGetById_thenExceptionIsThrown() {
+        BDDMockito.given(compilationRepository.findWithEventsByIdIn(List.of(1L))).willReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class, () -> compilationServiceTest.getById(1L));
     }
 
     @Test
     @DisplayName("Test get compilation by id functionality")
     void givenCompilationId_whenGetById_thenCompilationIsReturned() {
-        BDDMockito.given(compilationRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getCompilationPersisted()));
-        BDDMockito.given(compilationDtoMapper.compilationToCompilationDto(any(Compilation.class))).willReturn(DataUtils.getCompilationDto());
+        BDDMockito.given(compilationRepository.findWithEventsByIdIn(List.of(1L))).willReturn(List.of(DataUtils.getCompilationPersisted()));
 
         CompilationDto obtainedCompilation = compilationServiceTest.getById(1L);
 
         assertThat(obtainedCompilation).isNotNull();
+        assertThat(obtainedCompilation.getTitle()).isEqualTo("Compilation");
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.dto.comment.CommentCountDto;
+import ru.practicum.dto.event.EventShortDto;
+import ru.practicum.repository.CommentRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+
+@ExtendWith(MockitoExtension.class)
+class EventEnricherTest {
+
+    @Mock
+    private ViewCounter viewCounter;
+    @Mock
+    private CommentRepository commentRepository;
+
+    private EventEnricher eventEnricher;
+
+    @BeforeEach
+    void setUp() {
+        eventEnricher = new EventEnricher(viewCounter, commentRepository, 2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventEnricher.close();
+    }
+
+    @Test
+    @DisplayName("Test views and comment counts are looked up concurrently functionality")
+    void givenSlowViewsLookup_whenEnrich_thenCommentsAreCountedMeanwhile() {
+        CountDownLatch commentsCounted = new CountDownLatch(1);
+        // the views lookup only finishes once comments were counted, a sequential enricher would time out here
+        BDDMockito.given(viewCounter.getViewsSince(anyMap())).willAnswer(invocation ->
+                commentsCounted.await(5, TimeUnit.SECONDS) ? Map.of(1L, 7L) : Map.of());
+        BDDMockito.given(commentRepository.countByEventId(anySet())).willAnswer(invocation -> {
+            commentsCounted.countDown();
+            return List.of(new CommentCountDto(1L, 2L));
+        });
+        EventShortDto event = new EventShortDto();
+        event.setId(1L);
+
+        eventEnricher.enrich(List.of(event), Map.of(1L, LocalDateTime.now()));
+
+        assertThat(event.getViews()).isEqualTo(7L);
+        assertThat(event.getCommentsCount()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Test only comment counts are filled for events listed with stored views functionality")
+    void givenEventWithStoredViews_whenEnrichComments_thenViewsAreKeptAndCommentsCounted() {
+        BDDMockito.given(commentRepository.countByEventId(anySet())).willReturn(List.of(new CommentCountDto(1L, 3L)));
+        EventShortDto event = new EventShortDto();
+        event.setId(1L);
+        event.setViews(42L);
+
+        eventEnricher.enrichComments(List.of(event));
+
+        assertThat(event.getViews()).isEqualTo(42L);
+        assertThat(event.getCommentsCount()).isEqualTo(3L);
+        BDDMockito.then(viewCounter).shouldHaveNoInteractions();
+    }
+}
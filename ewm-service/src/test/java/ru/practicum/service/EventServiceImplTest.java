@@ -8,11 +8,7 @@ import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import ru.practicum.client.Client;
-import ru.practicum.dto.ClientRequestDto;
 import ru.practicum.dto.event.*;
 import ru.practicum.dto.location.LocationDto;
 import ru.practicum.dto.location.LocationDtoMapper;
@@ -22,20 +18,20 @@ import ru.practicum.enums.ParticipationRequestStatus;
 import ru.practicum.exception.EventUpdateException;
 import ru.practicum.model.*;
 import ru.practicum.repository.*;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.DataUtils;
+import ru.practicum.util.KeysetCursor;
 import ru.practicum.util.LocalDateTimeStringParser;
 
 import javax.persistence.EntityNotFoundException;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -62,7 +58,13 @@ class EventServiceImplTest {
     @Mock
     private EventDtoMapper eventDtoMapper;
     @Mock
-    private Client client;
+    private ViewCounter viewCounter;
+    @Mock
+    private EventTextIndex eventTextIndex;
+    @Mock
+    private CompilationDtoCache compilationDtoCache;
+    @Mock
+    private EventEnricher eventEnricher;
 
 
     @Test
@@ -74,12 +76,10 @@ class EventServiceImplTest {
                 DataUtils.getLocationPersisted()
         );
 
-        Page<Event> pageEvents = new PageImpl<>(List.of(eventPersisted), Pageable.unpaged(), 1);
-        BDDMockito.given(eventRepository.findAll(any(Predicate.class), any(Pageable.class))).willReturn(pageEvents);
-        BDDMockito.given(participationRequestRepository.countParticipantsInAndStatus(anySet(), any(ParticipationRequestStatus.class))).willReturn(new ArrayList<ParticipantCountDto>());
+        BDDMockito.given(eventRepository.findSlice(any(Predicate.class), any(Pageable.class))).willReturn(List.of(eventPersisted));
         BDDMockito.given(eventDtoMapper.eventToEventFullDto(any(Event.class))).willReturn(new EventFullDto());
 
-        List<EventFullDto> result = eventServiceTest.getAll(DataUtils.getAdminEventParamsDto());
+        List<EventFullDto> result = eventServiceTest.getAll(DataUtils.getAdminEventParamsDto()).getContent();
 
         assertThat(result).isNotNull();
     }
@@ -276,16 +276,11 @@ class EventServiceImplTest {
     @Test
     @DisplayName("Test get all by initiator functionality")
     void givenInitiatorId_whenGetAllByInitiator_thenListOfEventShortDtosIsReturned() {
-        Event eventPersisted = DataUtils.getEventPersisted(
-                DataUtils.getCategoryPersisted(),
-                DataUtils.getUserInitiatorPersisted(),
-                DataUtils.getLocationPersisted()
-        );
-        Page<Event> pageEvent = new PageImpl<>(List.of(eventPersisted), Pageable.unpaged(), 1);
-
         EventShortDto eventShortDto = DataUtils.getEventShortDto();
-        BDDMockito.given(eventRepository.findByInitiatorId(anyLong(), any(Pageable.class))).willReturn(pageEvent);
-        BDDMockito.given(eventDtoMapper.eventToEventShortDto(any(Event.class))).willReturn(eventShortDto);
+        BDDMockito.given(eventRepository.findShortSlice(any(Predicate.class), any(Pageable.class)))
+                .willReturn(List.of(DataUtils.getEventShortProjection(1L)));
+        BDDMockito.given(eventDtoMapper.eventShortProjectionToEventShortDto(any(EventShortProjection.class)))
+                .willReturn(eventShortDto);
 
         List<EventShortDto> result = eventServiceTest.getAllByInitiator(1L, Pageable.unpaged());
 
@@ -521,32 +516,167 @@ class EventServiceImplTest {
 
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
         BDDMockito.given(participationRequestRepository.findAllById(request.getRequestIds())).willReturn(participationRequests);
-        BDDMockito.given(participationRequestRepository
-                .countByEventIdAndStatus(1L, ParticipationRequestStatus.CONFIRMED)).willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
+        BDDMockito.given(eventRepository.reserveConfirmedRequests(1L, 1)).willReturn(1);
         BDDMockito.given(participationRequestRepository.saveAll(anyList())).willReturn(new ArrayList<>());
 
         EventRequestStatusUpdateResult result = eventServiceTest.updateRequestStatus(1L, 1L, request);
 
         assertThat(result).isNotNull();
+        assertThat(result.getConfirmedRequests().size()).isEqualTo(1);
+        assertThat(pendingRequest.getStatus()).isEqualTo(ParticipationRequestStatus.CONFIRMED);
     }
 
     @Test
-    @DisplayName("Test get all public functionality")
-    void givenPublicEventParams_whenGetAll_thenListOfEventShortDtosIsReturned() {
+    @DisplayName("Test update requests when the last slot was taken concurrently functionality")
+    void givenSlotTakenByConcurrentConfirmation_whenUpdateRequestStatus_thenRequestIsRejected() {
         Event eventPersisted = DataUtils.getEventPersisted(
                 DataUtils.getCategoryPersisted(),
                 DataUtils.getUserInitiatorPersisted(),
                 DataUtils.getLocationPersisted()
         );
 
-        Page<Event> pageEvents = new PageImpl<>(List.of(eventPersisted), Pageable.unpaged(), 1);
-        BDDMockito.given(eventRepository.findAll(any(Predicate.class), any(Pageable.class))).willReturn(pageEvents);
-        BDDMockito.given(commentRepository.countByEventId(anySet())).willReturn(Collections.EMPTY_LIST);
-        BDDMockito.given(eventDtoMapper.eventToEventShortDto(any(Event.class))).willReturn(new EventShortDto());
+        eventPersisted.setParticipantLimit(2);
+        eventPersisted.setRequestModeration(true);
+        eventPersisted.setConfirmedRequests(1L);
+
+        EventRequestStatusUpdateRequest request = new EventRequestStatusUpdateRequest();
+        request.setRequestIds(List.of(1L));
+        request.setStatus("CONFIRMED");
 
-        List<EventShortDto> result = eventServiceTest.getAll(DataUtils.getPublicGetEventParamsDto());
+        ParticipationRequest pendingRequest = DataUtils.getParticipationRequestConfirmedPersisted(eventPersisted,
+                DataUtils.getUserRequesterPersisted());
+        pendingRequest.setStatus(ParticipationRequestStatus.PENDING);
+
+        BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
+        BDDMockito.given(participationRequestRepository.findAllById(request.getRequestIds())).willReturn(List.of(pendingRequest));
+        BDDMockito.given(eventRepository.reserveConfirmedRequests(1L, 1)).willReturn(0);
+
+        EventRequestStatusUpdateResult result = eventServiceTest.updateRequestStatus(1L, 1L, request);
+
+        assertThat(result.getConfirmedRequests()).isEmpty();
+        assertThat(result.getRejectedRequests().size()).isEqualTo(1);
+        assertThat(pendingRequest.getStatus()).isEqualTo(ParticipationRequestStatus.REJECTED);
+    }
+
+    @Test
+    @DisplayName("Test get all public functionality")
+    void givenPublicEventParams_whenGetAll_thenListOfEventShortDtosIsReturned() {
+        BDDMockito.given(eventRepository.findShortSlice(any(Predicate.class), any(Pageable.class)))
+                .willReturn(List.of(DataUtils.getEventShortProjection(1L)));
+        BDDMockito.given(eventDtoMapper.eventShortProjectionToEventShortDto(any(EventShortProjection.class)))
+                .willReturn(new EventShortDto());
+
+        List<EventShortDto> result = eventServiceTest.getAll(DataUtils.getPublicGetEventParamsDto()).getContent();
 
         assertThat(result).isNotNull();
+        verify(eventEnricher, times(1)).enrich(eq(result), anyMap());
+    }
+
+    @Test
+    @DisplayName("Test get all public sorted by relevance functionality")
+    void givenTextAndRelevanceSort_whenGetAll_thenEventsAreOrderedByScore() {
+        EventShortProjection event2 = DataUtils.getEventShortProjection(2L);
+        PublicGetEventParamsDto params = PublicGetEventParamsDto.builder()
+                .text("jazz")
+                .sort("RELEVANCE")
+                .from(0)
+                .size(1)
+                .build();
+
+        BDDMockito.given(eventTextIndex.search("jazz"))
+                .willReturn(new EventTextIndex.Matches(Map.of(1L, 0.5, 2L, 1.5), 1000));
+        BDDMockito.given(eventRepository.findIds(any(Predicate.class))).willReturn(List.of(1L, 2L));
+        BDDMockito.given(eventRepository.findShortSlice(any(Predicate.class), eq(Pageable.unpaged())))
+                .willReturn(List.of(event2));
+        EventShortDto eventShortDto = new EventShortDto();
+        eventShortDto.setId(2L);
+        BDDMockito.given(eventDtoMapper.eventShortProjectionToEventShortDto(event2)).willReturn(eventShortDto);
+
+        CursorPage<EventShortDto> result = eventServiceTest.getAll(params);
+
+        assertThat(result.getContent()).extracting(EventShortDto::getId).containsExactly(2L);
+        assertThat(KeysetCursor.decode(result.getNextCursor()).getDoubleKey()).isEqualTo(1.5);
+    }
+
+    @Test
+    @DisplayName("Test get all public by relevance finds filtered matches ranked past the first chunk functionality")
+    void givenOnlyLowRankedMatchesPassFilters_whenGetAllByRelevance_thenTheyAreReturned() {
+        EventShortProjection event5 = DataUtils.getEventShortProjection(5L);
+        PublicGetEventParamsDto params = PublicGetEventParamsDto.builder()
+                .text("jazz")
+                .sort("RELEVANCE")
+                .paid(true)
+                .from(0)
+                .size(10)
+                .build();
+
+        BDDMockito.given(eventTextIndex.search("jazz")).willReturn(new EventTextIndex.Matches(
+                Map.of(1L, 5.0, 2L, 4.0, 3L, 3.0, 4L, 2.0, 5L, 1.0), 2));
+        BDDMockito.given(eventRepository.findIds(any(Predicate.class)))
+                .willReturn(List.of(), List.of(), List.of(5L));
+        BDDMockito.given(eventRepository.findShortSlice(any(Predicate.class), eq(Pageable.unpaged())))
+                .willReturn(List.of(event5));
+        EventShortDto eventShortDto = new EventShortDto();
+        eventShortDto.setId(5L);
+        BDDMockito.given(eventDtoMapper.eventShortProjectionToEventShortDto(event5)).willReturn(eventShortDto);
+
+        CursorPage<EventShortDto> result = eventServiceTest.getAll(params);
+
+        assertThat(result.getContent()).extracting(EventShortDto::getId).containsExactly(5L);
+        assertThat(result.getNextCursor()).isNull();
+        verify(eventRepository, times(3)).findIds(any(Predicate.class));
+    }
+
+    @Test
+    @DisplayName("Test get all public by date merges text matches of every chunk functionality")
+    void givenTextMatchesInSeveralChunks_whenGetAllByDate_thenPageIsCutFromAllChunks() {
+        EventShortProjection event1 = DataUtils.getEventShortProjection(1L);
+        EventShortProjection event3 = DataUtils.getEventShortProjection(3L);
+        event3.setEventDate(event1.getEventDate().plusDays(1));
+        PublicGetEventParamsDto params = PublicGetEventParamsDto.builder()
+                .text("jazz")
+                .from(0)
+                .size(1)
+                .build();
+
+        BDDMockito.given(eventTextIndex.search("jazz")).willReturn(new EventTextIndex.Matches(
+                Map.of(1L, 3.0, 2L, 2.0, 3L, 1.0), 2));
+        BDDMockito.given(eventRepository.findShortSlice(any(Predicate.class), any(Pageable.class)))
+                .willReturn(List.of(event1), List.of(event3));
+        EventShortDto eventShortDto = new EventShortDto();
+        eventShortDto.setId(3L);
+        BDDMockito.given(eventDtoMapper.eventShortProjectionToEventShortDto(event3)).willReturn(eventShortDto);
+
+        CursorPage<EventShortDto> result = eventServiceTest.getAll(params);
+
+        assertThat(result.getContent()).extracting(EventShortDto::getId).containsExactly(3L);
+        verify(eventRepository, times(2)).findShortSlice(any(Predicate.class), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Test get all public sorted by views shows the stored views it is ordered by functionality")
+    void givenViewsSort_whenGetAll_thenStoredViewsAreReturnedAndLiveCountsAreNotLookedUp() {
+        EventShortProjection event = DataUtils.getEventShortProjection(1L);
+        event.setViews(42L);
+        PublicGetEventParamsDto params = PublicGetEventParamsDto.builder()
+                .sort("VIEWS")
+                .from(0)
+                .size(1)
+                .build();
+
+        BDDMockito.given(eventRepository.findShortSlice(any(Predicate.class), any(Pageable.class)))
+                .willReturn(List.of(event));
+        EventShortDto eventShortDto = new EventShortDto();
+        eventShortDto.setId(1L);
+        BDDMockito.given(eventDtoMapper.eventShortProjectionToEventShortDto(event)).willReturn(eventShortDto);
+
+        CursorPage<EventShortDto> result = eventServiceTest.getAll(params);
+
+        assertThat(result.getContent()).extracting(EventShortDto::getViews).containsExactly(42L);
+        assertThat(KeysetCursor.decode(result.getNextCursor()).getLongKey()).isEqualTo(42L);
+        verify(eventEnricher, times(1)).enrichComments(result.getContent());
+        verify(eventEnricher, never()).enrich(anyList(), anyMap());
     }
 
     @Test
@@ -559,7 +689,7 @@ class EventServiceImplTest {
         );
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
         BDDMockito.given(eventDtoMapper.eventToEventFullDto(any(Event.class))).willReturn(new EventFullDto());
-        BDDMockito.given(client.getStats(any(ClientRequestDto.class))).willReturn(DataUtils.getStatsResponseDto());
+        BDDMockito.given(viewCounter.getViews(any(Event.class))).willReturn(3L);
 
         EventFullDto result = eventServiceTest.getByIdPublic(1L);
         assertThat(result).isNotNull();
@@ -0,0 +1,207 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.event.EventDtoMapperImpl;
+import ru.practicum.dto.location.LocationDtoMapper;
+import ru.practicum.dto.participation.EventRequestStatusUpdateRequest;
+import ru.practicum.dto.participation.ParticipationRequestMapperImpl;
+import ru.practicum.enums.ParticipationRequestStatus;
+import ru.practicum.exception.ParticipationLimitExceededException;
+import ru.practicum.model.*;
+import ru.practicum.repository.*;
+import ru.practicum.util.DataUtils;
+import ru.practicum.util.EmbeddedPostgresConfig;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Requests and confirms participation in one event from many threads on PostgreSQL. Every call goes through the
+ * service and commits in its own transaction, as concurrent HTTP requests would.
+ */
+@Slf4j
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({EmbeddedPostgresConfig.class, ParticipationServiceImpl.class, EventServiceImpl.class,
+        EventDtoMapperImpl.class, ParticipationRequestMapperImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventSlotReservationStressTest {
+    private static final int THREADS = 16;
+    private static final int REQUESTERS = 400;
+    private static final int REQUESTS_PER_CONFIRMATION = 5;
+    private static final int PARTICIPANT_LIMIT = 100;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipationRequestRepository participationRequestRepository;
+    @Autowired
+    private ParticipationServiceImpl participationService;
+    @Autowired
+    private EventServiceImpl eventService;
+
+    @MockBean
+    private LocationDtoMapper locationDtoMapper;
+    @MockBean
+    private ViewCounter viewCounter;
+    @MockBean
+    private EventTextIndex eventTextIndex;
+    @MockBean
+    private CompilationDtoCache compilationDtoCache;
+    @MockBean
+    private EventEnricher eventEnricher;
+
+    private User initiator;
+    private List<User> requesters;
+    private Event event;
+
+    @BeforeEach
+    void setUp() {
+        Category category = categoryRepository.save(DataUtils.getCategoryTransient());
+        initiator = userRepository.save(DataUtils.getUserInitiatorTransient());
+        Location location = locationRepository.save(DataUtils.getLocationTransient());
+        requesters = new ArrayList<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            User requester = new User();
+            requester.setName("Requester " + i);
+            requester.setEmail("requester" + i + "@email.com");
+            requesters.add(requester);
+        }
+        requesters = userRepository.saveAll(requesters);
+        event = DataUtils.getEventTransient(category, initiator, location);
+        event.setParticipantLimit(PARTICIPANT_LIMIT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        participationRequestRepository.deleteAll();
+        eventRepository.deleteAll();
+        locationRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Test concurrent participation requests never exceed the participant limit functionality")
+    void givenConcurrentRequests_whenCreate_thenLimitIsNeverExceeded() throws Exception {
+        event.setRequestModeration(false);
+        long eventId = eventRepository.save(event).getId();
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (User requester : requesters) {
+            tasks.add(() -> {
+                try {
+                    participationService.create(requester.getId(), eventId);
+                    created.incrementAndGet();
+                } catch (ParticipationLimitExceededException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        runConcurrently("participation requests", tasks);
+
+        assertThat(created.get()).isEqualTo(PARTICIPANT_LIMIT);
+        assertThat(rejected.get()).isEqualTo(REQUESTERS - PARTICIPANT_LIMIT);
+        assertLimitReached(eventId);
+    }
+
+    @Test
+    @DisplayName("Test concurrent confirmations by the initiator never exceed the participant limit functionality")
+    void givenConcurrentConfirmations_whenUpdateRequestStatus_thenLimitIsNeverExceeded() throws Exception {
+        event.setRequestModeration(true);
+        long eventId = eventRepository.save(event).getId();
+        List<Long> requestIds = new ArrayList<>();
+        for (User requester : requesters) {
+            ParticipationRequest request = new ParticipationRequest();
+            request.setEvent(event);
+            request.setRequester(requester);
+            request.setCreated(LocalDateTime.now());
+            request.setStatus(ParticipationRequestStatus.PENDING);
+            requestIds.add(participationRequestRepository.save(request).getId());
+        }
+
+        AtomicInteger confirmed = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < requestIds.size(); i += REQUESTS_PER_CONFIRMATION) {
+            EventRequestStatusUpdateRequest update = new EventRequestStatusUpdateRequest();
+            update.setRequestIds(requestIds.subList(i, i + REQUESTS_PER_CONFIRMATION));
+            update.setStatus(ParticipationRequestStatus.CONFIRMED.name());
+            tasks.add(() -> {
+                try {
+                    confirmed.addAndGet(eventService.updateRequestStatus(initiator.getId(), eventId, update)
+                            .getConfirmedRequests().size());
+                } catch (ParticipationLimitExceededException e) {
+                    // the event was already full when the batch was read, nothing of it is confirmed
+                }
+                return null;
+            });
+        }
+
+        runConcurrently("confirmations", tasks);
+
+        assertThat(confirmed.get()).isEqualTo(PARTICIPANT_LIMIT);
+        assertLimitReached(eventId);
+    }
+
+    private void runConcurrently(String name, List<Callable<Void>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> futures = new ArrayList<>();
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<Void> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+
+        log.info("{} {} from {} threads in {} ms, {} calls/s", tasks.size(), name, THREADS,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), tasks.size() * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1));
+    }
+
+    private void assertLimitReached(long eventId) {
+        Event stored = eventRepository.findById(eventId).get();
+        assertThat(stored.getConfirmedRequests()).isEqualTo((long) PARTICIPANT_LIMIT);
+        assertThat(stored.getAvailable()).isFalse();
+        assertThat(participationRequestRepository.countByEventIdAndStatus(eventId, ParticipationRequestStatus.CONFIRMED))
+                .isEqualTo((long) PARTICIPANT_LIMIT);
+    }
+}
@@ -0,0 +1,115 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.dto.event.EventTextDto;
+import ru.practicum.repository.EventRepository;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class EventTextIndexTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Test
+    @DisplayName("Test index is built on startup and matches words by prefix functionality")
+    void givenStoredEvents_whenBuiltAndSearched_thenEventsMatchingAllWordsAreReturned() {
+        EventTextIndex index = new EventTextIndex(eventRepository, 1000);
+        BDDMockito.given(eventRepository.findTextAfter(eq(0L), any(Pageable.class)))
+                .willReturn(List.of(
+                        new EventTextDto(1L, "Jazz concert", "An evening of jazz in the park"),
+                        new EventTextDto(2L, "Rock concert", "Loud guitars"),
+                        new EventTextDto(3L, "Lecture", null)));
+
+        index.afterPropertiesSet();
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("CONCERT").getScores()).containsOnlyKeys(1L, 2L);
+        assertThat(index.search("conc jaz").getScores()).containsOnlyKeys(1L);
+        assertThat(index.search("an").getScores()).containsOnlyKeys(1L);
+        assertThat(index.search("j").getScores()).isEmpty();
+        assertThat(index.search("concert lecture").getScores()).isEmpty();
+        assertThat(index.search("!!").getScores()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Test events with more occurrences of a rarer word score higher functionality")
+    void givenIndexedEvents_whenSearched_thenScoresFollowTermFrequency() {
+        EventTextIndex index = new EventTextIndex(eventRepository, 1000);
+        index.index(1L, "Jazz festival", "jazz, jazz and more jazz");
+        index.index(2L, "Festival", "some jazz on the second day");
+        index.index(3L, "Festival", "food trucks");
+
+        Map<Long, Double> scores = index.search("jazz").getScores();
+
+        assertThat(scores).containsOnlyKeys(1L, 2L);
+        assertThat(scores.get(1L)).isGreaterThan(scores.get(2L));
+    }
+
+    @Test
+    @DisplayName("Test reindexed event is matched by its new text only functionality")
+    void givenIndexedEvent_whenIndexedAgain_thenOldWordsAreRemoved() {
+        EventTextIndex index = new EventTextIndex(eventRepository, 1000);
+        index.index(1L, "Chess tournament", "Blitz games");
+
+        index.index(1L, "Go tournament", "Slow games");
+
+        assertThat(index.search("chess").getScores()).isEmpty();
+        assertThat(index.search("go games").getScores()).containsOnlyKeys(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Test all matches are returned and ranked in chunks of ids per query functionality")
+    void givenMoreMatchesThanIdsPerQuery_whenSearched_thenAllAreRankedInChunks() {
+        EventTextIndex index = new EventTextIndex(eventRepository, 2);
+        index.index(1L, "Jazz", "jazz jazz jazz");
+        index.index(2L, "Jazz", "an evening of jazz and blues");
+        index.index(3L, "Jazz", "jazz jazz");
+        index.index(4L, "Blues", "no match here");
+
+        EventTextIndex.Matches matches = index.search("jazz");
+
+        assertThat(matches.getScores()).containsOnlyKeys(1L, 2L, 3L);
+        assertThat(matches.rankedChunks()).containsExactly(List.of(1L, 3L), List.of(2L));
+    }
+
+    @Test
+    @DisplayName("Test rebuild picks up changes of other instances and keeps local changes made meanwhile functionality")
+    void givenChangesElsewhereAndLocally_whenRebuilt_thenIndexHasStoredTextsAndNewerLocalTexts() {
+        EventTextIndex index = new EventTextIndex(eventRepository, 1000);
+        index.index(1L, "Chess tournament", null);
+        index.index(2L, "Jazz concert", null);
+        BDDMockito.given(eventRepository.findTextAfter(eq(0L), any(Pageable.class))).willAnswer(invocation -> {
+            index.index(2L, "Rock concert", null);
+            return List.of(
+                    new EventTextDto(1L, "Go tournament", null),
+                    new EventTextDto(2L, "Jazz concert", null),
+                    new EventTextDto(3L, "Poetry reading", null));
+        });
+
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("chess").getScores()).isEmpty();
+        assertThat(index.search("go").getScores()).containsOnlyKeys(1L);
+        assertThat(index.search("poetry").getScores()).containsOnlyKeys(3L);
+        assertThat(index.search("jazz").getScores()).isEmpty();
+        assertThat(index.search("rock").getScores()).containsOnlyKeys(2L);
+
+        index.index(2L, "Blues concert", null);
+        assertThat(index.search("blues").getScores()).containsOnlyKeys(2L);
+    }
+}
@@ -31,6 +31,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -88,10 +89,10 @@ class ParticipationServiceImplTest {
         );
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
+        BDDMockito.given(eventRepository.reserveConfirmedRequests(anyLong(), anyLong())).willReturn(1);
         BDDMockito.given(participationRequestRepository.save(any(ParticipationRequest.class)))
                 .willReturn(DataUtils.getParticipationRequest());
         BDDMockito.given(participationRequestMapper.toDto(any(ParticipationRequest.class)))
@@ -113,8 +114,7 @@ class ParticipationServiceImplTest {
         );
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.of(DataUtils.getParticipationRequest()));
 
@@ -137,8 +137,7 @@ class ParticipationServiceImplTest {
         );
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
 
@@ -162,8 +161,7 @@ class ParticipationServiceImplTest {
         eventPersisted.setState(EventState.PENDING);
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
 
@@ -187,8 +185,7 @@ class ParticipationServiceImplTest {
         eventPersisted.setState(EventState.CANCELED);
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
 
@@ -212,8 +209,7 @@ class ParticipationServiceImplTest {
         eventPersisted.setParticipantLimit(1);
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
 
@@ -226,6 +222,26 @@ class ParticipationServiceImplTest {
         assertThat(exception.getMessage()).isEqualTo("Participant limit='" + eventPersisted.getParticipantLimit() + "' exceeded");
     }
 
+    @Test
+    @DisplayName("Test create participation request when the last slot was taken concurrently must throw an exception functionality")
+    void givenNoSlotLeftToReserve_whenCreate_thenExceptionIsThrownAndRequestIsNotSaved() {
+        Event eventPersisted = DataUtils.getEventPersisted(
+                DataUtils.getCategoryPersisted(),
+                DataUtils.getUserInitiatorPersisted(),
+                DataUtils.getLocationPersisted()
+        );
+        eventPersisted.setParticipantLimit(2);
+        eventPersisted.setConfirmedRequests(1L);
+        BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
+        BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
+        BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
+                .willReturn(Optional.empty());
+        BDDMockito.given(eventRepository.reserveConfirmedRequests(1L, 1)).willReturn(0);
+
+        assertThrows(ParticipationLimitExceededException.class, () -> participationServiceTest.create(3L, 1L));
+        verify(participationRequestRepository, never()).save(any(ParticipationRequest.class));
+    }
+
     @Test
     @DisplayName("Test create participation request with status check functionality")
     void givenEventWithoutModerationAndLimit_whenCreate_thenParticipationRequestDtoIsReturnedWithStatusConfirmed() {
@@ -237,10 +253,10 @@ class ParticipationServiceImplTest {
 
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
+        BDDMockito.given(eventRepository.reserveConfirmedRequests(anyLong(), anyLong())).willReturn(1);
         BDDMockito.given(participationRequestRepository.save(any(ParticipationRequest.class)))
                 .willReturn(DataUtils.getParticipationRequest());
         BDDMockito.given(participationRequestMapper.toDto(any(ParticipationRequest.class)))
@@ -256,6 +272,7 @@ class ParticipationServiceImplTest {
         ParticipationRequest capturedRequest = captor.getValue();
 
         assertThat(capturedRequest.getStatus()).isEqualTo(ParticipationRequestStatus.CONFIRMED);
+        verify(eventRepository).reserveConfirmedRequests(1L, 1);
     }
 
     @Test
@@ -271,8 +288,7 @@ class ParticipationServiceImplTest {
 
         BDDMockito.given(userRepository.findById(anyLong())).willReturn(Optional.of(DataUtils.getUserRequesterPersisted()));
         BDDMockito.given(eventRepository.findById(anyLong())).willReturn(Optional.of(eventPersisted));
-        BDDMockito.given(participationRequestRepository.countByEventIdAndStatus(anyLong(), any(ParticipationRequestStatus.class)))
-                .willReturn(1L);
+        eventPersisted.setConfirmedRequests(1L);
         BDDMockito.given(participationRequestRepository.findByEventIdAndRequesterId(anyLong(), anyLong()))
                 .willReturn(Optional.empty());
         BDDMockito.given(participationRequestRepository.save(any(ParticipationRequest.class)))
@@ -323,6 +339,7 @@ class ParticipationServiceImplTest {
         verify(participationRequestRepository).save(captor.capture());
         ParticipationRequest capturedRequest = captor.getValue();
         assertThat(capturedRequest.getStatus()).isEqualTo(ParticipationRequestStatus.CANCELED);
+        verify(eventRepository).addConfirmedRequests(eventPersisted.getId(), -1);
     }
 
     @Test
@@ -9,19 +9,23 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import ru.practicum.dto.user.NewUserRequest;
 import ru.practicum.dto.user.UserDto;
 import ru.practicum.dto.user.UserDtoMapper;
 import ru.practicum.model.User;
 import ru.practicum.repository.UserRepository;
+import ru.practicum.util.CursorPage;
 import ru.practicum.util.DataUtils;
+import ru.practicum.util.KeysetCursor;
 
 import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -35,6 +39,8 @@ class UserServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private UserDtoMapper userDtoMapper;
+    @Mock
+    private CompilationDtoCache compilationDtoCache;
 
     @Test
     @DisplayName("Test get all with ids param functionality")
@@ -47,7 +53,7 @@ class UserServiceImplTest {
         BDDMockito.given(userRepository.findByIds(ids, Pageable.unpaged())).willReturn(userPage);
         BDDMockito.given(userDtoMapper.userToUserDto(any(User.class))).willReturn(DataUtils.getUserDto());
 
-        List<UserDto> result = userServiceTest.getAll(ids, Pageable.unpaged());
+        List<UserDto> result = userServiceTest.getAll(ids, null, Pageable.unpaged()).getContent();
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(2);
     }
@@ -62,11 +68,26 @@ class UserServiceImplTest {
         BDDMockito.given(userRepository.findAll(Pageable.unpaged())).willReturn(userPage);
         BDDMockito.given(userDtoMapper.userToUserDto(any(User.class))).willReturn(DataUtils.getUserDto());
 
-        List<UserDto> result = userServiceTest.getAll(null, Pageable.unpaged());
+        List<UserDto> result = userServiceTest.getAll(null, null, Pageable.unpaged()).getContent();
         assertThat(result).isNotNull();
         assertThat(result.size()).isEqualTo(2);
     }
 
+    @Test
+    @DisplayName("Test get all after cursor functionality")
+    void givenCursor_whenGetAll_thenUsersAfterCursorAndNextCursorAreReturned() {
+        User user1 = DataUtils.getUserAuthorPersisted();
+        User user2 = DataUtils.getUserInitiatorPersisted();
+
+        BDDMockito.given(userRepository.findAllByIdGreaterThan(eq(1L), any(Pageable.class)))
+                .willReturn(List.of(user1, user2));
+        BDDMockito.given(userDtoMapper.userToUserDto(any(User.class))).willReturn(DataUtils.getUserDto());
+
+        CursorPage<UserDto> result = userServiceTest.getAll(null, KeysetCursor.encode(null, 1L), PageRequest.of(0, 2));
+        assertThat(result.getContent().size()).isEqualTo(2);
+        assertThat(KeysetCursor.decode(result.getNextCursor()).getId()).isEqualTo(user2.getId());
+    }
+
     @Test
     @DisplayName("Test create functionality")
     void givenNewUserRequest_WhenCreate_thenUserDtoIsReturned() {
@@ -0,0 +1,115 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.client.AsyncClient;
+import ru.practicum.client.StatsUnavailableException;
+import ru.practicum.model.Event;
+import ru.practicum.util.DataUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ViewCounterTest {
+
+    @Mock
+    private AsyncClient client;
+
+    @Test
+    @DisplayName("Test views are seeded once and then counted locally functionality")
+    void givenSeededEvent_whenViewsRecorded_thenCountedWithoutRemoteCall() {
+        ViewCounter viewCounter = new ViewCounter(client, 100, 1000);
+        Event event = DataUtils.getEventPersisted(DataUtils.getCategoryPersisted(),
+                DataUtils.getUserInitiatorPersisted(), DataUtils.getLocationPersisted());
+        BDDMockito.given(client.getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyCollection(), anyBoolean()))
+                .willReturn(CompletableFuture.completedFuture(Map.of(1L, 5L)));
+
+        assertThat(viewCounter.getViews(event)).isEqualTo(5);
+        viewCounter.record(1L, "10.0.0.1");
+        viewCounter.record(1L, "10.0.0.2");
+        viewCounter.record(1L, "10.0.0.1");
+
+        assertThat(viewCounter.getViews(event)).isEqualTo(7);
+        verify(client, times(1)).getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyCollection(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Test reconcile replaces local growth with remote count functionality")
+    void givenLocalViews_whenReconciled_thenRemoteCountIsUsed() {
+        ViewCounter viewCounter = new ViewCounter(client, 100, 1000);
+        Event event = DataUtils.getEventPersisted(DataUtils.getCategoryPersisted(),
+                DataUtils.getUserInitiatorPersisted(), DataUtils.getLocationPersisted());
+        BDDMockito.given(client.getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyCollection(), anyBoolean()))
+                .willReturn(CompletableFuture.completedFuture(Map.of()),
+                        CompletableFuture.completedFuture(Map.of(1L, 10L)));
+
+        assertThat(viewCounter.getViews(event)).isEqualTo(0);
+        viewCounter.record(1L, "10.0.0.1");
+        viewCounter.reconcileAll();
+        viewCounter.record(1L, "10.0.0.2");
+
+        assertThat(viewCounter.getViews(event)).isEqualTo(11);
+        verify(client, times(2)).getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyCollection(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Test views of events published at different times are counted from their own start functionality")
+    void givenEventsWithDifferentStarts_whenGetViews_thenEachStartIsRequestedSeparately() {
+        ViewCounter viewCounter = new ViewCounter(client, 100, 1000);
+        LocalDateTime early = LocalDateTime.of(2024, 1, 1, 10, 0);
+        LocalDateTime late = LocalDateTime.of(2024, 6, 1, 10, 0);
+        Event first = getEventPublishedOn(1L, early);
+        Event second = getEventPublishedOn(2L, late);
+        Event third = getEventPublishedOn(3L, early);
+        BDDMockito.given(client.getEventHits(eq(early), any(LocalDateTime.class), anyCollection(), anyBoolean()))
+                .willReturn(CompletableFuture.completedFuture(Map.of(1L, 5L, 3L, 2L)));
+        BDDMockito.given(client.getEventHits(eq(late), any(LocalDateTime.class), anyCollection(), anyBoolean()))
+                .willReturn(CompletableFuture.completedFuture(Map.of(2L, 1L)));
+
+        Map<Long, Long> views = viewCounter.getViews(List.of(first, second, third));
+
+        assertThat(views).isEqualTo(Map.of(1L, 5L, 2L, 1L, 3L, 2L));
+        verify(client).getEventHits(eq(early), any(LocalDateTime.class),
+                argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(1L, 3L))), anyBoolean());
+        verify(client).getEventHits(eq(late), any(LocalDateTime.class), argThat(ids -> ids.equals(List.of(2L))), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Test local views are served while stats server is unavailable functionality")
+    void givenUnavailableStatsServer_whenGetViews_thenLocalViewsAreServedAndSeedingIsRetried() {
+        ViewCounter viewCounter = new ViewCounter(client, 100, 1000);
+        Event event = DataUtils.getEventPersisted(DataUtils.getCategoryPersisted(),
+                DataUtils.getUserInitiatorPersisted(), DataUtils.getLocationPersisted());
+        BDDMockito.given(client.getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyCollection(), anyBoolean()))
+                .willReturn(CompletableFuture.failedFuture(new StatsUnavailableException("Stats server circuit breaker is open")),
+                        CompletableFuture.completedFuture(Map.of(1L, 5L)));
+
+        viewCounter.record(1L, "10.0.0.1");
+        assertThat(viewCounter.getViews(event)).isEqualTo(1);
+        assertThat(viewCounter.isTracked(1L)).isFalse();
+
+        assertThat(viewCounter.getViews(event)).isEqualTo(5);
+        assertThat(viewCounter.isTracked(1L)).isTrue();
+        verify(client, times(2)).getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyCollection(), anyBoolean());
+    }
+
+    private static Event getEventPublishedOn(long id, LocalDateTime publishedOn) {
+        Event event = DataUtils.getEventPersisted(DataUtils.getCategoryPersisted(),
+                DataUtils.getUserInitiatorPersisted(), DataUtils.getLocationPersisted());
+        event.setId(id);
+        event.setPublishedOn(publishedOn);
+        return event;
+    }
+}
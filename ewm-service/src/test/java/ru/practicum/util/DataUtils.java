@@ -206,10 +206,15 @@ public class DataUtils {
         return eventFullDto;
     }
 
+    public static EventShortProjection getEventShortProjection(long id) {
+        return new EventShortProjection(id, "Annotation needs twenty chars", 1L, "Category name",
+                LocalDateTime.now().plusDays(3), 1L, "User name", false, "Title", 0L, 0L,
+                LocalDateTime.now(), LocalDateTime.now());
+    }
+
     public static EventShortDto getEventShortDto() {
         EventShortDto eventShortDto = new EventShortDto();
         eventShortDto.setId(1L);
-        eventShortDto.setDescription("Description needs twenty chars");
         eventShortDto.setAnnotation("Annotation needs twenty chars");
         eventShortDto.setCategory(getCategoryDto());
         eventShortDto.setConfirmedRequests(1);
@@ -0,0 +1,51 @@
+package ru.practicum.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replaces the test data source with a fresh database of an embedded PostgreSQL, shared by all test contexts and
+ * migrated by Flyway like production. Tests that depend on PostgreSQL planning or locking import it together with
+ * {@code @AutoConfigureTestDatabase(replace = NONE)}.
+ */
+@TestConfiguration
+public class EmbeddedPostgresConfig {
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static EmbeddedPostgres postgres;
+
+    @Bean
+    public StatementRecordingDataSource dataSource() {
+        String name = "ewm_" + DATABASES.incrementAndGet();
+        EmbeddedPostgres server = postgres();
+        new JdbcTemplate(server.getPostgresDatabase()).execute("CREATE DATABASE " + name);
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(server.getJdbcUrl("postgres", name));
+        dataSource.setMaximumPoolSize(20);
+        return new StatementRecordingDataSource(dataSource);
+    }
+
+    private static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // the process goes away with the JVM anyway
+                }
+            }));
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,142 @@
+package ru.practicum.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL and the bound parameters of every prepared statement, so that tests can EXPLAIN exactly what
+ * Hibernate sent instead of a hand-written copy of it.
+ */
+public class StatementRecordingDataSource extends DelegatingDataSource implements Closeable {
+    private final HikariDataSource pool;
+    private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+    public StatementRecordingDataSource(HikariDataSource pool) {
+        super(pool);
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return recording(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return recording(super.getConnection(username, password));
+    }
+
+    public void clear() {
+        statements.clear();
+    }
+
+    /**
+     * Returns the last recorded statement whose SQL contains the fragment, ignoring case.
+     */
+    public Optional<RecordedStatement> findLast(String fragment) {
+        for (int i = statements.size() - 1; i >= 0; i--) {
+            if (statements.get(i).getSql().toLowerCase().contains(fragment.toLowerCase())) {
+                return Optional.of(statements.get(i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    private Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (method.getName().equals("prepareStatement")) {
+                        RecordedStatement statement = new RecordedStatement((String) args[0]);
+                        statements.add(statement);
+                        return recording((PreparedStatement) result, statement);
+                    }
+                    return result;
+                });
+    }
+
+    private static PreparedStatement recording(PreparedStatement preparedStatement, RecordedStatement statement) {
+        return (PreparedStatement) Proxy.newProxyInstance(StatementRecordingDataSource.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer) {
+                        statement.parameters.put((Integer) args[0], new Binding(method, args));
+                    }
+                    return invoke(preparedStatement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static class RecordedStatement {
+        private final String sql;
+        private final Map<Integer, Binding> parameters = new TreeMap<>();
+
+        RecordedStatement(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Runs EXPLAIN of the statement with the parameters it was executed with and returns the plan lines.
+         */
+        public List<String> explain(Connection connection) throws SQLException {
+            List<String> plan = new ArrayList<>();
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Binding binding : parameters.values()) {
+                    invoke(explain, binding.method, binding.args);
+                }
+                try (ResultSet resultSet = explain.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.add(resultSet.getString(1));
+                    }
+                }
+            } catch (SQLException e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new SQLException(e);
+            }
+            return plan;
+        }
+    }
+
+    private static class Binding {
+        private final Method method;
+        private final Object[] args;
+
+        Binding(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.client;
+
+import ru.practicum.dto.ClientRequestDto;
+import ru.practicum.dto.StatsRequestDto;
+import ru.practicum.dto.StatsResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncClient {
+	CompletableFuture<Void> saveStatsBatch(List<StatsRequestDto> requestDtos);
+
+	CompletableFuture<List<StatsResponseDto>> getStats(ClientRequestDto requestDto);
+
+	CompletableFuture<Map<Long, Long>> getEventHits(LocalDateTime start, LocalDateTime end, Collection<Long> eventIds,
+													 boolean unique);
+}
@@ -0,0 +1,164 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import ru.practicum.codec.EventHitsCodec;
+import ru.practicum.dto.ClientRequestDto;
+import ru.practicum.dto.EventHitsDto;
+import ru.practicum.dto.EventStatsRequestDto;
+import ru.practicum.dto.StatsRequestDto;
+import ru.practicum.dto.StatsResponseDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking stats client on the JDK HTTP client. HTTP/2 is used when the stats server supports it, so
+ * concurrent requests share one connection; otherwise the client keeps a pool of HTTP/1.1 connections.
+ * Every request has its own deadline and goes through the same {@link CircuitBreaker} as {@link StatsClient}.
+ * Hits of events are read with event ids in the request body and come back in the {@link EventHitsCodec} form.
+ */
+@Component
+public class AsyncStatsClient implements AsyncClient {
+
+	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private final URI serverUri;
+	private final HttpClient httpClient;
+	private final ObjectMapper objectMapper;
+	private final CircuitBreaker breaker;
+	private final Duration requestTimeout;
+	private final JavaType statsType;
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	public AsyncStatsClient(@Value("${stats-service.url}") String serverUrl,
+							ObjectMapper objectMapper,
+							CircuitBreaker breaker,
+							@Value("${stats-service.client.connect-timeout-ms:1000}") long connectTimeoutMs,
+							@Value("${stats-service.client.read-timeout-ms:3000}") long readTimeoutMs) {
+		this.serverUri = URI.create(serverUrl.endsWith("/") ? serverUrl : serverUrl + "/");
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.connectTimeout(Duration.ofMillis(connectTimeoutMs))
+				.build();
+		this.objectMapper = objectMapper;
+		this.breaker = breaker;
+		this.requestTimeout = Duration.ofMillis(readTimeoutMs);
+		this.statsType = objectMapper.getTypeFactory().constructCollectionType(List.class, StatsResponseDto.class);
+	}
+
+	@Override
+	public CompletableFuture<Void> saveStatsBatch(List<StatsRequestDto> requestDtos) {
+		byte[] body;
+		try {
+			body = objectMapper.writeValueAsBytes(requestDtos);
+		} catch (JsonProcessingException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		HttpRequest request = HttpRequest.newBuilder(serverUri.resolve("hits"))
+				.timeout(requestTimeout)
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+		return send(request).thenApply(response -> null);
+	}
+
+	@Override
+	public CompletableFuture<List<StatsResponseDto>> getStats(ClientRequestDto requestDto) {
+		StringBuilder query = new StringBuilder("stats?start=").append(encode(requestDto.getStart().format(FORMATTER)))
+				.append("&end=").append(encode(requestDto.getEnd().format(FORMATTER)))
+				.append("&unique=").append(requestDto.isUnique());
+		if (requestDto.getUris() != null && !requestDto.getUris().isEmpty()) {
+			query.append("&uris=").append(encode(String.join(",", requestDto.getUris())));
+		}
+		HttpRequest request = HttpRequest.newBuilder(serverUri.resolve(query.toString()))
+				.timeout(requestTimeout)
+				.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+				.GET()
+				.build();
+		return send(request).thenApply(this::readStats);
+	}
+
+	@Override
+	public CompletableFuture<Map<Long, Long>> getEventHits(LocalDateTime start, LocalDateTime end,
+														   Collection<Long> eventIds, boolean unique) {
+		byte[] body;
+		try {
+			body = objectMapper.writeValueAsBytes(new EventStatsRequestDto(start, end, new ArrayList<>(eventIds), unique));
+		} catch (JsonProcessingException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		HttpRequest request = HttpRequest.newBuilder(serverUri.resolve("stats/events"))
+				.timeout(requestTimeout)
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.header(HttpHeaders.ACCEPT, EventHitsCodec.MEDIA_TYPE)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+				.build();
+		return send(request).thenApply(response -> EventHitsCodec.decode(response.body()).stream()
+				.collect(Collectors.toMap(EventHitsDto::getEventId, EventHitsDto::getHits)));
+	}
+
+	public int getInFlightCount() {
+		return inFlight.get();
+	}
+
+	private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+		return breaker.callAsync(() -> {
+			inFlight.incrementAndGet();
+			return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+					.whenComplete((response, e) -> inFlight.decrementAndGet())
+					.thenApply(this::checkStatus);
+		});
+	}
+
+	private HttpResponse<byte[]> checkStatus(HttpResponse<byte[]> response) {
+		int status = response.statusCode();
+		if (status >= 400) {
+			HttpStatus httpStatus = Objects.requireNonNullElse(HttpStatus.resolve(status), HttpStatus.INTERNAL_SERVER_ERROR);
+			if (httpStatus.is4xxClientError()) {
+				throw HttpClientErrorException.create(httpStatus, httpStatus.getReasonPhrase(), null, response.body(),
+						StandardCharsets.UTF_8);
+			}
+			throw HttpServerErrorException.create(httpStatus, httpStatus.getReasonPhrase(), null, response.body(),
+					StandardCharsets.UTF_8);
+		}
+		return response;
+	}
+
+	private List<StatsResponseDto> readStats(HttpResponse<byte[]> response) {
+		try {
+			return objectMapper.readValue(response.body(), statsType);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,138 @@
+package ru.practicum.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling the stats server after a number of consecutive failures. While open, calls fail at once with
+ * {@link StatsUnavailableException}; after the open period a single trial call is let through and its result
+ * closes or reopens the breaker. Client errors (4xx) are not counted as failures.
+ */
+@Slf4j
+@Component
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openNanos;
+	private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final AtomicLong successful = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private volatile long openedAt;
+
+	public CircuitBreaker(@Value("${stats-service.breaker.failure-threshold:5}") int failureThreshold,
+						  @Value("${stats-service.breaker.open-ms:10000}") long openMs) {
+		this.failureThreshold = failureThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+	}
+
+	public <T> T call(Supplier<T> call) {
+		if (!tryAcquire()) {
+			throw unavailable();
+		}
+		try {
+			T result = call.get();
+			onSuccess();
+			return result;
+		} catch (RuntimeException e) {
+			onFailure(e);
+			throw e;
+		}
+	}
+
+	public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+		if (!tryAcquire()) {
+			return CompletableFuture.failedFuture(unavailable());
+		}
+		CompletableFuture<T> future;
+		try {
+			future = call.get();
+		} catch (RuntimeException e) {
+			onFailure(e);
+			return CompletableFuture.failedFuture(e);
+		}
+		return future.whenComplete((result, e) -> {
+			if (e == null) {
+				onSuccess();
+			} else {
+				onFailure(e);
+			}
+		});
+	}
+
+	public State getState() {
+		return state.get();
+	}
+
+	public long getSuccessfulCount() {
+		return successful.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	private boolean tryAcquire() {
+		State current = state.get();
+		if (current == State.CLOSED) {
+			return true;
+		}
+		if (current == State.OPEN && System.nanoTime() - openedAt >= openNanos
+				&& state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+			return true;
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	private void onSuccess() {
+		successful.incrementAndGet();
+		consecutiveFailures.set(0);
+		if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+			log.info("Stats server is available again, circuit breaker closed");
+		}
+	}
+
+	private void onFailure(Throwable e) {
+		Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+		if (cause instanceof HttpClientErrorException) {
+			onSuccess();
+			return;
+		}
+		failed.incrementAndGet();
+		if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+			open(cause);
+		}
+	}
+
+	private void open(Throwable cause) {
+		openedAt = System.nanoTime();
+		if (state.getAndSet(State.OPEN) != State.OPEN) {
+			log.warn("Stats server is unavailable, circuit breaker opened for {} ms: {}",
+					TimeUnit.NANOSECONDS.toMillis(openNanos), cause.getMessage());
+		}
+	}
+
+	private StatsUnavailableException unavailable() {
+		return new StatsUnavailableException("Stats server circuit breaker is open");
+	}
+}
@@ -9,5 +9,7 @@ import java.util.List;
 public interface Client {
 	void saveStats(StatsRequestDto requestDto);
 
+	void saveStatsBatch(List<StatsRequestDto> requestDtos);
+
 	List<StatsResponseDto> getStats(ClientRequestDto requestDto);
 }
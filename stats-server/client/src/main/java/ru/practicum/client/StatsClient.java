@@ -1,5 +1,9 @@
 package ru.practicum.client;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
@@ -10,25 +14,65 @@ import ru.practicum.dto.ClientRequestDto;
 import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.StatsResponseDto;
 
+import javax.annotation.PreDestroy;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class StatsClient extends BaseClient implements Client {
 
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CircuitBreaker breaker;
+
 	@Autowired
-	public StatsClient(@Value("${stats-service.url}") String serverUrl, RestTemplateBuilder builder) {
+	public StatsClient(@Value("${stats-service.url}") String serverUrl,
+					   RestTemplateBuilder builder,
+					   CircuitBreaker breaker,
+					   @Value("${stats-service.client.max-connections:50}") int maxConnections,
+					   @Value("${stats-service.client.connect-timeout-ms:1000}") int connectTimeoutMs,
+					   @Value("${stats-service.client.read-timeout-ms:3000}") int readTimeoutMs) {
+		this(serverUrl, builder, breaker, createConnectionManager(maxConnections), connectTimeoutMs, readTimeoutMs);
+	}
+
+	private StatsClient(String serverUrl,
+						RestTemplateBuilder builder,
+						CircuitBreaker breaker,
+						PoolingHttpClientConnectionManager connectionManager,
+						int connectTimeoutMs,
+						int readTimeoutMs) {
 		super(
 				builder
 						.uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
-						.requestFactory(HttpComponentsClientHttpRequestFactory::new)
+						.requestFactory(() -> new HttpComponentsClientHttpRequestFactory(HttpClientBuilder.create()
+								.setConnectionManager(connectionManager)
+								.setDefaultRequestConfig(RequestConfig.custom()
+										// waiting for a pooled connection is bounded as well as connecting and reading
+										.setConnectionRequestTimeout(connectTimeoutMs)
+										.setConnectTimeout(connectTimeoutMs)
+										.setSocketTimeout(readTimeoutMs)
+										.build())
+								.evictIdleConnections(30, TimeUnit.SECONDS)
+								.build()))
 						.build()
 		);
+		this.connectionManager = connectionManager;
+		this.breaker = breaker;
 	}
 
 	public void saveStats(StatsRequestDto requestDto) {
-		post("/hit", requestDto);
+		breaker.call(() -> {
+			post("/hit", requestDto);
+			return null;
+		});
+	}
+
+	public void saveStatsBatch(List<StatsRequestDto> requestDtos) {
+		breaker.call(() -> {
+			post("/hits", requestDtos);
+			return null;
+		});
 	}
 
 	public List<StatsResponseDto> getStats(ClientRequestDto requestDto) {
@@ -45,6 +89,23 @@ public class StatsClient extends BaseClient implements Client {
 				"/stats?start={start}&end={end}&uris={uris}&unique={unique}" :
 				"/stats?start={start}&end={end}&unique={unique}";
 
-		return get(url, parameters);
+		return breaker.call(() -> get(url, parameters));
+	}
+
+	public PoolStats getPoolStats() {
+		return connectionManager.getTotalStats();
+	}
+
+	@PreDestroy
+	public void close() {
+		connectionManager.close();
+	}
+
+	private static PoolingHttpClientConnectionManager createConnectionManager(int maxConnections) {
+		// all requests go to the same stats server, so one route may use the whole pool
+		PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setMaxTotal(maxConnections);
+		connectionManager.setDefaultMaxPerRoute(maxConnections);
+		return connectionManager;
 	}
 }
@@ -0,0 +1,112 @@
+package ru.practicum.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.StatsRequestDto;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records hits without blocking the caller. Hits are put into a bounded queue and sent to the stats server
+ * by a background thread in batches; when the queue is full new hits are dropped and counted.
+ */
+@Slf4j
+@Component
+public class StatsRecorder {
+
+	private final Client client;
+	private final BlockingQueue<StatsRequestDto> queue;
+	private final int batchSize;
+	private final Thread sender;
+	private final AtomicLong recorded = new AtomicLong();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private volatile boolean running = true;
+
+	public StatsRecorder(Client client,
+						 @Value("${stats-service.recorder.capacity:10000}") int capacity,
+						 @Value("${stats-service.recorder.batch-size:100}") int batchSize) {
+		this.client = client;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.sender = new Thread(this::sendLoop, "stats-recorder-sender");
+		this.sender.setDaemon(true);
+		this.sender.start();
+	}
+
+	public boolean record(StatsRequestDto hit) {
+		if (!running || !queue.offer(hit)) {
+			dropped.incrementAndGet();
+			return false;
+		}
+		recorded.incrementAndGet();
+		return true;
+	}
+
+	public long getRecordedCount() {
+		return recorded.get();
+	}
+
+	public long getSentCount() {
+		return sent.get();
+	}
+
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	@PreDestroy
+	public void close() throws InterruptedException {
+		running = false;
+		sender.join(TimeUnit.SECONDS.toMillis(10));
+		if (sender.isAlive()) {
+			log.warn("Stats recorder did not drain in time, {} hits left", queue.size());
+			sender.interrupt();
+		}
+	}
+
+	private void sendLoop() {
+		List<StatsRequestDto> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				StatsRequestDto first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				send(batch);
+				batch = new ArrayList<>(batchSize);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	private void send(List<StatsRequestDto> batch) {
+		try {
+			client.saveStatsBatch(batch);
+			sent.addAndGet(batch.size());
+		} catch (RuntimeException e) {
+			failed.addAndGet(batch.size());
+			log.warn("Failed to send {} hits to stats server: {}", batch.size(), e.getMessage());
+		}
+	}
+}
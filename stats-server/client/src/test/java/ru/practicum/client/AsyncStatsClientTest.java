@@ -0,0 +1,128 @@
+package ru.practicum.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import ru.practicum.codec.EventHitsCodec;
+import ru.practicum.dto.ClientRequestDto;
+import ru.practicum.dto.EventHitsDto;
+import ru.practicum.dto.StatsRequestDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncStatsClientTest {
+	private static final LocalDateTime START = LocalDateTime.of(2024, 5, 10, 10, 0);
+
+	private final AtomicInteger requests = new AtomicInteger();
+	private volatile int status;
+	private volatile byte[] body;
+	private HttpServer server;
+	private CircuitBreaker breaker;
+	private AsyncStatsClient client;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", exchange -> {
+			requests.incrementAndGet();
+			exchange.getRequestBody().readAllBytes();
+			exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		breaker = new CircuitBreaker(2, 60_000);
+		client = new AsyncStatsClient("http://localhost:" + server.getAddress().getPort(),
+				new ObjectMapper().findAndRegisterModules(), breaker, 1_000, 3_000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void getEventHits_whenServerAnswersOk_thenHitsAreDecoded() {
+		respond(200, EventHitsCodec.encode(List.of(new EventHitsDto(1, 10), new EventHitsDto(7, 3))));
+
+		Map<Long, Long> hits = client.getEventHits(START, START.plusDays(1), List.of(1L, 7L), false).join();
+
+		assertThat(hits).isEqualTo(Map.of(1L, 10L, 7L, 3L));
+		assertThat(breaker.getSuccessfulCount()).isEqualTo(1);
+	}
+
+	@Test
+	void getEventHits_whenServerAnswers5xx_thenFailsWithServerErrorAndCountsFailure() {
+		respond(503, "down".getBytes(StandardCharsets.UTF_8));
+
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> client.getEventHits(START, START.plusDays(1), List.of(1L), false).join());
+
+		assertThat(e).hasCauseInstanceOf(HttpServerErrorException.class);
+		assertThat(((HttpServerErrorException) e.getCause()).getRawStatusCode()).isEqualTo(503);
+		assertThat(breaker.getFailedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void saveStatsBatch_whenUnknown5xxStatus_thenFailsWithServerError() {
+		respond(599, new byte[0]);
+
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> client.saveStatsBatch(List.of(new StatsRequestDto("ewm-main-service", "/events/1", "10.0.0.1", START)))
+						.join());
+
+		assertThat(e).hasCauseInstanceOf(HttpServerErrorException.class);
+		assertThat(breaker.getFailedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void getStats_whenServerAnswers4xx_thenFailsWithClientErrorAndBreakerStaysClosed() {
+		respond(400, "bad dates".getBytes(StandardCharsets.UTF_8));
+		ClientRequestDto request = new ClientRequestDto(START, START.plusDays(1), List.of("/events/1"), false);
+
+		for (int i = 0; i < 3; i++) {
+			CompletionException e = assertThrows(CompletionException.class, () -> client.getStats(request).join());
+			assertThat(e).hasCauseInstanceOf(HttpClientErrorException.class);
+		}
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(breaker.getFailedCount()).isZero();
+		assertThat(requests).hasValue(3);
+	}
+
+	@Test
+	void getStats_whenBreakerOpened_thenFailsWithoutRequest() {
+		respond(500, new byte[0]);
+		ClientRequestDto request = new ClientRequestDto(START, START.plusDays(1), null, true);
+		assertThrows(CompletionException.class, () -> client.getStats(request).join());
+		assertThrows(CompletionException.class, () -> client.getStats(request).join());
+
+		CompletionException e = assertThrows(CompletionException.class, () -> client.getStats(request).join());
+
+		assertThat(e).hasCauseInstanceOf(StatsUnavailableException.class);
+		assertThat(requests).hasValue(2);
+		assertThat(client.getInFlightCount()).isZero();
+	}
+
+	private void respond(int status, byte[] body) {
+		this.status = status;
+		this.body = body;
+	}
+}
@@ -0,0 +1,135 @@
+package ru.practicum.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CircuitBreakerTest {
+
+	@Test
+	void call_whenFailuresReachThreshold_thenBreakerOpens() {
+		CircuitBreaker breaker = new CircuitBreaker(3, 60_000);
+
+		fail(breaker);
+		fail(breaker);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		fail(breaker);
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.getFailedCount()).isEqualTo(3);
+	}
+
+	@Test
+	void call_whenSuccessBetweenFailures_thenFailuresAreNotConsecutiveAndBreakerStaysClosed() {
+		CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+
+		fail(breaker);
+		assertThat(breaker.call(() -> "ok")).isEqualTo("ok");
+		fail(breaker);
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void call_whenOpen_thenRejectedWithoutCallingServer() {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60_000);
+		fail(breaker);
+		AtomicInteger calls = new AtomicInteger();
+
+		assertThrows(StatsUnavailableException.class, () -> breaker.call(calls::incrementAndGet));
+		CompletableFuture<Integer> future = breaker.callAsync(() -> CompletableFuture.completedFuture(calls.incrementAndGet()));
+
+		CompletionException e = assertThrows(CompletionException.class, future::join);
+		assertThat(e).hasCauseInstanceOf(StatsUnavailableException.class);
+		assertThat(calls).hasValue(0);
+		assertThat(breaker.getRejectedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void callAsync_whenOpenPeriodPassed_thenSingleTrialIsLetThroughAndSuccessClosesBreaker() {
+		CircuitBreaker breaker = new CircuitBreaker(1, 0);
+		fail(breaker);
+		CompletableFuture<String> trial = new CompletableFuture<>();
+
+		CompletableFuture<String> result = breaker.callAsync(() -> trial);
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThrows(StatsUnavailableException.class, () -> breaker.call(() -> "second"));
+		trial.complete("ok");
+		assertThat(result.join()).isEqualTo("ok");
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(breaker.call(() -> "next")).isEqualTo("next");
+	}
+
+	@Test
+	void callAsync_whenHalfOpenTrialFails_thenBreakerReopens() {
+		CircuitBreaker breaker = new CircuitBreaker(3, 0);
+		fail(breaker);
+		fail(breaker);
+		fail(breaker);
+		CompletableFuture<String> trial = new CompletableFuture<>();
+
+		CompletableFuture<String> result = breaker.callAsync(() -> trial);
+		trial.completeExceptionally(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+		assertThrows(CompletionException.class, result::join);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThat(breaker.getFailedCount()).isEqualTo(4);
+	}
+
+	@Test
+	void call_whenHalfOpenTrialIsRejectedByServer_thenBreakerCloses() {
+		CircuitBreaker breaker = new CircuitBreaker(1, 0);
+		fail(breaker);
+
+		assertThrows(HttpClientErrorException.class, () -> breaker.call(() -> {
+			throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+		}));
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void call_whenClientErrors_thenNotCountedAsFailures() {
+		CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+
+		for (int i = 0; i < 5; i++) {
+			assertThrows(HttpClientErrorException.class, () -> breaker.call(() -> {
+				throw new HttpClientErrorException(HttpStatus.NOT_FOUND);
+			}));
+		}
+		CompletableFuture<Object> async = breaker.callAsync(() ->
+				CompletableFuture.failedFuture(new HttpClientErrorException(HttpStatus.BAD_REQUEST)));
+
+		assertThrows(CompletionException.class, async::join);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(breaker.getFailedCount()).isZero();
+	}
+
+	@Test
+	void callAsync_whenSupplierThrows_thenCountedAsFailureAndReturnedAsFailedFuture() {
+		CircuitBreaker breaker = new CircuitBreaker(1, 60_000);
+
+		CompletableFuture<Object> future = breaker.callAsync(() -> {
+			throw new IllegalStateException("connection refused");
+		});
+
+		CompletionException e = assertThrows(CompletionException.class, future::join);
+		assertThat(e).hasCauseInstanceOf(IllegalStateException.class);
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	private static void fail(CircuitBreaker breaker) {
+		assertThrows(HttpServerErrorException.class, () -> breaker.call(() -> {
+			throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+		}));
+	}
+}
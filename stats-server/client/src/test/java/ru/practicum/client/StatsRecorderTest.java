@@ -0,0 +1,160 @@
+package ru.practicum.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.ClientRequestDto;
+import ru.practicum.dto.StatsRequestDto;
+import ru.practicum.dto.StatsResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsRecorderTest {
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 10, 10, 0);
+
+	private final BlockingClient client = new BlockingClient();
+	private StatsRecorder recorder;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		client.release();
+		recorder.close();
+	}
+
+	@Test
+	void record_whenQueueIsFull_thenHitIsDroppedAndCounted() throws InterruptedException {
+		recorder = new StatsRecorder(client, 2, 10);
+		client.block();
+		assertThat(recorder.record(hit(1))).isTrue();
+		client.awaitSending();
+
+		assertThat(recorder.record(hit(2))).isTrue();
+		assertThat(recorder.record(hit(3))).isTrue();
+		assertThat(recorder.record(hit(4))).isFalse();
+
+		assertThat(recorder.getRecordedCount()).isEqualTo(3);
+		assertThat(recorder.getDroppedCount()).isEqualTo(1);
+		assertThat(recorder.getQueueSize()).isEqualTo(2);
+	}
+
+	@Test
+	void record_whenHitsQueuedWhileSending_thenTheyAreSentInBatchesOfAtMostBatchSize() throws InterruptedException {
+		recorder = new StatsRecorder(client, 100, 3);
+		client.block();
+		recorder.record(hit(1));
+		client.awaitSending();
+		for (int i = 2; i <= 6; i++) {
+			recorder.record(hit(i));
+		}
+
+		client.release();
+		recorder.close();
+
+		assertThat(client.batchSizes).containsExactly(1, 3, 2);
+		assertThat(client.uris()).containsExactly("/events/1", "/events/2", "/events/3", "/events/4", "/events/5",
+				"/events/6");
+		assertThat(recorder.getSentCount()).isEqualTo(6);
+	}
+
+	@Test
+	void record_whenClientFails_thenBatchIsCountedAsFailedAndNextBatchesAreSent() throws InterruptedException {
+		recorder = new StatsRecorder(client, 100, 10);
+		client.block();
+		client.failNext = true;
+		recorder.record(hit(1));
+		client.awaitSending();
+		recorder.record(hit(2));
+		recorder.record(hit(3));
+
+		client.release();
+		recorder.close();
+
+		assertThat(recorder.getFailedCount()).isEqualTo(1);
+		assertThat(recorder.getSentCount()).isEqualTo(2);
+		assertThat(client.uris()).containsExactly("/events/1", "/events/2", "/events/3");
+	}
+
+	@Test
+	void close_whenHitsAreQueued_thenTheyAreSentBeforeCloseReturnsAndLaterHitsAreDropped() throws InterruptedException {
+		recorder = new StatsRecorder(client, 100, 2);
+		client.block();
+		recorder.record(hit(1));
+		client.awaitSending();
+		for (int i = 2; i <= 5; i++) {
+			recorder.record(hit(i));
+		}
+		client.release();
+
+		recorder.close();
+
+		assertThat(recorder.getQueueSize()).isZero();
+		assertThat(recorder.getSentCount()).isEqualTo(5);
+		assertThat(recorder.record(hit(6))).isFalse();
+		assertThat(recorder.getDroppedCount()).isEqualTo(1);
+	}
+
+	private static StatsRequestDto hit(int eventId) {
+		return new StatsRequestDto("ewm-main-service", "/events/" + eventId, "10.0.0.1", NOW);
+	}
+
+	/**
+	 * Holds the sender thread inside {@link #saveStatsBatch} until released, so the test controls what is queued.
+	 */
+	private static class BlockingClient implements Client {
+		private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+		private final List<StatsRequestDto> received = new CopyOnWriteArrayList<>();
+		private final CountDownLatch sending = new CountDownLatch(1);
+		private volatile CountDownLatch released = new CountDownLatch(0);
+		private volatile boolean failNext;
+
+		void block() {
+			released = new CountDownLatch(1);
+		}
+
+		void release() {
+			released.countDown();
+		}
+
+		void awaitSending() throws InterruptedException {
+			assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+		}
+
+		List<String> uris() {
+			List<String> uris = new ArrayList<>();
+			received.forEach(hit -> uris.add(hit.getUri()));
+			return uris;
+		}
+
+		@Override
+		public void saveStatsBatch(List<StatsRequestDto> requestDtos) {
+			batchSizes.add(requestDtos.size());
+			received.addAll(requestDtos);
+			sending.countDown();
+			try {
+				released.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failNext) {
+				failNext = false;
+				throw new StatsUnavailableException("Stats server circuit breaker is open");
+			}
+		}
+
+		@Override
+		public void saveStats(StatsRequestDto requestDto) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public List<StatsResponseDto> getStats(ClientRequestDto requestDto) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
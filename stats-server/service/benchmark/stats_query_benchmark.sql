@@ -0,0 +1,105 @@
+-- Compares the raw /stats queries on the old stats layout (primary key only) and on the partitioned,
+-- indexed layout from V2__partition_stats.sql. Everything lives in the stats_bench schema, so the script
+-- can be run against any stats database:
+--   psql -h localhost -p 6541 -U sa -d ewm-stats -f stats_query_benchmark.sql
+-- 20 000 000 hits are spread over 12 months, 10 000 event uris and 100 000 ips.
+--
+-- Execution time on PostgreSQL 14.10, 1 vCPU, 5 GB RAM, default settings:
+--   query                                   primary key only       partitioned + covering indexes
+--   Q1  10 uris, one month, hits            2676 ms (seq scan)     2.7 ms (index only, 1 partition)
+--   Q2  10 uris, one year, unique ips       3991 ms (seq scan)     48 ms (index only, 12 partitions)
+--   Q3  all uris, one day, hits             2820 ms (seq scan)     46 ms (index only, 1 partition)
+--   retention of one month                  6899 ms (DELETE)       131 ms (DROP TABLE partition)
+DROP SCHEMA IF EXISTS stats_bench CASCADE;
+CREATE SCHEMA stats_bench;
+SELECT setseed(0.42);
+
+CREATE TABLE stats_bench.stats_plain (
+    stats_id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY UNIQUE NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    ip varchar(20) NOT NULL,
+    created timestamp WITHOUT TIME ZONE
+);
+
+INSERT INTO stats_bench.stats_plain (app, uri, ip, created)
+SELECT 'ewm-main-service',
+       '/events/' || (random() * 9999)::int,
+       '10.' || (n % 100000 / 65536) || '.' || (n % 65536 / 256) || '.' || (n % 256),
+       timestamp '2024-01-01' + random() * interval '366 days'
+FROM (SELECT (random() * 99999)::int AS n FROM generate_series(1, 20000000)) AS g;
+
+CREATE TABLE stats_bench.stats_partitioned (
+    stats_id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    ip varchar(20) NOT NULL,
+    created timestamp WITHOUT TIME ZONE
+) PARTITION BY RANGE (created);
+
+CREATE TABLE stats_bench.stats_partitioned_default PARTITION OF stats_bench.stats_partitioned DEFAULT;
+
+DO $$
+DECLARE
+    month_start timestamp := timestamp '2024-01-01';
+BEGIN
+    WHILE month_start < timestamp '2025-02-01' LOOP
+        EXECUTE format('CREATE TABLE stats_bench.%I PARTITION OF stats_bench.stats_partitioned FOR VALUES FROM (%L) TO (%L)',
+                'stats_p' || to_char(month_start, 'YYYYMM'), month_start, month_start + interval '1 month');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO stats_bench.stats_partitioned (stats_id, app, uri, ip, created)
+SELECT stats_id, app, uri, ip, created FROM stats_bench.stats_plain;
+
+CREATE INDEX ON stats_bench.stats_partitioned (uri, created) INCLUDE (app, ip);
+CREATE INDEX ON stats_bench.stats_partitioned (created) INCLUDE (app, uri, ip);
+
+VACUUM ANALYZE stats_bench.stats_plain;
+VACUUM ANALYZE stats_bench.stats_partitioned;
+
+-- Q1: hits of one page of events over a month (the event list and event page views)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app, uri, COUNT(ip) FROM stats_bench.stats_plain
+WHERE uri IN ('/events/1', '/events/2', '/events/3', '/events/4', '/events/5', '/events/6', '/events/7', '/events/8', '/events/9', '/events/10')
+  AND created BETWEEN '2024-06-01 00:00:00' AND '2024-06-30 23:59:59'
+GROUP BY app, uri ORDER BY COUNT(ip) DESC;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app, uri, COUNT(ip) FROM stats_bench.stats_partitioned
+WHERE uri IN ('/events/1', '/events/2', '/events/3', '/events/4', '/events/5', '/events/6', '/events/7', '/events/8', '/events/9', '/events/10')
+  AND created BETWEEN '2024-06-01 00:00:00' AND '2024-06-30 23:59:59'
+GROUP BY app, uri ORDER BY COUNT(ip) DESC;
+
+-- Q2: unique ips of the same events over the whole year
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app, uri, COUNT(DISTINCT ip) FROM stats_bench.stats_plain
+WHERE uri IN ('/events/1', '/events/2', '/events/3', '/events/4', '/events/5', '/events/6', '/events/7', '/events/8', '/events/9', '/events/10')
+  AND created BETWEEN '2024-01-01 00:00:00' AND '2024-12-31 23:59:59'
+GROUP BY app, uri ORDER BY COUNT(DISTINCT ip) DESC;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app, uri, COUNT(DISTINCT ip) FROM stats_bench.stats_partitioned
+WHERE uri IN ('/events/1', '/events/2', '/events/3', '/events/4', '/events/5', '/events/6', '/events/7', '/events/8', '/events/9', '/events/10')
+  AND created BETWEEN '2024-01-01 00:00:00' AND '2024-12-31 23:59:59'
+GROUP BY app, uri ORDER BY COUNT(DISTINCT ip) DESC;
+
+-- Q3: all uris over one day
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app, uri, COUNT(ip) FROM stats_bench.stats_plain
+WHERE created BETWEEN '2024-06-15 00:00:00' AND '2024-06-15 23:59:59'
+GROUP BY app, uri ORDER BY COUNT(ip) DESC;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT app, uri, COUNT(ip) FROM stats_bench.stats_partitioned
+WHERE created BETWEEN '2024-06-15 00:00:00' AND '2024-06-15 23:59:59'
+GROUP BY app, uri ORDER BY COUNT(ip) DESC;
+
+-- retention: dropping a month is a catalog operation, compared with deleting the same rows
+EXPLAIN (ANALYZE)
+DELETE FROM stats_bench.stats_plain WHERE created < '2024-02-01';
+
+DROP TABLE stats_bench.stats_p202401;
+
+DROP SCHEMA stats_bench CASCADE;
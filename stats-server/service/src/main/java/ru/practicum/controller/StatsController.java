@@ -1,38 +1,105 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.codec.EventHitsCodec;
+import ru.practicum.dto.EventHitsDto;
+import ru.practicum.dto.EventStatsRequestDto;
+import ru.practicum.dto.StatsBatchResponseDto;
 import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.StatsResponseDto;
+import ru.practicum.enums.UniqueMode;
 import ru.practicum.exception.IncorrectDateException;
+import ru.practicum.exception.IncorrectParameterException;
 import ru.practicum.service.StatsService;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
+@Validated
 @RequiredArgsConstructor
 public class StatsController {
 
 	private final StatsService statsService;
+	private final ObjectMapper objectMapper;
+	private final Validator validator;
+
+	@Value("${stats.ingest.batch-size:500}")
+	private int streamBatchSize;
 
 	@PostMapping("/hit")
 	@ResponseStatus(HttpStatus.CREATED)
-	public void saveStats(@RequestBody StatsRequestDto request) {
+	public void saveStats(@RequestBody @Valid StatsRequestDto request) {
 		log.info("Saving statistics: {}", request);
 		statsService.saveStats(request);
 	}
 
+	@PostMapping(value = "/hits", consumes = MediaType.APPLICATION_JSON_VALUE)
+	@ResponseStatus(HttpStatus.CREATED)
+	public StatsBatchResponseDto saveStatsBatch(@RequestBody List<@Valid StatsRequestDto> requests) {
+		log.info("Saving batch of {} hits", requests.size());
+		statsService.saveStatsBatch(requests);
+		return new StatsBatchResponseDto(requests.size());
+	}
+
+	@PostMapping(value = "/hits", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@ResponseStatus(HttpStatus.CREATED)
+	public StatsBatchResponseDto saveStatsStream(HttpServletRequest request) throws IOException {
+		long saved = 0;
+		try (MappingIterator<StatsRequestDto> hits = objectMapper.readerFor(StatsRequestDto.class)
+				.readValues(request.getInputStream())) {
+			List<StatsRequestDto> batch = new ArrayList<>(streamBatchSize);
+			while (hits.hasNextValue()) {
+				StatsRequestDto hit = hits.nextValue();
+				// a bad hit is rejected here instead of failing the database batch it would be written with
+				Set<ConstraintViolation<StatsRequestDto>> violations = validator.validate(hit);
+				if (!violations.isEmpty()) {
+					throw new ConstraintViolationException("Hit " + (saved + batch.size() + 1) + " of the stream is invalid: " +
+							violations.stream()
+									.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+									.collect(Collectors.joining(", ")), violations);
+				}
+				batch.add(hit);
+				if (batch.size() == streamBatchSize) {
+					statsService.saveStatsBatch(batch);
+					saved += batch.size();
+					batch = new ArrayList<>(streamBatchSize);
+				}
+			}
+			if (!batch.isEmpty()) {
+				statsService.saveStatsBatch(batch);
+				saved += batch.size();
+			}
+		}
+		log.info("Saved stream of {} hits", saved);
+		return new StatsBatchResponseDto(saved);
+	}
+
 	@GetMapping("/stats")
 	@ResponseStatus(HttpStatus.OK)
 	public List<StatsResponseDto> getStats(@RequestParam String start,
 	                                       @RequestParam String end,
 	                                       @RequestParam(required = false) List<String> uris,
-	                                       @RequestParam(defaultValue = "false") Boolean unique) {
+	                                       @RequestParam(defaultValue = "false") String unique) {
 		log.info("Getting statistics: from {} to {}, for uris {}, unique = {}", start, end, uris, unique);
 		LocalDateTime startLocalDateTime = LocalDateTime.parse(start, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
 		LocalDateTime endLocalDateTime = LocalDateTime.parse(end, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
@@ -41,8 +108,36 @@ public class StatsController {
 			log.info("Incorrect time interval for getStats: from {} to {}", start, end);
 			throw new IncorrectDateException("End date should be after start date.");
 		}
-		List<StatsResponseDto> stats = statsService.getStats(startLocalDateTime, endLocalDateTime, uris, unique);
+		UniqueMode uniqueMode = UniqueMode.getMode(unique)
+				.orElseThrow(() -> new IncorrectParameterException("Unknown unique mode: " + unique + ". Use true, false or approx."));
+		List<StatsResponseDto> stats = statsService.getStats(startLocalDateTime, endLocalDateTime, uris, uniqueMode);
 		log.info("Statistics processing finished:  {}", stats);
 		return stats;
 	}
+
+	@PostMapping(value = "/stats/events", consumes = MediaType.APPLICATION_JSON_VALUE,
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	public List<EventHitsDto> getEventStats(@RequestBody EventStatsRequestDto request) {
+		return getEventHits(request);
+	}
+
+	@PostMapping(value = "/stats/events", consumes = MediaType.APPLICATION_JSON_VALUE,
+			produces = EventHitsCodec.MEDIA_TYPE)
+	public byte[] getEventStatsBinary(@RequestBody EventStatsRequestDto request) {
+		return EventHitsCodec.encode(getEventHits(request));
+	}
+
+	private List<EventHitsDto> getEventHits(EventStatsRequestDto request) {
+		if (request.getStart() == null || request.getEnd() == null || request.getEventIds() == null) {
+			throw new IncorrectParameterException("start, end and eventIds are required.");
+		}
+		if (request.getEnd().isBefore(request.getStart())) {
+			log.info("Incorrect time interval for getEventStats: from {} to {}", request.getStart(), request.getEnd());
+			throw new IncorrectDateException("End date should be after start date.");
+		}
+		log.info("Getting statistics of {} events: from {} to {}, unique = {}", request.getEventIds().size(),
+				request.getStart(), request.getEnd(), request.isUnique());
+		return statsService.getEventHits(request.getStart(), request.getEnd(), request.getEventIds(),
+				request.isUnique() ? UniqueMode.EXACT : UniqueMode.ALL);
+	}
 }
@@ -0,0 +1,27 @@
+package ru.practicum.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+	MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+	private final ChronoUnit unit;
+
+	RollupGranularity(ChronoUnit unit) {
+		this.unit = unit;
+	}
+
+	public LocalDateTime floor(LocalDateTime dateTime) {
+		return dateTime.truncatedTo(unit);
+	}
+
+	public LocalDateTime ceil(LocalDateTime dateTime) {
+		LocalDateTime floor = floor(dateTime);
+		return floor.equals(dateTime) ? floor : floor.plus(1, unit);
+	}
+
+	public String getSqlUnit() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,22 @@
+package ru.practicum.enums;
+
+import java.util.Optional;
+
+public enum UniqueMode {
+	ALL("false"), EXACT("true"), APPROX("approx");
+
+	private final String parameter;
+
+	UniqueMode(String parameter) {
+		this.parameter = parameter;
+	}
+
+	public static Optional<UniqueMode> getMode(String stringMode) {
+		for (UniqueMode mode : values()) {
+			if (mode.parameter.equalsIgnoreCase(stringMode)) {
+				return Optional.of(mode);
+			}
+		}
+		return Optional.empty();
+	}
+}
@@ -2,12 +2,15 @@ package ru.practicum.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.model.ErrorResponse;
 
+import javax.validation.ConstraintViolationException;
+
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -21,6 +24,12 @@ public class ErrorHandler {
 		return new ErrorResponse(e.getMessage());
 	}
 
+	@ExceptionHandler()
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponse handleValidationException(final IncorrectParameterException e) {
+		return new ErrorResponse(e.getMessage());
+	}
+
 	@ExceptionHandler()
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ErrorResponse handleValidationException(final MissingServletRequestParameterException e) {
@@ -29,6 +38,28 @@ public class ErrorHandler {
 		return new ErrorResponse(message);
 	}
 
+	@ExceptionHandler()
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponse handleValidationException(final MethodArgumentNotValidException e) {
+		String message = e.getBindingResult().getFieldErrors().stream()
+				.map(error -> error.getField() + " " + error.getDefaultMessage())
+				.collect(Collectors.joining(", "));
+		return new ErrorResponse(message);
+	}
+
+	@ExceptionHandler()
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ErrorResponse handleValidationException(final ConstraintViolationException e) {
+		return new ErrorResponse(e.getMessage());
+	}
+
+	@ExceptionHandler()
+	@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+	public ErrorResponse handleOverload(final IngestionOverloadException e) {
+		log.warn("Stats ingestion overloaded: {}", e.getMessage());
+		return new ErrorResponse(e.getMessage());
+	}
+
 	@ExceptionHandler()
 	@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
 	public ErrorResponse handler(final Exception e) {
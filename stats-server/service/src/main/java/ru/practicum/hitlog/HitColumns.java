@@ -0,0 +1,98 @@
+package ru.practicum.hitlog;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Growable columns of hits in memory: the tail that is not flushed yet and the input of a segment write.
+ */
+class HitColumns {
+	private long[] times;
+	private int[] apps;
+	private int[] uris;
+	private long[] ips;
+	private int size;
+
+	HitColumns(int capacity) {
+		int initial = Math.max(capacity, 16);
+		times = new long[initial];
+		apps = new int[initial];
+		uris = new int[initial];
+		ips = new long[initial];
+	}
+
+	void add(long time, int app, int uri, long ip) {
+		if (size == times.length) {
+			int capacity = size * 2;
+			times = Arrays.copyOf(times, capacity);
+			apps = Arrays.copyOf(apps, capacity);
+			uris = Arrays.copyOf(uris, capacity);
+			ips = Arrays.copyOf(ips, capacity);
+		}
+		times[size] = time;
+		apps[size] = app;
+		uris[size] = uri;
+		ips[size] = ip;
+		size++;
+	}
+
+	void addAll(HitColumns other) {
+		for (int i = 0; i < other.size; i++) {
+			add(other.times[i], other.apps[i], other.uris[i], other.ips[i]);
+		}
+	}
+
+	void scan(long from, long to, HitVisitor visitor) {
+		for (int i = 0; i < size; i++) {
+			if (times[i] >= from && times[i] <= to) {
+				visitor.visit(apps[i], uris[i], ips[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return hits ordered by time, hits with equal times keep their order; this instance if it is ordered already
+	 */
+	HitColumns sortedByTime() {
+		boolean sorted = true;
+		for (int i = 1; i < size && sorted; i++) {
+			sorted = times[i - 1] <= times[i];
+		}
+		if (sorted) {
+			return this;
+		}
+		int[] order = IntStream.range(0, size).boxed()
+				.sorted((a, b) -> Long.compare(times[a], times[b]))
+				.mapToInt(Integer::intValue)
+				.toArray();
+		HitColumns copy = new HitColumns(size);
+		for (int i : order) {
+			copy.add(times[i], apps[i], uris[i], ips[i]);
+		}
+		return copy;
+	}
+
+	long time(int i) {
+		return times[i];
+	}
+
+	int app(int i) {
+		return apps[i];
+	}
+
+	int uri(int i) {
+		return uris[i];
+	}
+
+	long ip(int i) {
+		return ips[i];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+}
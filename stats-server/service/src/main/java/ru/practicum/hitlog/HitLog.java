@@ -0,0 +1,434 @@
+package ru.practicum.hitlog;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.enums.UniqueMode;
+import ru.practicum.model.Stats;
+import ru.practicum.model.UriHits;
+import ru.practicum.repo.StatsDictionaryRepository;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Embedded append-only store of hits. Hits are collected in memory and flushed into immutable columnar segments,
+ * one per time window and flush; compaction merges the segments of a window into one. App names, uris and IPv6
+ * addresses are dictionary-encoded in files next to the segments.
+ * <p>
+ * Readers take a snapshot of the segment list and the unflushed tail together, so a hit that is being flushed or
+ * compacted is counted exactly once. Times are the local date-times of the hits as UTC epoch millis.
+ */
+@Slf4j
+public class HitLog implements Closeable {
+	static final int MAX_SEGMENT_HITS = 50_000_000;
+	private static final long NO_IP = -1;
+	private static final long IP_DICTIONARY_BASE = 1L << 32;
+
+	private final Path directory;
+	private final long windowMillis;
+	private final int flushSize;
+	private final int compactionThreshold;
+	private final HitLogDictionary apps;
+	private final HitLogDictionary uris;
+	private final HitLogDictionary ips;
+	private final Map<Long, Integer> uriIdsByEvent = new ConcurrentHashMap<>();
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final Object tailLock = new Object();
+	private long nextSequence;
+	private HitColumns tail;
+	private volatile State state;
+
+	public HitLog(Path directory, Duration window, int flushSize, int compactionThreshold) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.windowMillis = window.toMillis();
+		this.flushSize = flushSize;
+		this.compactionThreshold = compactionThreshold;
+		this.apps = new HitLogDictionary(directory.resolve("apps.dict"));
+		this.uris = new HitLogDictionary(directory.resolve("uris.dict"));
+		this.ips = new HitLogDictionary(directory.resolve("ips.dict"));
+		for (int id = 0; id < uris.size(); id++) {
+			indexEvent(uris.get(id), id);
+		}
+		this.tail = new HitColumns(flushSize);
+		this.state = new State(openSegments(), null);
+		this.nextSequence = state.segments.stream().mapToLong(HitLogSegment::getSequence).max().orElse(0) + 1;
+		log.info("Opened hit log in {}: {} segments, {} apps, {} uris", directory, state.segments.size(), apps.size(), uris.size());
+	}
+
+	/**
+	 * Adds hits to the unflushed tail and flushes it once it holds flush-size hits. Hits without a time are dropped,
+	 * as they never fall into a queried range.
+	 */
+	public void append(List<Stats> hits) throws IOException {
+		HitColumns encoded = new HitColumns(hits.size());
+		for (Stats hit : hits) {
+			if (hit.getCreated() == null) {
+				continue;
+			}
+			int uriId = uris.getOrAdd(hit.getUri());
+			indexEvent(hit.getUri(), uriId);
+			encoded.add(toMillis(hit.getCreated()), apps.getOrAdd(hit.getApp()), uriId, encodeIp(hit.getIp()));
+		}
+		boolean full;
+		synchronized (tailLock) {
+			tail.addAll(encoded);
+			full = tail.size() >= flushSize;
+		}
+		if (full) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes the unflushed tail into one segment per time window.
+	 */
+	public void flush() throws IOException {
+		writeLock.lock();
+		try {
+			HitColumns flushing;
+			synchronized (tailLock) {
+				if (tail.isEmpty()) {
+					return;
+				}
+				flushing = tail;
+				tail = new HitColumns(flushSize);
+				state = new State(state.segments, flushing);
+			}
+			List<HitLogSegment> written = new ArrayList<>();
+			try {
+				syncDictionaries();
+				for (HitColumns window : splitByWindow(flushing.sortedByTime())) {
+					written.add(HitLogSegment.write(directory, nextSequence++, windowStart(window.time(0)), window, List.of()));
+				}
+			} catch (IOException | RuntimeException e) {
+				// the hits go back to the tail, so they are neither lost nor counted twice
+				written.forEach(segment -> delete(segment.getFile()));
+				synchronized (tailLock) {
+					HitColumns restored = new HitColumns(flushing.size() + tail.size());
+					restored.addAll(flushing);
+					restored.addAll(tail);
+					tail = restored;
+					state = new State(state.segments, null);
+				}
+				throw e;
+			}
+			List<HitLogSegment> segments = new ArrayList<>(state.segments);
+			segments.addAll(written);
+			state = new State(segments, null);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Merges the segments of a window into one when the window has compaction-threshold segments or, once it is over,
+	 * more than one.
+	 *
+	 * @return the number of segments that were merged away
+	 */
+	public int compact(LocalDateTime now) throws IOException {
+		long currentWindow = windowStart(toMillis(now));
+		int merged = 0;
+		writeLock.lock();
+		try {
+			Map<Long, List<HitLogSegment>> windows = state.segments.stream()
+					.collect(Collectors.groupingBy(HitLogSegment::getWindowStart, TreeMap::new, Collectors.toList()));
+			for (Map.Entry<Long, List<HitLogSegment>> window : windows.entrySet()) {
+				List<HitLogSegment> inputs = selectForCompaction(window.getValue());
+				boolean due = window.getKey() < currentWindow ? inputs.size() > 1 : inputs.size() >= compactionThreshold;
+				if (due) {
+					compactWindow(window.getKey(), inputs);
+					merged += inputs.size() - 1;
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+		return merged;
+	}
+
+	/**
+	 * Counts hits with start &lt;= time &lt;= end per app and uri, ordered by the count descending.
+	 *
+	 * @param uriIds uris to count, null for all
+	 */
+	public List<UriHits> aggregate(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds, UniqueMode unique) {
+		long from = toMillis(start);
+		long to = toMillis(end);
+		BitSet uriFilter = null;
+		if (uriIds != null) {
+			uriFilter = new BitSet();
+			uriIds.forEach(uriFilter::set);
+		}
+		Aggregation aggregation = new Aggregation(unique, uriFilter);
+		State snapshot;
+		synchronized (tailLock) {
+			snapshot = state;
+			tail.scan(from, to, aggregation);
+		}
+		if (snapshot.flushing != null) {
+			snapshot.flushing.scan(from, to, aggregation);
+		}
+		for (HitLogSegment segment : snapshot.segments) {
+			segment.scan(from, to, aggregation);
+		}
+		return aggregation.result();
+	}
+
+	public String getApp(int id) {
+		return apps.get(id);
+	}
+
+	public String getUri(int id) {
+		return uris.get(id);
+	}
+
+	/**
+	 * @return ids of the uris that were ever hit, unknown uris are left out
+	 */
+	public Map<String, Integer> findUriIds(Collection<String> names) {
+		Map<String, Integer> ids = new HashMap<>();
+		for (String name : names) {
+			Integer id = uris.find(name);
+			if (id != null) {
+				ids.put(name, id);
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * @return event ids by the ids of the uris of these events
+	 */
+	public Map<Integer, Long> findEventUriIds(Collection<Long> eventIds) {
+		Map<Integer, Long> events = new HashMap<>();
+		for (Long eventId : eventIds) {
+			Integer uriId = uriIdsByEvent.get(eventId);
+			if (uriId != null) {
+				events.put(uriId, eventId);
+			}
+		}
+		return events;
+	}
+
+	public int getSegmentCount() {
+		return state.segments.size();
+	}
+
+	public int getUnflushedCount() {
+		synchronized (tailLock) {
+			return tail.size();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			apps.close();
+			uris.close();
+			ips.close();
+		}
+	}
+
+	private void compactWindow(long windowStart, List<HitLogSegment> inputs) throws IOException {
+		HitColumns hits = new HitColumns(inputs.stream().mapToInt(HitLogSegment::getCount).sum());
+		for (HitLogSegment input : inputs) {
+			hits.addAll(input.read());
+		}
+		List<Long> sources = inputs.stream().map(HitLogSegment::getSequence).collect(Collectors.toList());
+		HitLogSegment output = HitLogSegment.write(directory, nextSequence++, windowStart, hits.sortedByTime(), sources);
+
+		List<HitLogSegment> segments = new ArrayList<>(state.segments);
+		segments.removeAll(inputs);
+		segments.add(output);
+		state = new State(segments, state.flushing);
+		// readers of the previous snapshot keep their mappings, the files are only unlinked
+		inputs.forEach(input -> delete(input.getFile()));
+		log.debug("Compacted {} segments of window {} into {}", inputs.size(), windowStart, output.getFile());
+	}
+
+	private static List<HitLogSegment> selectForCompaction(List<HitLogSegment> window) {
+		List<HitLogSegment> selected = new ArrayList<>();
+		long hits = 0;
+		for (HitLogSegment segment : window) {
+			if (hits + segment.getCount() > MAX_SEGMENT_HITS) {
+				continue;
+			}
+			hits += segment.getCount();
+			selected.add(segment);
+		}
+		return selected;
+	}
+
+	private List<HitLogSegment> openSegments() throws IOException {
+		List<Path> files;
+		try (Stream<Path> listing = Files.list(directory)) {
+			files = listing.collect(Collectors.toList());
+		}
+		List<HitLogSegment> segments = new ArrayList<>();
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			if (name.endsWith(".tmp")) {
+				// an interrupted flush or compaction
+				Files.delete(file);
+			} else if (name.endsWith(HitLogSegment.EXTENSION)) {
+				segments.add(HitLogSegment.open(file));
+			}
+		}
+		// a compaction that was interrupted after its output was moved into place left its inputs behind
+		Set<Long> compacted = segments.stream()
+				.flatMapToLong(segment -> Arrays.stream(segment.getSources()))
+				.boxed()
+				.collect(Collectors.toSet());
+		List<HitLogSegment> live = new ArrayList<>();
+		for (HitLogSegment segment : segments) {
+			if (compacted.contains(segment.getSequence())) {
+				delete(segment.getFile());
+			} else {
+				live.add(segment);
+			}
+		}
+		live.sort(Comparator.comparingLong(HitLogSegment::getSequence));
+		return live;
+	}
+
+	private List<HitColumns> splitByWindow(HitColumns sorted) {
+		List<HitColumns> windows = new ArrayList<>();
+		HitColumns window = null;
+		long currentWindow = 0;
+		for (int i = 0; i < sorted.size(); i++) {
+			long start = windowStart(sorted.time(i));
+			if (window == null || start != currentWindow) {
+				window = new HitColumns(16);
+				windows.add(window);
+				currentWindow = start;
+			}
+			window.add(sorted.time(i), sorted.app(i), sorted.uri(i), sorted.ip(i));
+		}
+		return windows;
+	}
+
+	private long windowStart(long millis) {
+		return Math.floorDiv(millis, windowMillis) * windowMillis;
+	}
+
+	private void syncDictionaries() throws IOException {
+		apps.sync();
+		uris.sync();
+		ips.sync();
+	}
+
+	private void indexEvent(String uri, int uriId) {
+		Long eventId = StatsDictionaryRepository.parseEventId(uri);
+		if (eventId != null) {
+			uriIdsByEvent.putIfAbsent(eventId, uriId);
+		}
+	}
+
+	private long encodeIp(String ip) throws IOException {
+		if (ip == null) {
+			return NO_IP;
+		}
+		if (ip.indexOf(':') >= 0) {
+			return IP_DICTIONARY_BASE + ips.getOrAdd(ip);
+		}
+		long address = 0;
+		for (String octet : ip.split("\\.")) {
+			address = address << 8 | Integer.parseInt(octet);
+		}
+		return address;
+	}
+
+	private static long toMillis(LocalDateTime dateTime) {
+		return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Could not delete hit log file {}: {}", file, e.getMessage());
+		}
+	}
+
+	private static class State {
+		private final List<HitLogSegment> segments;
+		private final HitColumns flushing;
+
+		State(List<HitLogSegment> segments, HitColumns flushing) {
+			this.segments = List.copyOf(segments);
+			this.flushing = flushing;
+		}
+	}
+
+	private static class Aggregation implements HitVisitor {
+		private final UniqueMode unique;
+		private final BitSet uriFilter;
+		private final Map<Long, long[]> hits = new HashMap<>();
+		private final Map<Long, Set<Long>> ips = new HashMap<>();
+		private final Map<Long, HyperLogLog> sketches = new HashMap<>();
+
+		Aggregation(UniqueMode unique, BitSet uriFilter) {
+			this.unique = unique;
+			this.uriFilter = uriFilter;
+		}
+
+		@Override
+		public void visit(int app, int uri, long ip) {
+			if (uriFilter != null && !uriFilter.get(uri)) {
+				return;
+			}
+			long key = (long) app << 32 | uri;
+			switch (unique) {
+				case EXACT:
+					Set<Long> uriIps = ips.computeIfAbsent(key, k -> new HashSet<>());
+					if (ip != NO_IP) {
+						uriIps.add(ip);
+					}
+					break;
+				case APPROX:
+					HyperLogLog sketch = sketches.computeIfAbsent(key, k -> new HyperLogLog());
+					if (ip != NO_IP) {
+						sketch.addHash(HyperLogLog.hash(ip));
+					}
+					break;
+				case ALL:
+				default:
+					hits.computeIfAbsent(key, k -> new long[1])[0]++;
+			}
+		}
+
+		List<UriHits> result() {
+			Stream<UriHits> result;
+			switch (unique) {
+				case EXACT:
+					result = ips.entrySet().stream().map(entry -> toUriHits(entry.getKey(), entry.getValue().size()));
+					break;
+				case APPROX:
+					result = sketches.entrySet().stream().map(entry -> toUriHits(entry.getKey(), entry.getValue().estimate()));
+					break;
+				case ALL:
+				default:
+					result = hits.entrySet().stream().map(entry -> toUriHits(entry.getKey(), entry.getValue()[0]));
+			}
+			return result.sorted(Comparator.comparingLong(UriHits::getHits).reversed())
+					.collect(Collectors.toList());
+		}
+
+		private static UriHits toUriHits(long key, long hits) {
+			return new UriHits((int) (key >>> 32), (int) key, hits);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package ru.practicum.hitlog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file of names, the id of a name is its position in the file. Each entry is a two-byte length followed
+ * by the UTF-8 bytes. A torn entry at the end, left by a crash during an append, is cut off when the file is opened.
+ */
+class HitLogDictionary implements Closeable {
+	private static final int MAX_NAME_BYTES = 0xFFFF;
+
+	private final FileChannel channel;
+	private final Map<String, Integer> ids = new HashMap<>();
+	private final List<String> names = new ArrayList<>();
+	private boolean dirty;
+
+	HitLogDictionary(Path file) throws IOException {
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+		while (content.remaining() >= Short.BYTES) {
+			int length = Short.toUnsignedInt(content.getShort(content.position()));
+			if (content.remaining() < Short.BYTES + length) {
+				break;
+			}
+			content.position(content.position() + Short.BYTES);
+			byte[] bytes = new byte[length];
+			content.get(bytes);
+			String name = new String(bytes, StandardCharsets.UTF_8);
+			ids.put(name, names.size());
+			names.add(name);
+		}
+		channel.truncate(content.position());
+		channel.position(content.position());
+	}
+
+	synchronized int getOrAdd(String name) throws IOException {
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > MAX_NAME_BYTES) {
+			throw new IllegalArgumentException("Name is longer than " + MAX_NAME_BYTES + " bytes: " + name.substring(0, 100));
+		}
+		ByteBuffer entry = ByteBuffer.allocate(Short.BYTES + bytes.length);
+		entry.putShort((short) bytes.length).put(bytes).flip();
+		while (entry.hasRemaining()) {
+			channel.write(entry);
+		}
+		dirty = true;
+		id = names.size();
+		ids.put(name, id);
+		names.add(name);
+		return id;
+	}
+
+	synchronized Integer find(String name) {
+		return ids.get(name);
+	}
+
+	synchronized String get(int id) {
+		return names.get(id);
+	}
+
+	synchronized int size() {
+		return names.size();
+	}
+
+	/**
+	 * Makes the names added so far durable. Called before a segment that refers to them is published.
+	 */
+	synchronized void sync() throws IOException {
+		if (dirty) {
+			channel.force(false);
+			dirty = false;
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		sync();
+		channel.close();
+	}
+}
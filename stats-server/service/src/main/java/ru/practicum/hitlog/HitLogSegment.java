@@ -0,0 +1,219 @@
+package ru.practicum.hitlog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Immutable file with the hits of one time window, read through a memory mapping. Layout:
+ * <pre>
+ * header   magic, version, hit count, source count (ints), window start, min time, max time (longs)
+ * sources  sequence numbers of the segments this one was compacted from (longs)
+ * apps     app dictionary ids (ints)
+ * uris     uri dictionary ids (ints)
+ * ips      IPv4 as an unsigned int, other addresses as 2^32 + dictionary id, -1 for none (longs)
+ * times    epoch millis ordered ascending, as unsigned LEB128 varints of the difference to the previous time
+ * </pre>
+ * The fixed-width columns are scanned without touching the times when the whole window is inside the queried range.
+ */
+class HitLogSegment {
+	static final String EXTENSION = ".seg";
+	private static final int MAGIC = 0x45574d48;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 4 * Integer.BYTES + 3 * Long.BYTES;
+
+	private final Path file;
+	private final long sequence;
+	private final long windowStart;
+	private final int count;
+	private final long minTime;
+	private final long maxTime;
+	private final long[] sources;
+	private final MappedByteBuffer buffer;
+	private final int appsOffset;
+	private final int urisOffset;
+	private final int ipsOffset;
+	private final int timesOffset;
+
+	private HitLogSegment(Path file, long sequence, MappedByteBuffer buffer) throws IOException {
+		this.file = file;
+		this.sequence = sequence;
+		this.buffer = buffer;
+		if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a hit log segment: " + file);
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported hit log segment version " + buffer.getInt(4) + ": " + file);
+		}
+		count = buffer.getInt(8);
+		sources = new long[buffer.getInt(12)];
+		windowStart = buffer.getLong(16);
+		minTime = buffer.getLong(24);
+		maxTime = buffer.getLong(32);
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = buffer.getLong(HEADER_BYTES + i * Long.BYTES);
+		}
+		appsOffset = HEADER_BYTES + sources.length * Long.BYTES;
+		urisOffset = appsOffset + count * Integer.BYTES;
+		ipsOffset = urisOffset + count * Integer.BYTES;
+		timesOffset = ipsOffset + count * Long.BYTES;
+		if (buffer.capacity() < timesOffset + count) {
+			throw new IOException("Truncated hit log segment: " + file);
+		}
+	}
+
+	static HitLogSegment open(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return new HitLogSegment(file, parseSequence(file), channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Writes hits ordered by time to a temporary file and moves it into place, so a segment is either complete or absent.
+	 */
+	static HitLogSegment write(Path directory, long sequence, long windowStart, HitColumns hits, List<Long> sources)
+			throws IOException {
+		int count = hits.size();
+		ByteBuffer times = ByteBuffer.allocate(count * 10);
+		long previous = hits.time(0);
+		for (int i = 0; i < count; i++) {
+			writeVarint(times, hits.time(i) - previous);
+			previous = hits.time(i);
+		}
+		times.flip();
+
+		int fixedBytes = HEADER_BYTES + sources.size() * Long.BYTES + count * (2 * Integer.BYTES + Long.BYTES);
+		ByteBuffer content = ByteBuffer.allocate(fixedBytes + times.remaining());
+		content.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(sources.size())
+				.putLong(windowStart).putLong(hits.time(0)).putLong(hits.time(count - 1));
+		sources.forEach(content::putLong);
+		for (int i = 0; i < count; i++) {
+			content.putInt(hits.app(i));
+		}
+		for (int i = 0; i < count; i++) {
+			content.putInt(hits.uri(i));
+		}
+		for (int i = 0; i < count; i++) {
+			content.putLong(hits.ip(i));
+		}
+		content.put(times).flip();
+
+		Path file = directory.resolve(windowStart + "-" + sequence + EXTENSION);
+		Path temporary = directory.resolve(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			while (content.hasRemaining()) {
+				channel.write(content);
+			}
+			channel.force(false);
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+		return open(file);
+	}
+
+	/**
+	 * Passes the hits with from &lt;= time &lt;= to to the visitor.
+	 */
+	void scan(long from, long to, HitVisitor visitor) {
+		if (maxTime < from || minTime > to) {
+			return;
+		}
+		if (minTime >= from && maxTime <= to) {
+			scan(0, count, visitor);
+			return;
+		}
+		// times are ordered, so the matching hits are one run found by decoding the times up to its end
+		TimeCursor times = new TimeCursor();
+		int first = -1;
+		int end = count;
+		for (int i = 0; i < count; i++) {
+			long time = times.next();
+			if (time > to) {
+				end = i;
+				break;
+			}
+			if (first < 0 && time >= from) {
+				first = i;
+			}
+		}
+		if (first >= 0) {
+			scan(first, end, visitor);
+		}
+	}
+
+	/**
+	 * @return all hits of the segment, ordered by time
+	 */
+	HitColumns read() {
+		HitColumns hits = new HitColumns(count);
+		TimeCursor times = new TimeCursor();
+		for (int i = 0; i < count; i++) {
+			hits.add(times.next(), buffer.getInt(appsOffset + i * Integer.BYTES), buffer.getInt(urisOffset + i * Integer.BYTES),
+					buffer.getLong(ipsOffset + i * Long.BYTES));
+		}
+		return hits;
+	}
+
+	Path getFile() {
+		return file;
+	}
+
+	long getSequence() {
+		return sequence;
+	}
+
+	long getWindowStart() {
+		return windowStart;
+	}
+
+	int getCount() {
+		return count;
+	}
+
+	long[] getSources() {
+		return sources.clone();
+	}
+
+	static long parseSequence(Path file) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(name.lastIndexOf('-') + 1, name.length() - EXTENSION.length()));
+	}
+
+	private void scan(int from, int to, HitVisitor visitor) {
+		for (int i = from; i < to; i++) {
+			visitor.visit(buffer.getInt(appsOffset + i * Integer.BYTES), buffer.getInt(urisOffset + i * Integer.BYTES),
+					buffer.getLong(ipsOffset + i * Long.BYTES));
+		}
+	}
+
+	private class TimeCursor {
+		private int position = timesOffset;
+		private long time = minTime;
+
+		long next() {
+			long delta = 0;
+			for (int shift = 0; ; shift += 7) {
+				byte b = buffer.get(position++);
+				delta |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					break;
+				}
+			}
+			time += delta;
+			return time;
+		}
+	}
+
+	private static void writeVarint(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+}
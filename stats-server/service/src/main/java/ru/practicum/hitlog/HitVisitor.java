@@ -0,0 +1,6 @@
+package ru.practicum.hitlog;
+
+@FunctionalInterface
+interface HitVisitor {
+	void visit(int app, int uri, long ip);
+}
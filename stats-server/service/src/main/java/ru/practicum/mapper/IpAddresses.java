@@ -0,0 +1,41 @@
+package ru.practicum.mapper;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes IP literals before they are stored as inet. Host names are never resolved: anything that is not an
+ * IPv4 dotted quad or an IPv6 literal is treated as invalid.
+ */
+public final class IpAddresses {
+	private static final Pattern IPV4 = Pattern.compile(
+			"((25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)\\.){3}(25[0-5]|2[0-4]\\d|1\\d\\d|[1-9]?\\d)");
+	// starts with a hex digit or a colon, the only literals InetAddress parses without falling back to a lookup
+	private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F]*:[0-9a-fA-F:.]*");
+
+	private IpAddresses() {
+	}
+
+	/**
+	 * @return the address in the form {@link InetAddress#getHostAddress()} prints it, or null if ip is not an address
+	 */
+	public static String normalize(String ip) {
+		if (ip == null) {
+			return null;
+		}
+		String trimmed = ip.trim();
+		if (IPV4.matcher(trimmed).matches()) {
+			return trimmed;
+		}
+		if (!IPV6.matcher(trimmed).matches()) {
+			return null;
+		}
+		try {
+			// a literal containing a colon is parsed as IPv6 and never looked up
+			return InetAddress.getByName(trimmed).getHostAddress();
+		} catch (UnknownHostException e) {
+			return null;
+		}
+	}
+}
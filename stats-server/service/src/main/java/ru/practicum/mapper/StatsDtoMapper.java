@@ -10,7 +10,7 @@ public class StatsDtoMapper {
 		Stats stats = new Stats();
 		stats.setApp(dto.getApp());
 		stats.setUri(dto.getUri());
-		stats.setIp(dto.getIp());
+		stats.setIp(IpAddresses.normalize(dto.getIp()));
 		LocalDateTime dateTime = dto.getTimestamp();
 		stats.setCreated(dateTime);
 
@@ -0,0 +1,16 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * A hit as stored: app and uri are dictionary ids, ip is a normalized address or null.
+ */
+@Value
+public class EncodedStats {
+	int appId;
+	int uriId;
+	String ip;
+	LocalDateTime created;
+}
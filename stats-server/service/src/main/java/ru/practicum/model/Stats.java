@@ -2,22 +2,18 @@ package ru.practicum.model;
 
 import lombok.*;
 
-import javax.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * A hit as received, before app and uri are replaced with their dictionary ids.
+ */
 @Getter
 @Setter
-@ToString(of = "id")
-@EqualsAndHashCode(of = "id")
+@ToString
+@EqualsAndHashCode
 @AllArgsConstructor
 @NoArgsConstructor
-@Entity
-@Table(name = "stats")
 public class Stats {
-	@Id
-	@Column(name = "stats_id")
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
-	private Long id;
 	private String app;
 	private String uri;
 	private String ip;
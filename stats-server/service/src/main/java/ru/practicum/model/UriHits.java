@@ -0,0 +1,10 @@
+package ru.practicum.model;
+
+import lombok.Value;
+
+@Value
+public class UriHits {
+	int appId;
+	int uriId;
+	long hits;
+}
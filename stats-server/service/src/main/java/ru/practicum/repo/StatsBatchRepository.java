@@ -0,0 +1,54 @@
+package ru.practicum.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.EncodedStats;
+import ru.practicum.model.Stats;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsBatchRepository {
+	private static final int MAX_BATCH_SIZE = 1000;
+	private static final String INSERT_SQL = "INSERT INTO stats (app_id, uri_id, ip, created) VALUES (?, ?, CAST(? AS inet), ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final StatsDictionaryRepository dictionaryRepository;
+	private final StatsRollupRepository rollupRepository;
+	private final TransactionTemplate transactionTemplate;
+
+	/**
+	 * Resolves dictionary ids before the transaction that writes the hits is opened, so a batch with new names holds
+	 * one pool connection at a time.
+	 */
+	public void saveAll(List<Stats> stats) {
+		if (stats.isEmpty()) {
+			return;
+		}
+		Map<String, Integer> appIds = dictionaryRepository.getOrCreateAppIds(stats.stream()
+				.map(Stats::getApp)
+				.collect(Collectors.toSet()));
+		Map<String, Integer> uriIds = dictionaryRepository.getOrCreateUriIds(stats.stream()
+				.map(Stats::getUri)
+				.collect(Collectors.toSet()));
+		List<EncodedStats> encoded = stats.stream()
+				.map(hit -> new EncodedStats(appIds.get(hit.getApp()), uriIds.get(hit.getUri()), hit.getIp(), hit.getCreated()))
+				.collect(Collectors.toList());
+
+		transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.batchUpdate(INSERT_SQL, encoded, Math.min(encoded.size(), MAX_BATCH_SIZE), (ps, hit) -> {
+				ps.setInt(1, hit.getAppId());
+				ps.setInt(2, hit.getUriId());
+				ps.setString(3, hit.getIp());
+				ps.setTimestamp(4, hit.getCreated() != null ? Timestamp.valueOf(hit.getCreated()) : null);
+			});
+			rollupRepository.addAll(encoded);
+		});
+	}
+}
@@ -0,0 +1,172 @@
+package ru.practicum.repo;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Types;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Integer ids of app names and uris. Both dictionaries only grow, so ids are cached in both directions for the
+ * lifetime of the service. New names are inserted in a transaction of their own: an id that was handed out stays valid
+ * even if the batch that needed it is rolled back. Ids are created outside of any other transaction, so that a caller
+ * never holds a second pool connection while waiting for this one.
+ */
+@Repository
+public class StatsDictionaryRepository {
+	private static final Pattern EVENT_URI = Pattern.compile("/events/([1-9]\\d{0,17})");
+
+	private final Dictionary apps = new Dictionary("stats_app", "app_id", "name", false);
+	private final Dictionary uris = new Dictionary("stats_uri", "uri_id", "uri", true);
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	private final TransactionTemplate newTransaction;
+
+	public StatsDictionaryRepository(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	public Map<String, Integer> getOrCreateAppIds(Collection<String> names) {
+		return getOrCreate(apps, names);
+	}
+
+	public Map<String, Integer> getOrCreateUriIds(Collection<String> names) {
+		return getOrCreate(uris, names);
+	}
+
+	/**
+	 * @return ids of the uris that were ever hit, unknown uris are left out
+	 */
+	public Map<String, Integer> findUriIds(Collection<String> names) {
+		Map<String, Integer> ids = new HashMap<>();
+		Set<String> missing = collectCached(uris, names, ids);
+		if (!missing.isEmpty()) {
+			load(uris, missing, ids);
+		}
+		return ids;
+	}
+
+	public String getAppName(int id) {
+		return getName(apps, id);
+	}
+
+	public String getUri(int id) {
+		return getName(uris, id);
+	}
+
+	/**
+	 * @return event ids by the ids of the uris of these events
+	 */
+	public Map<Integer, Long> findEventUriIds(Collection<Long> eventIds) {
+		Map<Integer, Long> events = new HashMap<>();
+		jdbcTemplate.query("SELECT uri_id, event_id FROM stats_uri WHERE event_id IN (:eventIds)",
+				new MapSqlParameterSource("eventIds", eventIds),
+				rs -> {
+					events.put(rs.getInt("uri_id"), rs.getLong("event_id"));
+				});
+		return events;
+	}
+
+	/**
+	 * @return the event id of a uri of the form /events/{id}, null for any other uri
+	 */
+	public static Long parseEventId(String uri) {
+		Matcher matcher = EVENT_URI.matcher(uri);
+		return matcher.matches() ? Long.valueOf(matcher.group(1)) : null;
+	}
+
+	private Map<String, Integer> getOrCreate(Dictionary dictionary, Collection<String> names) {
+		Map<String, Integer> ids = new HashMap<>();
+		Set<String> missing = collectCached(dictionary, names, ids);
+		if (missing.isEmpty()) {
+			return ids;
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("Dictionary ids have to be created before a transaction is opened");
+		}
+		// sorted, so that concurrent batches lock the unique index in the same order
+		List<String> sorted = new ArrayList<>(new TreeSet<>(missing));
+		newTransaction.executeWithoutResult(status -> {
+			jdbcTemplate.getJdbcTemplate().batchUpdate(dictionary.insertSql, sorted, sorted.size(), (ps, name) -> {
+				ps.setString(1, name);
+				if (dictionary.withEventId) {
+					Long eventId = parseEventId(name);
+					if (eventId != null) {
+						ps.setLong(2, eventId);
+					} else {
+						ps.setNull(2, Types.BIGINT);
+					}
+				}
+			});
+			load(dictionary, sorted, ids);
+		});
+		return ids;
+	}
+
+	private String getName(Dictionary dictionary, int id) {
+		String name = dictionary.namesById.get(id);
+		if (name != null) {
+			return name;
+		}
+		name = jdbcTemplate.queryForObject("SELECT " + dictionary.nameColumn + " FROM " + dictionary.table +
+				" WHERE " + dictionary.idColumn + " = :id", new MapSqlParameterSource("id", id), String.class);
+		dictionary.put(name, id);
+		return name;
+	}
+
+	private void load(Dictionary dictionary, Collection<String> names, Map<String, Integer> ids) {
+		jdbcTemplate.query("SELECT " + dictionary.idColumn + ", " + dictionary.nameColumn + " FROM " + dictionary.table +
+				" WHERE " + dictionary.nameColumn + " IN (:names)", new MapSqlParameterSource("names", names), rs -> {
+			String name = rs.getString(2);
+			int id = rs.getInt(1);
+			dictionary.put(name, id);
+			ids.put(name, id);
+		});
+	}
+
+	private static Set<String> collectCached(Dictionary dictionary, Collection<String> names, Map<String, Integer> ids) {
+		Set<String> missing = new HashSet<>();
+		for (String name : names) {
+			Integer id = dictionary.idsByName.get(name);
+			if (id != null) {
+				ids.put(name, id);
+			} else {
+				missing.add(name);
+			}
+		}
+		return missing;
+	}
+
+	private static class Dictionary {
+		private final String table;
+		private final String idColumn;
+		private final String nameColumn;
+		private final boolean withEventId;
+		private final String insertSql;
+		private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+		private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+		Dictionary(String table, String idColumn, String nameColumn, boolean withEventId) {
+			this.table = table;
+			this.idColumn = idColumn;
+			this.nameColumn = nameColumn;
+			this.withEventId = withEventId;
+			this.insertSql = "INSERT INTO " + table + " (" + nameColumn + (withEventId ? ", event_id) VALUES (?, ?)" : ") VALUES (?)") +
+					" ON CONFLICT (" + nameColumn + ") DO NOTHING";
+		}
+
+		void put(String name, int id) {
+			idsByName.put(name, id);
+			namesById.put(id, name);
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package ru.practicum.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsPartitionRepository {
+	private static final String PARTITION_PREFIX = "stats_p";
+	private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+
+	public List<YearMonth> findMonthPartitions() {
+		return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+						"WHERE i.inhparent = 'stats'::regclass", String.class).stream()
+				.map(StatsPartitionRepository::toMonth)
+				.filter(Objects::nonNull)
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Creates the partition of the month unless it exists. Rows of the month that were written to stats_default
+	 * while there was no partition for it are moved into the new partition in the same transaction, as a partition
+	 * cannot be attached while the default one holds rows of its range.
+	 *
+	 * @return the number of rows moved out of stats_default
+	 */
+	public int createMonthPartition(YearMonth month) {
+		String name = toName(month);
+		String from = month.atDay(1).toString();
+		String to = month.plusMonths(1).atDay(1).toString();
+		Integer moved = transactionTemplate.execute(status -> {
+			// taken first so that concurrent callers wait here and no new rows of the month reach stats_default
+			jdbcTemplate.execute("LOCK TABLE stats_default IN SHARE ROW EXCLUSIVE MODE");
+			if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name)) {
+				return 0;
+			}
+			if (!jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM stats_default WHERE created >= ?::timestamp " +
+					"AND created < ?::timestamp)", Boolean.class, from, to)) {
+				jdbcTemplate.execute(String.format("CREATE TABLE %s PARTITION OF stats FOR VALUES FROM ('%s') TO ('%s')",
+						name, from, to));
+				return 0;
+			}
+			// the check constraint lets ATTACH PARTITION skip scanning the moved rows
+			jdbcTemplate.execute(String.format("CREATE TABLE %1$s (LIKE stats INCLUDING DEFAULTS, CONSTRAINT %1$s_range " +
+					"CHECK (created IS NOT NULL AND created >= '%2$s' AND created < '%3$s'))", name, from, to));
+			int rows = jdbcTemplate.update(String.format("WITH moved AS (DELETE FROM stats_default " +
+					"WHERE created >= '%s' AND created < '%s' RETURNING *) INSERT INTO %s SELECT * FROM moved", from, to, name));
+			jdbcTemplate.execute(String.format("ALTER TABLE stats ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+					name, from, to));
+			jdbcTemplate.execute(String.format("ALTER TABLE %1$s DROP CONSTRAINT %1$s_range", name));
+			return rows;
+		});
+		return moved == null ? 0 : moved;
+	}
+
+	public void dropMonthPartition(YearMonth month) {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + toName(month));
+	}
+
+	private static String toName(YearMonth month) {
+		return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+	}
+
+	private static YearMonth toMonth(String name) {
+		if (!name.startsWith(PARTITION_PREFIX) || name.length() != PARTITION_PREFIX.length() + 6) {
+			return null;
+		}
+		return YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+	}
+}
@@ -1,50 +1,39 @@
 package ru.practicum.repo;
 
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
-import ru.practicum.dto.StatsResponseDto;
-import ru.practicum.model.Stats;
+import ru.practicum.model.UriHits;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface StatsRepository extends JpaRepository<Stats, Long> {
-	@Query("SELECT new ru.practicum.dto.StatsResponseDto(s.app, s.uri, COUNT(DISTINCT s.ip)) " +
-			"FROM Stats s " +
-			"WHERE s.uri IN :uris " +
-			"AND s.created BETWEEN :start AND :end " +
-			"GROUP BY s.app, s.uri " +
-			"ORDER BY COUNT(DISTINCT s.ip) DESC")
-	List<StatsResponseDto> findStatsUniqueIp(@Param("start") LocalDateTime start,
-											 @Param("end") LocalDateTime end,
-											 @Param("uris") List<String> uris);
+@RequiredArgsConstructor
+public class StatsRepository {
+	private final NamedParameterJdbcTemplate jdbcTemplate;
 
-	@Query("SELECT new ru.practicum.dto.StatsResponseDto(s.app, s.uri, COUNT(DISTINCT s.ip)) " +
-			"FROM Stats s " +
-			"WHERE s.created BETWEEN :start AND :end " +
-			"GROUP BY s.app, s.uri " +
-			"ORDER BY COUNT(DISTINCT s.ip) DESC")
-	List<StatsResponseDto> findAllStatsUniqueIp(@Param("start") LocalDateTime start,
-												@Param("end") LocalDateTime end);
-
-	@Query("SELECT new ru.practicum.dto.StatsResponseDto(s.app, s.uri, COUNT(s.ip)) " +
-			"FROM Stats s " +
-			"WHERE s.uri IN :uris " +
-			"AND s.created BETWEEN :start AND :end " +
-			"GROUP BY s.app, s.uri " +
-			"ORDER BY COUNT(s.ip) DESC")
-	List<StatsResponseDto> findStatsAllIp(@Param("start") LocalDateTime start,
-										  @Param("end") LocalDateTime end,
-										  @Param("uris") List<String> uris);
-
-	@Query("SELECT new ru.practicum.dto.StatsResponseDto(s.app, s.uri, COUNT(s.ip)) " +
-			"FROM Stats s " +
-			"WHERE s.created BETWEEN :start AND :end " +
-			"GROUP BY s.app, s.uri " +
-			"ORDER BY COUNT(s.ip) DESC")
-	List<StatsResponseDto> findAllStatsAllIp(@Param("start") LocalDateTime start,
-											 @Param("end") LocalDateTime end);
+	/**
+	 * Counts hits in the raw stats table.
+	 *
+	 * @param uriIds uris to count, null for all
+	 */
+	public List<UriHits> findStats(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds, boolean unique) {
+		MapSqlParameterSource params = new MapSqlParameterSource()
+				.addValue("start", Timestamp.valueOf(start))
+				.addValue("end", Timestamp.valueOf(end));
+		String uriFilter = "";
+		if (uriIds != null) {
+			params.addValue("uriIds", uriIds);
+			uriFilter = " AND uri_id IN (:uriIds)";
+		}
+		String aggregate = unique ? "COUNT(DISTINCT ip)" : "COUNT(*)";
+		return jdbcTemplate.query("SELECT app_id, uri_id, " + aggregate + " AS hits FROM stats " +
+						"WHERE created BETWEEN :start AND :end" + uriFilter + " " +
+						"GROUP BY app_id, uri_id ORDER BY hits DESC", params,
+				(rs, rowNum) -> new UriHits(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+	}
 }
@@ -0,0 +1,291 @@
+package ru.practicum.repo;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.enums.RollupGranularity;
+import ru.practicum.mapper.IpAddresses;
+import ru.practicum.model.EncodedStats;
+import ru.practicum.model.UriHits;
+import ru.practicum.service.RollupRange;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsRollupRepository {
+	private static final String UPSERT_HITS_SQL = "INSERT INTO stats_rollup (granularity, bucket_start, app_id, uri_id, hits) " +
+			"VALUES (?, ?, ?, ?, ?) " +
+			"ON CONFLICT (granularity, bucket_start, app_id, uri_id) DO UPDATE SET hits = stats_rollup.hits + EXCLUDED.hits";
+	private static final String UPSERT_IP_SQL = "INSERT INTO stats_rollup_ip (granularity, bucket_start, app_id, uri_id, ip) " +
+			"VALUES (?, ?, ?, ?, CAST(? AS inet)) " +
+			"ON CONFLICT DO NOTHING";
+	private static final String UPSERT_REGISTER_SQL = "INSERT INTO stats_rollup_hll " +
+			"(granularity, bucket_start, app_id, uri_id, register_idx, register_rank) VALUES (?, ?, ?, ?, ?, ?) " +
+			"ON CONFLICT (granularity, bucket_start, app_id, uri_id, register_idx) DO UPDATE SET register_rank = EXCLUDED.register_rank " +
+			"WHERE stats_rollup_hll.register_rank < EXCLUDED.register_rank";
+	private static final int SKETCH_REBUILD_CHUNK = 10_000;
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public void addAll(List<EncodedStats> stats) {
+		SortedMap<BucketKey, Long> hits = new TreeMap<>();
+		SortedSet<BucketIp> ips = new TreeSet<>();
+		for (EncodedStats hit : stats) {
+			if (hit.getCreated() == null) {
+				continue;
+			}
+			for (RollupGranularity granularity : RollupGranularity.values()) {
+				BucketKey key = new BucketKey(granularity, granularity.floor(hit.getCreated()), hit.getAppId(), hit.getUriId());
+				hits.merge(key, 1L, Long::sum);
+				if (hit.getIp() != null) {
+					ips.add(new BucketIp(key, hit.getIp()));
+				}
+			}
+		}
+		if (hits.isEmpty()) {
+			return;
+		}
+		// keys are sorted so that concurrent batches lock rollup rows in the same order
+		List<BucketKey> keys = new ArrayList<>(hits.keySet());
+		jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_HITS_SQL, keys, keys.size(), (ps, key) -> {
+			ps.setString(1, key.getGranularity().name());
+			ps.setTimestamp(2, Timestamp.valueOf(key.getBucketStart()));
+			ps.setInt(3, key.getAppId());
+			ps.setInt(4, key.getUriId());
+			ps.setLong(5, hits.get(key));
+		});
+		jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_IP_SQL, ips, ips.size(), (ps, bucketIp) -> {
+			BucketKey key = bucketIp.getKey();
+			ps.setString(1, key.getGranularity().name());
+			ps.setTimestamp(2, Timestamp.valueOf(key.getBucketStart()));
+			ps.setInt(3, key.getAppId());
+			ps.setInt(4, key.getUriId());
+			ps.setString(5, bucketIp.getIp());
+		});
+		SortedMap<BucketRegister, Integer> registers = new TreeMap<>();
+		for (BucketIp bucketIp : ips) {
+			addRegister(registers, bucketIp.getKey(), bucketIp.getIp());
+		}
+		upsertRegisters(registers);
+	}
+
+	/**
+	 * @param uriIds uris to count, null for all
+	 */
+	public List<UriHits> findStats(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds, boolean unique) {
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		String uriFilter = uriFilter(uriIds, params);
+
+		StringJoiner parts = new StringJoiner(" UNION ALL ");
+		List<RollupRange.Segment> segments = RollupRange.split(start, end);
+		for (int i = 0; i < segments.size(); i++) {
+			RollupRange.Segment segment = segments.get(i);
+			params.addValue("from" + i, Timestamp.valueOf(segment.getFrom()));
+			params.addValue("to" + i, Timestamp.valueOf(segment.getTo()));
+			if (segment.getGranularity() == null) {
+				String range = "created >= :from" + i + (segment.isToInclusive() ? " AND created <= :to" : " AND created < :to") + i;
+				parts.add(unique ?
+						"SELECT app_id, uri_id, ip FROM stats WHERE " + range + uriFilter :
+						"SELECT app_id, uri_id, COUNT(*) AS hits FROM stats WHERE " + range + uriFilter + " GROUP BY app_id, uri_id");
+			} else {
+				params.addValue("granularity" + i, segment.getGranularity().name());
+				String range = "granularity = :granularity" + i + " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i;
+				parts.add(unique ?
+						"SELECT app_id, uri_id, ip FROM stats_rollup_ip WHERE " + range + uriFilter :
+						"SELECT app_id, uri_id, hits FROM stats_rollup WHERE " + range + uriFilter);
+			}
+		}
+		if (parts.length() == 0) {
+			return List.of();
+		}
+
+		String aggregate = unique ? "COUNT(DISTINCT ip)" : "SUM(hits)";
+		String sql = "SELECT app_id, uri_id, " + aggregate + " AS hits FROM (" + parts + ") AS s " +
+				"GROUP BY app_id, uri_id ORDER BY hits DESC";
+		return jdbcTemplate.query(sql, params,
+				(rs, rowNum) -> new UriHits(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+	}
+
+	/**
+	 * @param uriIds uris to count, null for all
+	 */
+	public List<UriHits> findApproxUniqueStats(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds) {
+		MapSqlParameterSource params = new MapSqlParameterSource();
+		String uriFilter = uriFilter(uriIds, params);
+
+		StringJoiner rollupRanges = new StringJoiner(" OR ");
+		StringJoiner rawRanges = new StringJoiner(" OR ");
+		List<RollupRange.Segment> segments = RollupRange.split(start, end);
+		for (int i = 0; i < segments.size(); i++) {
+			RollupRange.Segment segment = segments.get(i);
+			params.addValue("from" + i, Timestamp.valueOf(segment.getFrom()));
+			params.addValue("to" + i, Timestamp.valueOf(segment.getTo()));
+			if (segment.getGranularity() == null) {
+				rawRanges.add("(created >= :from" + i + (segment.isToInclusive() ? " AND created <= :to" : " AND created < :to") + i + ")");
+			} else {
+				params.addValue("granularity" + i, segment.getGranularity().name());
+				rollupRanges.add("(granularity = :granularity" + i + " AND bucket_start >= :from" + i + " AND bucket_start < :to" + i + ")");
+			}
+		}
+
+		// one sketch per app and uri, so memory does not depend on the number of hits or buckets in the range
+		Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+		if (rollupRanges.length() > 0) {
+			jdbcTemplate.query("SELECT app_id, uri_id, register_idx, MAX(register_rank) AS register_rank FROM stats_rollup_hll " +
+					"WHERE (" + rollupRanges + ")" + uriFilter + " GROUP BY app_id, uri_id, register_idx", params, rs -> {
+				sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")), key -> new HyperLogLog())
+						.setRegister(rs.getInt("register_idx"), rs.getInt("register_rank"));
+			});
+		}
+		if (rawRanges.length() > 0) {
+			jdbcTemplate.query("SELECT DISTINCT app_id, uri_id, host(ip) AS ip FROM stats WHERE (" + rawRanges + ")" +
+					" AND ip IS NOT NULL" + uriFilter, params, rs -> {
+				sketches.computeIfAbsent(new AppUri(rs.getInt("app_id"), rs.getInt("uri_id")), key -> new HyperLogLog())
+						.add(IpAddresses.normalize(rs.getString("ip")));
+			});
+		}
+
+		return sketches.entrySet().stream()
+				.map(entry -> new UriHits(entry.getKey().getAppId(), entry.getKey().getUriId(), entry.getValue().estimate()))
+				.sorted(Comparator.comparingLong(UriHits::getHits).reversed())
+				.collect(Collectors.toList());
+	}
+
+	public boolean isRebuildNeeded() {
+		Boolean needed = jdbcTemplate.getJdbcTemplate().queryForObject(
+				"SELECT NOT EXISTS (SELECT 1 FROM stats_rollup) AND EXISTS (SELECT 1 FROM stats)", Boolean.class);
+		return Boolean.TRUE.equals(needed);
+	}
+
+	public boolean isSketchRebuildNeeded() {
+		Boolean needed = jdbcTemplate.getJdbcTemplate().queryForObject(
+				"SELECT NOT EXISTS (SELECT 1 FROM stats_rollup_hll) AND EXISTS (SELECT 1 FROM stats_rollup_ip)", Boolean.class);
+		return Boolean.TRUE.equals(needed);
+	}
+
+	@Transactional
+	public void rebuild() {
+		jdbcTemplate.getJdbcTemplate().update("DELETE FROM stats_rollup");
+		jdbcTemplate.getJdbcTemplate().update("DELETE FROM stats_rollup_ip");
+		for (RollupGranularity granularity : RollupGranularity.values()) {
+			String bucket = "date_trunc('" + granularity.getSqlUnit() + "', created)";
+			jdbcTemplate.getJdbcTemplate().update("INSERT INTO stats_rollup (granularity, bucket_start, app_id, uri_id, hits) " +
+					"SELECT ?, " + bucket + ", app_id, uri_id, COUNT(*) FROM stats WHERE created IS NOT NULL " +
+					"GROUP BY " + bucket + ", app_id, uri_id", granularity.name());
+			jdbcTemplate.getJdbcTemplate().update("INSERT INTO stats_rollup_ip (granularity, bucket_start, app_id, uri_id, ip) " +
+					"SELECT DISTINCT ?, " + bucket + ", app_id, uri_id, ip FROM stats WHERE created IS NOT NULL AND ip IS NOT NULL",
+					granularity.name());
+		}
+		rebuildSketches();
+	}
+
+	@Transactional
+	public void rebuildSketches() {
+		jdbcTemplate.getJdbcTemplate().update("DELETE FROM stats_rollup_hll");
+		// the register upsert keeps the maximum rank, so the table is streamed and written in chunks
+		SortedMap<BucketRegister, Integer> registers = new TreeMap<>();
+		jdbcTemplate.getJdbcTemplate().query(con -> {
+			PreparedStatement ps = con.prepareStatement(
+					"SELECT granularity, bucket_start, app_id, uri_id, host(ip) AS ip FROM stats_rollup_ip");
+			ps.setFetchSize(SKETCH_REBUILD_CHUNK);
+			return ps;
+		}, rs -> {
+			BucketKey key = new BucketKey(RollupGranularity.valueOf(rs.getString("granularity")),
+					rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getInt("app_id"), rs.getInt("uri_id"));
+			addRegister(registers, key, IpAddresses.normalize(rs.getString("ip")));
+			if (registers.size() >= SKETCH_REBUILD_CHUNK) {
+				upsertRegisters(registers);
+				registers.clear();
+			}
+		});
+		upsertRegisters(registers);
+	}
+
+	private static String uriFilter(Collection<Integer> uriIds, MapSqlParameterSource params) {
+		if (uriIds == null) {
+			return "";
+		}
+		params.addValue("uriIds", uriIds);
+		return " AND uri_id IN (:uriIds)";
+	}
+
+	private void addRegister(Map<BucketRegister, Integer> registers, BucketKey key, String ip) {
+		long hash = HyperLogLog.hash(ip);
+		int precision = HyperLogLog.DEFAULT_PRECISION;
+		registers.merge(new BucketRegister(key, HyperLogLog.registerIndex(hash, precision)),
+				HyperLogLog.rank(hash, precision), Math::max);
+	}
+
+	private void upsertRegisters(SortedMap<BucketRegister, Integer> registers) {
+		if (registers.isEmpty()) {
+			return;
+		}
+		List<BucketRegister> keys = new ArrayList<>(registers.keySet());
+		jdbcTemplate.getJdbcTemplate().batchUpdate(UPSERT_REGISTER_SQL, keys, keys.size(), (ps, register) -> {
+			BucketKey key = register.getKey();
+			ps.setString(1, key.getGranularity().name());
+			ps.setTimestamp(2, Timestamp.valueOf(key.getBucketStart()));
+			ps.setInt(3, key.getAppId());
+			ps.setInt(4, key.getUriId());
+			ps.setInt(5, register.getIndex());
+			ps.setInt(6, registers.get(register));
+		});
+	}
+
+	@Value
+	private static class BucketKey implements Comparable<BucketKey> {
+		private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::getGranularity)
+				.thenComparing(BucketKey::getBucketStart)
+				.thenComparingInt(BucketKey::getAppId)
+				.thenComparingInt(BucketKey::getUriId);
+
+		RollupGranularity granularity;
+		LocalDateTime bucketStart;
+		int appId;
+		int uriId;
+
+		@Override
+		public int compareTo(BucketKey other) {
+			return ORDER.compare(this, other);
+		}
+	}
+
+	@Value
+	private static class BucketIp implements Comparable<BucketIp> {
+		BucketKey key;
+		String ip;
+
+		@Override
+		public int compareTo(BucketIp other) {
+			int byKey = key.compareTo(other.key);
+			return byKey != 0 ? byKey : ip.compareTo(other.ip);
+		}
+	}
+
+	@Value
+	private static class BucketRegister implements Comparable<BucketRegister> {
+		BucketKey key;
+		int index;
+
+		@Override
+		public int compareTo(BucketRegister other) {
+			int byKey = key.compareTo(other.key);
+			return byKey != 0 ? byKey : Integer.compare(index, other.index);
+		}
+	}
+
+	@Value
+	private static class AppUri {
+		int appId;
+		int uriId;
+	}
+}
@@ -0,0 +1,116 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.dto.EventHitsDto;
+import ru.practicum.dto.StatsRequestDto;
+import ru.practicum.dto.StatsResponseDto;
+import ru.practicum.enums.UniqueMode;
+import ru.practicum.hitlog.HitLog;
+import ru.practicum.mapper.StatsDtoMapper;
+import ru.practicum.model.UriHits;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps hits in an embedded {@link HitLog} instead of PostgreSQL, enabled with stats.storage=hitlog.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "stats.storage", havingValue = "hitlog")
+public class HitLogStatsService implements StatsService {
+	private final HitLog hitLog;
+
+	public HitLogStatsService(@Value("${stats.hitlog.dir:hitlog}") Path directory,
+							  @Value("${stats.hitlog.window-minutes:60}") long windowMinutes,
+							  @Value("${stats.hitlog.flush-size:10000}") int flushSize,
+							  @Value("${stats.hitlog.compaction-threshold:8}") int compactionThreshold) throws IOException {
+		this.hitLog = new HitLog(directory, Duration.ofMinutes(windowMinutes), flushSize, compactionThreshold);
+	}
+
+	@Override
+	public void saveStats(StatsRequestDto request) {
+		saveStatsBatch(List.of(request));
+	}
+
+	@Override
+	public void saveStatsBatch(List<StatsRequestDto> requests) {
+		try {
+			hitLog.append(requests.stream()
+					.map(StatsDtoMapper::dtoToStats)
+					.collect(Collectors.toList()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public List<StatsResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, UniqueMode unique) {
+		Collection<Integer> uriIds = null;
+		if (uris != null) {
+			uriIds = hitLog.findUriIds(uris).values();
+			if (uriIds.isEmpty()) {
+				return List.of();
+			}
+		}
+		return hitLog.aggregate(start, end, uriIds, unique).stream()
+				.map(uriHits -> new StatsResponseDto(hitLog.getApp(uriHits.getAppId()), hitLog.getUri(uriHits.getUriId()),
+						uriHits.getHits()))
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public List<EventHitsDto> getEventHits(LocalDateTime start, LocalDateTime end, List<Long> eventIds, UniqueMode unique) {
+		Map<Integer, Long> eventsByUriId = hitLog.findEventUriIds(eventIds);
+		if (eventsByUriId.isEmpty()) {
+			return List.of();
+		}
+		// hits of an event recorded by several apps are summed up
+		Map<Long, Long> hits = new HashMap<>();
+		for (UriHits uriHits : hitLog.aggregate(start, end, eventsByUriId.keySet(), unique)) {
+			hits.merge(eventsByUriId.get(uriHits.getUriId()), uriHits.getHits(), Long::sum);
+		}
+		return hits.entrySet().stream()
+				.map(entry -> new EventHitsDto(entry.getKey(), entry.getValue()))
+				.collect(Collectors.toList());
+	}
+
+	@Scheduled(fixedDelayString = "${stats.hitlog.flush-interval-ms:1000}")
+	public void flush() {
+		try {
+			hitLog.flush();
+		} catch (IOException | RuntimeException e) {
+			log.error("Hit log flush failed", e);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${stats.hitlog.compaction-interval-ms:60000}")
+	public void compact() {
+		try {
+			int merged = hitLog.compact(LocalDateTime.now());
+			if (merged > 0) {
+				log.info("Hit log compaction merged away {} segments, {} left", merged, hitLog.getSegmentCount());
+			}
+		} catch (IOException | RuntimeException e) {
+			log.error("Hit log compaction failed", e);
+		}
+	}
+
+	@PreDestroy
+	public void close() throws IOException {
+		hitLog.close();
+	}
+}
@@ -0,0 +1,73 @@
+package ru.practicum.service;
+
+import lombok.Value;
+import ru.practicum.enums.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an inclusive [start, end] range into the coarsest rollup buckets that fit into it.
+ * Whatever is left at the edges, less than a minute on each side, is read from the raw stats table.
+ */
+public final class RollupRange {
+	private static final RollupGranularity[] COARSEST_FIRST = {
+			RollupGranularity.DAY, RollupGranularity.HOUR, RollupGranularity.MINUTE
+	};
+
+	private RollupRange() {
+	}
+
+	public static List<Segment> split(LocalDateTime start, LocalDateTime end) {
+		List<Segment> segments = new ArrayList<>();
+		split(start, end.plusNanos(1), 0, segments);
+		if (!segments.isEmpty()) {
+			Segment last = segments.get(segments.size() - 1);
+			if (last.getGranularity() == null) {
+				segments.set(segments.size() - 1, Segment.rawUpTo(last.getFrom(), end));
+			}
+		}
+		return segments;
+	}
+
+	private static void split(LocalDateTime from, LocalDateTime to, int level, List<Segment> segments) {
+		if (!from.isBefore(to)) {
+			return;
+		}
+		if (level == COARSEST_FIRST.length) {
+			segments.add(Segment.raw(from, to));
+			return;
+		}
+		RollupGranularity granularity = COARSEST_FIRST[level];
+		LocalDateTime bucketsFrom = granularity.ceil(from);
+		LocalDateTime bucketsTo = granularity.floor(to);
+		if (!bucketsFrom.isBefore(bucketsTo)) {
+			split(from, to, level + 1, segments);
+			return;
+		}
+		split(from, bucketsFrom, level + 1, segments);
+		segments.add(new Segment(granularity, bucketsFrom, bucketsTo, false));
+		split(bucketsTo, to, level + 1, segments);
+	}
+
+	/**
+	 * A range of rollup buckets of one granularity, or of raw rows when granularity is null.
+	 * The upper bound is exclusive unless toInclusive is set.
+	 */
+	@Value
+	public static class Segment {
+		RollupGranularity granularity;
+		LocalDateTime from;
+		LocalDateTime to;
+		boolean toInclusive;
+
+		static Segment raw(LocalDateTime from, LocalDateTime to) {
+			return new Segment(null, from, to, false);
+		}
+
+		static Segment rawUpTo(LocalDateTime from, LocalDateTime to) {
+			return new Segment(null, from, to, true);
+		}
+	}
+}
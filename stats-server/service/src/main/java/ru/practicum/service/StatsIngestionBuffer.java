@@ -0,0 +1,263 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.exception.IngestionOverloadException;
+import ru.practicum.model.Stats;
+import ru.practicum.repo.StatsBatchRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory queue of hits that are written to the database in batches.
+ * A batch is flushed as soon as batch-size hits are queued or every flush-interval-ms, whichever comes first.
+ * A batch that fails on a lost connection or another transient error is retried with exponential backoff; any other
+ * failure splits the batch in halves until only the rows that cannot be written are dropped.
+ * The range of hit times that are queued or being written is tracked, so that reads flush the queue only when
+ * the range they ask for reaches into it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jdbc", matchIfMissing = true)
+public class StatsIngestionBuffer {
+
+	public enum OverflowPolicy {
+		BLOCK, CALLER_RUNS, REJECT
+	}
+
+	private static final long MAX_BACKOFF_MS = 10_000;
+
+	private final StatsBatchRepository batchRepository;
+	private final BlockingQueue<Stats> queue;
+	private final int batchSize;
+	private final long offerTimeoutMs;
+	private final int retryAttempts;
+	private final long retryBackoffMs;
+	private final OverflowPolicy overflowPolicy;
+	private final ScheduledExecutorService flusher;
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private final AtomicBoolean flushRequested = new AtomicBoolean();
+	private final AtomicLong failedHits = new AtomicLong();
+	private final Object windowLock = new Object();
+	private HitWindow pending = HitWindow.EMPTY;
+	private HitWindow inFlight = HitWindow.EMPTY;
+	private volatile boolean closed;
+
+	public StatsIngestionBuffer(StatsBatchRepository batchRepository,
+								@Value("${stats.ingest.capacity:10000}") int capacity,
+								@Value("${stats.ingest.batch-size:500}") int batchSize,
+								@Value("${stats.ingest.flush-interval-ms:200}") long flushIntervalMs,
+								@Value("${stats.ingest.offer-timeout-ms:50}") long offerTimeoutMs,
+								@Value("${stats.ingest.overflow-policy:CALLER_RUNS}") OverflowPolicy overflowPolicy,
+								@Value("${stats.ingest.retry-attempts:5}") int retryAttempts,
+								@Value("${stats.ingest.retry-backoff-ms:200}") long retryBackoffMs) {
+		this.batchRepository = batchRepository;
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.batchSize = batchSize;
+		this.offerTimeoutMs = offerTimeoutMs;
+		this.overflowPolicy = overflowPolicy;
+		this.retryAttempts = retryAttempts;
+		this.retryBackoffMs = retryBackoffMs;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "stats-ingest-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+	}
+
+	public void add(Stats stats) {
+		if (closed) {
+			batchRepository.saveAll(List.of(stats));
+			return;
+		}
+		if (!enqueue(stats)) {
+			return;
+		}
+		// widened only after the hit is queued, so a flush in between leaves the window wider, never narrower
+		synchronized (windowLock) {
+			pending = pending.including(stats.getCreated());
+		}
+		if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+			flusher.execute(() -> {
+				flushRequested.set(false);
+				flushQuietly();
+			});
+		}
+	}
+
+	public void flush() {
+		flushLock.lock();
+		try {
+			synchronized (windowLock) {
+				inFlight = inFlight.union(pending);
+				pending = HitWindow.EMPTY;
+			}
+			List<Stats> batch = new ArrayList<>(batchSize);
+			while (queue.drainTo(batch, batchSize) > 0) {
+				writeBatch(batch);
+				batch = new ArrayList<>(batchSize);
+			}
+			synchronized (windowLock) {
+				inFlight = HitWindow.EMPTY;
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes the queue if a hit created between start and end may still be queued or being written, so that a read
+	 * of that range sees every hit added before it. Reads of other ranges do not wait for the queue.
+	 */
+	public void flushOverlapping(LocalDateTime start, LocalDateTime end) {
+		boolean overlaps;
+		synchronized (windowLock) {
+			overlaps = pending.overlaps(start, end) || inFlight.overlaps(start, end);
+		}
+		if (overlaps) {
+			flush();
+		}
+	}
+
+	public int getQueueSize() {
+		return queue.size();
+	}
+
+	public long getFailedHits() {
+		return failedHits.get();
+	}
+
+	@PreDestroy
+	public void close() throws InterruptedException {
+		closed = true;
+		flusher.shutdown();
+		if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+			log.warn("Stats flusher did not stop in time, draining on shutdown thread");
+		}
+		flush();
+		log.info("Stats ingestion buffer drained, failed hits: {}", failedHits.get());
+	}
+
+	private boolean enqueue(Stats stats) {
+		try {
+			switch (overflowPolicy) {
+				case BLOCK:
+					queue.put(stats);
+					return true;
+				case REJECT:
+					if (!queue.offer(stats, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+						throw new IngestionOverloadException("Stats ingestion queue is full");
+					}
+					return true;
+				case CALLER_RUNS:
+				default:
+					if (queue.offer(stats, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+						return true;
+					}
+					flush();
+					batchRepository.saveAll(List.of(stats));
+					return false;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IngestionOverloadException("Interrupted while queueing stats");
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			log.error("Stats flush failed", e);
+		}
+	}
+
+	private void writeBatch(List<Stats> batch) {
+		for (int attempt = 1; ; attempt++) {
+			try {
+				batchRepository.saveAll(batch);
+				return;
+			} catch (TransientDataAccessException | RecoverableDataAccessException | DataAccessResourceFailureException e) {
+				if (attempt >= retryAttempts || !backOff(attempt)) {
+					failedHits.addAndGet(batch.size());
+					log.error("Failed to write a batch of {} hits after {} attempts", batch.size(), attempt, e);
+					return;
+				}
+				log.warn("Attempt {} to write a batch of {} hits failed, retrying: {}", attempt, batch.size(), e.getMessage());
+			} catch (RuntimeException e) {
+				if (batch.size() == 1) {
+					failedHits.incrementAndGet();
+					log.error("Dropping hit {} that cannot be written", batch.get(0), e);
+					return;
+				}
+				int middle = batch.size() / 2;
+				writeBatch(batch.subList(0, middle));
+				writeBatch(batch.subList(middle, batch.size()));
+				return;
+			}
+		}
+	}
+
+	private boolean backOff(int attempt) {
+		try {
+			Thread.sleep(Math.min(retryBackoffMs << (attempt - 1), MAX_BACKOFF_MS));
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Earliest and latest creation time of a set of hits; hits without a time cannot match a range and are ignored.
+	 */
+	private static class HitWindow {
+		static final HitWindow EMPTY = new HitWindow(null, null);
+
+		private final LocalDateTime from;
+		private final LocalDateTime to;
+
+		HitWindow(LocalDateTime from, LocalDateTime to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		HitWindow including(LocalDateTime created) {
+			if (created == null) {
+				return this;
+			}
+			return union(new HitWindow(created, created));
+		}
+
+		HitWindow union(HitWindow other) {
+			if (from == null) {
+				return other;
+			}
+			if (other.from == null) {
+				return this;
+			}
+			return new HitWindow(from.isBefore(other.from) ? from : other.from, to.isAfter(other.to) ? to : other.to);
+		}
+
+		boolean overlaps(LocalDateTime start, LocalDateTime end) {
+			return from != null && !from.isAfter(end) && !to.isBefore(start);
+		}
+	}
+}
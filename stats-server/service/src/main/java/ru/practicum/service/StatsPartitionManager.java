@@ -0,0 +1,70 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.repo.StatsPartitionRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Keeps monthly partitions of the stats table ahead of the current month and drops whole partitions
+ * that are older than the retention period. Rows a month received before its partition existed are moved out of the
+ * default partition when the partition is created. Rollups are not touched, so old ranges stay answerable.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jdbc", matchIfMissing = true)
+public class StatsPartitionManager implements InitializingBean {
+	private final StatsPartitionRepository partitionRepository;
+	private final int monthsAhead;
+	private final int retentionMonths;
+
+	public StatsPartitionManager(StatsPartitionRepository partitionRepository,
+								 @Value("${stats.partition.months-ahead:2}") int monthsAhead,
+								 @Value("${stats.partition.retention-months:0}") int retentionMonths) {
+		this.partitionRepository = partitionRepository;
+		this.monthsAhead = monthsAhead;
+		this.retentionMonths = retentionMonths;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		maintain();
+	}
+
+	@Scheduled(cron = "${stats.partition.cron:0 0 3 * * *}")
+	public void maintain() {
+		maintain(YearMonth.now());
+	}
+
+	void maintain(YearMonth currentMonth) {
+		for (int i = 0; i <= monthsAhead; i++) {
+			YearMonth month = currentMonth.plusMonths(i);
+			try {
+				int moved = partitionRepository.createMonthPartition(month);
+				if (moved > 0) {
+					log.info("Moved {} rows of {} from the default stats partition to its own", moved, month);
+				}
+			} catch (DataAccessException e) {
+				log.warn("Could not create stats partition for {}: {}", month, e.getMessage());
+			}
+		}
+		if (retentionMonths <= 0) {
+			return;
+		}
+		YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+		List<YearMonth> partitions = partitionRepository.findMonthPartitions();
+		for (YearMonth month : partitions) {
+			if (month.isBefore(oldestKept)) {
+				log.info("Dropping stats partition for {}, retention is {} months", month, retentionMonths);
+				partitionRepository.dropMonthPartition(month);
+			}
+		}
+	}
+}
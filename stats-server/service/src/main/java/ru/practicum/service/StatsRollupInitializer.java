@@ -0,0 +1,31 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.repo.StatsRollupRepository;
+
+/**
+ * Fills the rollup tables from the raw stats table when they are empty, e.g. right after they were introduced.
+ * Runs before the web server starts, so no hits are ingested concurrently.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jdbc", matchIfMissing = true)
+@RequiredArgsConstructor
+public class StatsRollupInitializer implements InitializingBean {
+	private final StatsRollupRepository rollupRepository;
+
+	@Override
+	public void afterPropertiesSet() {
+		if (rollupRepository.isRebuildNeeded()) {
+			log.info("Rollup tables are empty, rebuilding them from raw stats");
+			rollupRepository.rebuild();
+		} else if (rollupRepository.isSketchRebuildNeeded()) {
+			log.info("Unique IP sketches are empty, rebuilding them from rollups");
+			rollupRepository.rebuildSketches();
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package ru.practicum.service;
 
+import ru.practicum.dto.EventHitsDto;
 import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.StatsResponseDto;
+import ru.practicum.enums.UniqueMode;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -9,5 +11,9 @@ import java.util.List;
 public interface StatsService {
 	void saveStats(StatsRequestDto request);
 
-	List<StatsResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+	void saveStatsBatch(List<StatsRequestDto> requests);
+
+	List<StatsResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, UniqueMode unique);
+
+	List<EventHitsDto> getEventHits(LocalDateTime start, LocalDateTime end, List<Long> eventIds, UniqueMode unique);
 }
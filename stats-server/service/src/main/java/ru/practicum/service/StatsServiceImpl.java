@@ -2,39 +2,96 @@ package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.dto.EventHitsDto;
 import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.StatsResponseDto;
+import ru.practicum.enums.UniqueMode;
 import ru.practicum.mapper.StatsDtoMapper;
-import ru.practicum.model.Stats;
+import ru.practicum.model.UriHits;
+import ru.practicum.repo.StatsBatchRepository;
+import ru.practicum.repo.StatsDictionaryRepository;
+import ru.practicum.repo.StatsRollupRepository;
 import ru.practicum.repo.StatsRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
+@ConditionalOnProperty(name = "stats.storage", havingValue = "jdbc", matchIfMissing = true)
 @Slf4j
 public class StatsServiceImpl implements StatsService {
-
 	private final StatsRepository repository;
+	private final StatsBatchRepository batchRepository;
+	private final StatsDictionaryRepository dictionaryRepository;
+	private final StatsRollupRepository rollupRepository;
+	private final StatsIngestionBuffer ingestionBuffer;
+
+	@Value("${stats.rollup.enabled:true}")
+	private boolean rollupEnabled;
 
-	@Transactional
 	@Override
 	public void saveStats(StatsRequestDto request) {
-		Stats stats = StatsDtoMapper.dtoToStats(request);
-		repository.save(stats);
+		ingestionBuffer.add(StatsDtoMapper.dtoToStats(request));
+	}
+
+	@Override
+	public void saveStatsBatch(List<StatsRequestDto> requests) {
+		batchRepository.saveAll(requests.stream()
+				.map(StatsDtoMapper::dtoToStats)
+				.collect(Collectors.toList()));
+	}
+
+	@Override
+	public List<StatsResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, UniqueMode unique) {
+		Collection<Integer> uriIds = null;
+		if (uris != null) {
+			uriIds = dictionaryRepository.findUriIds(uris).values();
+			if (uriIds.isEmpty()) {
+				return List.of();
+			}
+		}
+		return findHits(start, end, uriIds, unique).stream()
+				.map(uriHits -> new StatsResponseDto(dictionaryRepository.getAppName(uriHits.getAppId()),
+						dictionaryRepository.getUri(uriHits.getUriId()), uriHits.getHits()))
+				.collect(Collectors.toList());
 	}
 
 	@Override
-	public List<StatsResponseDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
-		if (unique) {
-			return uris != null ? repository.findStatsUniqueIp(start, end, uris) :
-					repository.findAllStatsUniqueIp(start, end);
-		} else {
-			return uris != null ? repository.findStatsAllIp(start, end, uris) :
-					repository.findAllStatsAllIp(start, end);
+	public List<EventHitsDto> getEventHits(LocalDateTime start, LocalDateTime end, List<Long> eventIds, UniqueMode unique) {
+		if (eventIds.isEmpty()) {
+			return List.of();
+		}
+		Map<Integer, Long> eventsByUriId = dictionaryRepository.findEventUriIds(eventIds);
+		if (eventsByUriId.isEmpty()) {
+			return List.of();
+		}
+		// hits of an event recorded by several apps are summed up
+		Map<Long, Long> hits = new HashMap<>();
+		for (UriHits uriHits : findHits(start, end, eventsByUriId.keySet(), unique)) {
+			hits.merge(eventsByUriId.get(uriHits.getUriId()), uriHits.getHits(), Long::sum);
+		}
+		return hits.entrySet().stream()
+				.map(entry -> new EventHitsDto(entry.getKey(), entry.getValue()))
+				.collect(Collectors.toList());
+	}
+
+	private List<UriHits> findHits(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds, UniqueMode unique) {
+		// hits still queued in the range are written first, reads of older ranges go straight to the database
+		ingestionBuffer.flushOverlapping(start, end);
+		if (rollupEnabled) {
+			if (unique == UniqueMode.APPROX) {
+				return rollupRepository.findApproxUniqueStats(start, end, uriIds);
+			}
+			return rollupRepository.findStats(start, end, uriIds, unique == UniqueMode.EXACT);
 		}
+		return repository.findStats(start, end, uriIds, unique != UniqueMode.ALL);
 	}
 }
@@ -0,0 +1,41 @@
+create TABLE IF NOT EXISTS stats (
+    stats_id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY UNIQUE NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    ip varchar(20) NOT NULL,
+    created timestamp WITHOUT TIME ZONE
+);
+
+create TABLE IF NOT EXISTS stats_rollup (
+    granularity varchar(6) NOT NULL,
+    bucket_start timestamp WITHOUT TIME ZONE NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app, uri)
+);
+
+create INDEX IF NOT EXISTS idx_stats_rollup_uri ON stats_rollup (uri, granularity, bucket_start);
+
+create TABLE IF NOT EXISTS stats_rollup_ip (
+    granularity varchar(6) NOT NULL,
+    bucket_start timestamp WITHOUT TIME ZONE NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    ip varchar(20) NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app, uri, ip)
+);
+
+create INDEX IF NOT EXISTS idx_stats_rollup_ip_uri ON stats_rollup_ip (uri, granularity, bucket_start);
+
+create TABLE IF NOT EXISTS stats_rollup_hll (
+    granularity varchar(6) NOT NULL,
+    bucket_start timestamp WITHOUT TIME ZONE NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    register_idx INTEGER NOT NULL,
+    register_rank SMALLINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app, uri, register_idx)
+);
+
+create INDEX IF NOT EXISTS idx_stats_rollup_hll_uri ON stats_rollup_hll (uri, granularity, bucket_start);
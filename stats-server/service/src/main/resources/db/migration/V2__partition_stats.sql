@@ -0,0 +1,38 @@
+-- stats becomes a table partitioned by month on created. Rows with a NULL or out-of-range created go to stats_default.
+-- A primary key on a partitioned table has to include created, which is nullable, so stats_id stays unique
+-- only through its identity sequence.
+ALTER TABLE stats RENAME TO stats_unpartitioned;
+ALTER SEQUENCE stats_stats_id_seq RENAME TO stats_unpartitioned_stats_id_seq;
+
+create TABLE stats (
+    stats_id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    app varchar(100) NOT NULL,
+    uri varchar(100) NOT NULL,
+    ip varchar(20) NOT NULL,
+    created timestamp WITHOUT TIME ZONE
+) PARTITION BY RANGE (created);
+
+create TABLE stats_default PARTITION OF stats DEFAULT;
+
+DO $$
+DECLARE
+    month_start timestamp := date_trunc('month', COALESCE((SELECT min(created) FROM stats_unpartitioned), now()));
+    last_month timestamp := date_trunc('month', now() + interval '2 months');
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF stats FOR VALUES FROM (%L) TO (%L)',
+                'stats_p' || to_char(month_start, 'YYYYMM'), month_start, month_start + interval '1 month');
+        month_start := month_start + interval '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO stats (stats_id, app, uri, ip, created)
+SELECT stats_id, app, uri, ip, created FROM stats_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('stats', 'stats_id'), COALESCE((SELECT max(stats_id) FROM stats), 0) + 1, false);
+
+DROP TABLE stats_unpartitioned;
+
+-- covering indexes: the raw /stats queries filter on uri and created and read only app, uri and ip
+create INDEX idx_stats_uri_created ON stats (uri, created) INCLUDE (app, ip);
+create INDEX idx_stats_created ON stats (created) INCLUDE (app, uri, ip);
@@ -0,0 +1,141 @@
+-- app names and uris are stored once in dictionaries and referenced by integer ids. A uri of the form /events/{id}
+-- also keeps the parsed event id, so views of events are looked up without building and parsing uri strings.
+-- ip becomes inet; values that are not IP addresses are kept as NULL in stats and dropped from stats_rollup_ip.
+create TABLE stats_app (
+    app_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name varchar(100) NOT NULL UNIQUE
+);
+
+create TABLE stats_uri (
+    uri_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    uri varchar(100) NOT NULL UNIQUE,
+    event_id BIGINT
+);
+
+create INDEX idx_stats_uri_event_id ON stats_uri (event_id) WHERE event_id IS NOT NULL;
+
+create FUNCTION pg_temp.stats_try_inet(ip varchar) RETURNS inet LANGUAGE plpgsql IMMUTABLE AS $$
+BEGIN
+    RETURN ip::inet;
+EXCEPTION WHEN invalid_text_representation THEN
+    RETURN NULL;
+END $$;
+
+INSERT INTO stats_app (name)
+SELECT app FROM stats
+UNION SELECT app FROM stats_rollup
+UNION SELECT app FROM stats_rollup_ip
+UNION SELECT app FROM stats_rollup_hll;
+
+INSERT INTO stats_uri (uri, event_id)
+SELECT uri, substring(uri FROM '^/events/([1-9][0-9]{0,17})$')::BIGINT FROM (
+    SELECT uri FROM stats
+    UNION SELECT uri FROM stats_rollup
+    UNION SELECT uri FROM stats_rollup_ip
+    UNION SELECT uri FROM stats_rollup_hll
+) AS uris;
+
+-- stats is recreated with the same partitions, the old ones are renamed first to free their names
+ALTER TABLE stats RENAME TO stats_untyped;
+ALTER SEQUENCE stats_stats_id_seq RENAME TO stats_untyped_stats_id_seq;
+
+create TABLE stats (
+    stats_id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip inet,
+    created timestamp WITHOUT TIME ZONE
+) PARTITION BY RANGE (created);
+
+DO $$
+DECLARE
+    part record;
+BEGIN
+    FOR part IN SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'stats_untyped'::regclass LOOP
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', part.relname, part.relname || '_untyped');
+        EXECUTE format('CREATE TABLE %I PARTITION OF stats %s', part.relname, part.bound);
+    END LOOP;
+END $$;
+
+INSERT INTO stats (stats_id, app_id, uri_id, ip, created)
+SELECT s.stats_id, a.app_id, u.uri_id, pg_temp.stats_try_inet(s.ip), s.created
+FROM stats_untyped s
+JOIN stats_app a ON a.name = s.app
+JOIN stats_uri u ON u.uri = s.uri;
+
+SELECT setval(pg_get_serial_sequence('stats', 'stats_id'), COALESCE((SELECT max(stats_id) FROM stats), 0) + 1, false);
+
+DROP TABLE stats_untyped;
+
+create INDEX idx_stats_uri_created ON stats (uri_id, created) INCLUDE (app_id, ip);
+create INDEX idx_stats_created ON stats (created) INCLUDE (app_id, uri_id, ip);
+
+ALTER TABLE stats_rollup RENAME TO stats_rollup_untyped;
+ALTER TABLE stats_rollup_untyped RENAME CONSTRAINT stats_rollup_pkey TO stats_rollup_untyped_pkey;
+
+create TABLE stats_rollup (
+    granularity varchar(6) NOT NULL,
+    bucket_start timestamp WITHOUT TIME ZONE NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+INSERT INTO stats_rollup (granularity, bucket_start, app_id, uri_id, hits)
+SELECT r.granularity, r.bucket_start, a.app_id, u.uri_id, r.hits
+FROM stats_rollup_untyped r
+JOIN stats_app a ON a.name = r.app
+JOIN stats_uri u ON u.uri = r.uri;
+
+DROP TABLE stats_rollup_untyped;
+
+create INDEX idx_stats_rollup_uri ON stats_rollup (uri_id, granularity, bucket_start);
+
+ALTER TABLE stats_rollup_ip RENAME TO stats_rollup_ip_untyped;
+ALTER TABLE stats_rollup_ip_untyped RENAME CONSTRAINT stats_rollup_ip_pkey TO stats_rollup_ip_untyped_pkey;
+
+create TABLE stats_rollup_ip (
+    granularity varchar(6) NOT NULL,
+    bucket_start timestamp WITHOUT TIME ZONE NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    ip inet NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id, ip)
+);
+
+INSERT INTO stats_rollup_ip (granularity, bucket_start, app_id, uri_id, ip)
+SELECT DISTINCT r.granularity, r.bucket_start, a.app_id, u.uri_id, pg_temp.stats_try_inet(r.ip)
+FROM stats_rollup_ip_untyped r
+JOIN stats_app a ON a.name = r.app
+JOIN stats_uri u ON u.uri = r.uri
+WHERE pg_temp.stats_try_inet(r.ip) IS NOT NULL;
+
+DROP TABLE stats_rollup_ip_untyped;
+
+create INDEX idx_stats_rollup_ip_uri ON stats_rollup_ip (uri_id, granularity, bucket_start);
+
+ALTER TABLE stats_rollup_hll RENAME TO stats_rollup_hll_untyped;
+ALTER TABLE stats_rollup_hll_untyped RENAME CONSTRAINT stats_rollup_hll_pkey TO stats_rollup_hll_untyped_pkey;
+
+create TABLE stats_rollup_hll (
+    granularity varchar(6) NOT NULL,
+    bucket_start timestamp WITHOUT TIME ZONE NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    register_idx INTEGER NOT NULL,
+    register_rank SMALLINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id, register_idx)
+);
+
+INSERT INTO stats_rollup_hll (granularity, bucket_start, app_id, uri_id, register_idx, register_rank)
+SELECT r.granularity, r.bucket_start, a.app_id, u.uri_id, r.register_idx, r.register_rank
+FROM stats_rollup_hll_untyped r
+JOIN stats_app a ON a.name = r.app
+JOIN stats_uri u ON u.uri = r.uri;
+
+DROP TABLE stats_rollup_hll_untyped;
+
+create INDEX idx_stats_rollup_hll_uri ON stats_rollup_hll (uri_id, granularity, bucket_start);
@@ -7,8 +7,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.codec.EventHitsCodec;
+import ru.practicum.dto.EventHitsDto;
+import ru.practicum.dto.EventStatsRequestDto;
 import ru.practicum.dto.StatsRequestDto;
 import ru.practicum.dto.StatsResponseDto;
+import ru.practicum.enums.UniqueMode;
 import ru.practicum.service.StatsService;
 
 import java.time.LocalDateTime;
@@ -19,6 +23,7 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -49,6 +54,73 @@ class StatsControllerTest {
 		verify(service, times(1)).saveStats(any());
 	}
 
+	@Test
+	void saveStatsBatch_whenJsonArray_thenSavedWithSingleAck() throws Exception {
+		List<StatsRequestDto> requests = List.of(
+				new StatsRequestDto("ewm-main-service", "/events/1", "192.163.0.1",
+						LocalDateTime.of(2024, Month.MAY, 19, 11, 0, 23)),
+				new StatsRequestDto("ewm-main-service", "/events/2", "192.163.0.2",
+						LocalDateTime.of(2024, Month.MAY, 19, 11, 0, 24)));
+
+		mockMvc.perform(post("/hits")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(requests)))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.saved").value(2));
+		verify(service, times(1)).saveStatsBatch(requests);
+	}
+
+	@Test
+	void saveStatsBatch_whenNdjsonStream_thenSavedWithSingleAck() throws Exception {
+		String body = "{\"app\":\"ewm-main-service\",\"uri\":\"/events/1\",\"ip\":\"192.163.0.1\",\"timestamp\":\"2024-05-19 11:00:23\"}\n" +
+				"{\"app\":\"ewm-main-service\",\"uri\":\"/events/2\",\"ip\":\"192.163.0.2\",\"timestamp\":\"2024-05-19 11:00:24\"}\n";
+
+		mockMvc.perform(post("/hits")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content(body))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.saved").value(2));
+		verify(service, times(1)).saveStatsBatch(argThat(batch -> batch.size() == 2));
+	}
+
+	@Test
+	void saveStats_whenAppIsBlank_thenReturnStatusBadRequest() throws Exception {
+		StatsRequestDto request = new StatsRequestDto(" ", "/events/1", "192.163.0.1",
+				LocalDateTime.of(2024, Month.MAY, 19, 11, 0, 23));
+
+		mockMvc.perform(post("/hit")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isBadRequest());
+		verifyNoInteractions(service);
+	}
+
+	@Test
+	void saveStatsBatch_whenOneHitHasNoTimestamp_thenNothingIsSaved() throws Exception {
+		List<StatsRequestDto> requests = List.of(
+				new StatsRequestDto("ewm-main-service", "/events/1", "192.163.0.1",
+						LocalDateTime.of(2024, Month.MAY, 19, 11, 0, 23)),
+				new StatsRequestDto("ewm-main-service", "/events/2", "192.163.0.2", null));
+
+		mockMvc.perform(post("/hits")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(requests)))
+				.andExpect(status().isBadRequest());
+		verifyNoInteractions(service);
+	}
+
+	@Test
+	void saveStatsBatch_whenNdjsonHitUriIsTooLong_thenReturnStatusBadRequest() throws Exception {
+		String body = "{\"app\":\"ewm-main-service\",\"uri\":\"/" + "a".repeat(100) +
+				"\",\"ip\":\"192.163.0.1\",\"timestamp\":\"2024-05-19 11:00:23\"}\n";
+
+		mockMvc.perform(post("/hits")
+						.contentType(MediaType.APPLICATION_NDJSON)
+						.content(body))
+				.andExpect(status().isBadRequest());
+		verifyNoInteractions(service);
+	}
+
 	@Test
 	void getStats_whenCorrectParams_thenReturnStatsWithStatusOk() throws Exception {
 		String start = "2024-04-10 10:10:10";
@@ -61,7 +133,7 @@ class StatsControllerTest {
 		response.setUri("/events/1");
 		response.setHits(1);
 
-		when(service.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean())).thenReturn(List.of(response));
+		when(service.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), eq(UniqueMode.ALL))).thenReturn(List.of(response));
 
 		mockMvc.perform(get("/stats")
 						.param("start", start)
@@ -95,4 +167,61 @@ class StatsControllerTest {
 						.contentType(MediaType.APPLICATION_JSON))
 				.andExpect(status().isBadRequest());
 	}
+
+	@Test
+	void getStats_whenUniqueApprox_thenApproxModeIsUsed() throws Exception {
+		StatsResponseDto response = new StatsResponseDto("ewm-main-service", "/events/1", 3);
+		when(service.getStats(any(LocalDateTime.class), any(LocalDateTime.class), isNull(), eq(UniqueMode.APPROX)))
+				.thenReturn(List.of(response));
+
+		mockMvc.perform(get("/stats")
+						.param("start", "2024-04-10 10:10:10")
+						.param("end", "2024-05-10 20:20:20")
+						.param("unique", "approx"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].hits").value(3));
+	}
+
+	@Test
+	void getStats_whenUnknownUniqueMode_thenReturnStatusBadRequest() throws Exception {
+		mockMvc.perform(get("/stats")
+						.param("start", "2024-04-10 10:10:10")
+						.param("end", "2024-05-10 20:20:20")
+						.param("unique", "maybe"))
+				.andExpect(status().isBadRequest());
+		verify(service, never()).getStats(any(), any(), any(), any());
+	}
+
+	@Test
+	void getEventStats_whenJsonAccepted_thenHitsByEventIdAreReturnedAsJson() throws Exception {
+		EventStatsRequestDto request = new EventStatsRequestDto(LocalDateTime.of(2024, Month.APRIL, 10, 10, 10, 10),
+				LocalDateTime.of(2024, Month.MAY, 10, 20, 20, 20), List.of(1L, 2L), true);
+		when(service.getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), eq(List.of(1L, 2L)), eq(UniqueMode.EXACT)))
+				.thenReturn(List.of(new EventHitsDto(1L, 5)));
+
+		mockMvc.perform(post("/stats/events")
+						.contentType(MediaType.APPLICATION_JSON)
+						.accept(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].eventId").value(1))
+				.andExpect(jsonPath("$[0].hits").value(5));
+	}
+
+	@Test
+	void getEventStats_whenBinaryAccepted_thenHitsAreVarintEncoded() throws Exception {
+		EventStatsRequestDto request = new EventStatsRequestDto(LocalDateTime.of(2024, Month.APRIL, 10, 10, 10, 10),
+				LocalDateTime.of(2024, Month.MAY, 10, 20, 20, 20), List.of(1L, 300L), false);
+		List<EventHitsDto> hits = List.of(new EventHitsDto(300L, 2), new EventHitsDto(1L, 5));
+		when(service.getEventHits(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), eq(UniqueMode.ALL)))
+				.thenReturn(hits);
+
+		mockMvc.perform(post("/stats/events")
+						.contentType(MediaType.APPLICATION_JSON)
+						.accept(EventHitsCodec.MEDIA_TYPE)
+						.content(objectMapper.writeValueAsString(request)))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(EventHitsCodec.MEDIA_TYPE))
+				.andExpect(content().bytes(EventHitsCodec.encode(hits)));
+	}
 }
@@ -0,0 +1,149 @@
+package ru.practicum.hitlog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.enums.UniqueMode;
+import ru.practicum.model.Stats;
+import ru.practicum.model.UriHits;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitLogTest {
+	private static final LocalDateTime START = LocalDateTime.of(2024, 5, 10, 10, 0);
+	private static final LocalDateTime END = START.plusDays(1);
+
+	@TempDir
+	Path directory;
+
+	private HitLog hitLog;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		hitLog = new HitLog(directory, Duration.ofHours(1), 1000, 3);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		hitLog.close();
+	}
+
+	@Test
+	void aggregate_whenHitsAreFlushedOrNot_thenAllAreCounted() throws IOException {
+		hitLog.append(List.of(
+				hit("/events/1", "10.0.0.1", START),
+				hit("/events/1", "10.0.0.1", START.plusMinutes(90)),
+				hit("/events/2", "2001:db8:0:0:0:0:0:1", START.plusMinutes(5))));
+		hitLog.flush();
+		hitLog.append(List.of(
+				hit("/events/1", "10.0.0.2", START.plusMinutes(10)),
+				hit("/events/2", null, START.plusMinutes(15))));
+
+		assertThat(hitLog.getSegmentCount()).isEqualTo(2);
+		assertThat(hitLog.getUnflushedCount()).isEqualTo(2);
+		assertThat(hitsByUri(hitLog.aggregate(START, END, null, UniqueMode.ALL))).isEqualTo(Map.of("/events/1", 3L, "/events/2", 2L));
+		assertThat(hitsByUri(hitLog.aggregate(START, END, null, UniqueMode.EXACT))).isEqualTo(Map.of("/events/1", 2L, "/events/2", 1L));
+		assertThat(hitsByUri(hitLog.aggregate(START, END, null, UniqueMode.APPROX))).isEqualTo(Map.of("/events/1", 2L, "/events/2", 1L));
+	}
+
+	@Test
+	void aggregate_whenRangeCutsSegments_thenOnlyHitsInsideTheInclusiveRangeAreCounted() throws IOException {
+		List<Stats> hits = new ArrayList<>();
+		for (int minute = 0; minute < 180; minute++) {
+			hits.add(hit("/events/1", "10.0.0." + minute, START.plusMinutes(minute)));
+		}
+		hitLog.append(hits);
+		hitLog.flush();
+
+		List<UriHits> result = hitLog.aggregate(START.plusMinutes(30), START.plusMinutes(150), null, UniqueMode.ALL);
+
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getHits()).isEqualTo(121);
+		assertThat(hitLog.aggregate(END, END.plusDays(1), null, UniqueMode.ALL)).isEmpty();
+	}
+
+	@Test
+	void aggregate_whenReopened_thenDictionariesAndSegmentsAreRead() throws IOException {
+		hitLog.append(List.of(hit("/events/7", "10.0.0.1", START), hit("/about", "10.0.0.1", START)));
+		hitLog.close();
+
+		hitLog = new HitLog(directory, Duration.ofHours(1), 1000, 3);
+
+		Map<Integer, Long> events = hitLog.findEventUriIds(List.of(7L, 8L));
+		assertThat(events).containsOnlyKeys(hitLog.findUriIds(List.of("/events/7")).values());
+		assertThat(hitsByUri(hitLog.aggregate(START, END, events.keySet(), UniqueMode.ALL))).isEqualTo(Map.of("/events/7", 1L));
+	}
+
+	@Test
+	void compact_whenWindowIsOver_thenItsSegmentsAreMergedWithTheSameCounts() throws IOException {
+		for (int i = 0; i < 4; i++) {
+			hitLog.append(List.of(hit("/events/1", "10.0.0." + i, START.plusMinutes(i)),
+					hit("/events/2", "10.0.0.1", START.plusMinutes(70 + i))));
+			hitLog.flush();
+		}
+		Map<String, Long> before = hitsByUri(hitLog.aggregate(START, END, null, UniqueMode.EXACT));
+
+		int merged = hitLog.compact(START.plusMinutes(75));
+
+		// the 10:00 window is over, the current 11:00 window has reached the threshold of 3 segments
+		assertThat(merged).isEqualTo(6);
+		assertThat(hitLog.getSegmentCount()).isEqualTo(2);
+		assertThat(segmentFiles()).hasSize(2);
+		assertThat(hitsByUri(hitLog.aggregate(START, END, null, UniqueMode.EXACT))).isEqualTo(before);
+	}
+
+	@Test
+	void open_whenCompactionWasInterruptedBeforeDeletingInputs_thenInputsAreDropped() throws IOException {
+		for (int i = 0; i < 2; i++) {
+			hitLog.append(List.of(hit("/events/1", "10.0.0." + i, START.plusMinutes(i))));
+			hitLog.flush();
+		}
+		List<Path> inputs = segmentFiles();
+		Map<Path, byte[]> copies = inputs.stream().collect(Collectors.toMap(file -> file, HitLogTest::read));
+		hitLog.compact(END);
+		hitLog.close();
+		for (Map.Entry<Path, byte[]> copy : copies.entrySet()) {
+			Files.write(copy.getKey(), copy.getValue());
+		}
+
+		hitLog = new HitLog(directory, Duration.ofHours(1), 1000, 3);
+
+		assertThat(hitLog.getSegmentCount()).isEqualTo(1);
+		assertThat(segmentFiles()).doesNotContainAnyElementsOf(inputs);
+		assertThat(hitsByUri(hitLog.aggregate(START, END, null, UniqueMode.ALL))).isEqualTo(Map.of("/events/1", 2L));
+	}
+
+	private List<Path> segmentFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.toString().endsWith(HitLogSegment.EXTENSION)).collect(Collectors.toList());
+		}
+	}
+
+	private Map<String, Long> hitsByUri(List<UriHits> hits) {
+		return hits.stream().collect(Collectors.toMap(uriHits -> hitLog.getUri(uriHits.getUriId()), UriHits::getHits));
+	}
+
+	private static Stats hit(String uri, String ip, LocalDateTime created) {
+		return new Stats("ewm-main-service", uri, ip, created);
+	}
+
+	private static byte[] read(Path file) {
+		try {
+			return Files.readAllBytes(file);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package ru.practicum.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IpAddressesTest {
+
+	@Test
+	void normalize_whenIpv4_thenUnchanged() {
+		assertThat(IpAddresses.normalize("192.168.0.1")).isEqualTo("192.168.0.1");
+		assertThat(IpAddresses.normalize(" 10.0.0.255 ")).isEqualTo("10.0.0.255");
+	}
+
+	@Test
+	void normalize_whenIpv6_thenSameFormForEquivalentLiterals() {
+		assertThat(IpAddresses.normalize("2001:DB8::1")).isEqualTo(IpAddresses.normalize("2001:db8:0:0::1"));
+		assertThat(IpAddresses.normalize("::ffff:10.0.0.1")).isEqualTo("10.0.0.1");
+	}
+
+	@Test
+	void normalize_whenNotAnAddress_thenNull() {
+		assertThat(IpAddresses.normalize(null)).isNull();
+		assertThat(IpAddresses.normalize("localhost")).isNull();
+		assertThat(IpAddresses.normalize("256.0.0.1")).isNull();
+		assertThat(IpAddresses.normalize("010.0.0.1")).isNull();
+		assertThat(IpAddresses.normalize("1.2.3")).isNull();
+		assertThat(IpAddresses.normalize("1::2::3")).isNull();
+		assertThat(IpAddresses.normalize(".:")).isNull();
+		assertThat(IpAddresses.normalize("..::1")).isNull();
+	}
+}
@@ -0,0 +1,65 @@
+package ru.practicum.repo;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each test against a fresh database of an embedded PostgreSQL, migrated with the service's Flyway scripts.
+ * The pool has a single connection, so code that needs a second one while holding the first fails instead of passing.
+ */
+abstract class PostgresRepositoryTest {
+	private static final AtomicInteger DATABASES = new AtomicInteger();
+	private static EmbeddedPostgres postgres;
+
+	protected HikariDataSource dataSource;
+	protected NamedParameterJdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void startPostgres() throws IOException {
+		postgres = EmbeddedPostgres.start();
+	}
+
+	@AfterAll
+	static void stopPostgres() throws IOException {
+		postgres.close();
+	}
+
+	@BeforeEach
+	void createDatabase() {
+		String name = "stats_" + DATABASES.incrementAndGet();
+		new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE DATABASE " + name);
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", name));
+		dataSource.setMaximumPoolSize(1);
+		dataSource.setConnectionTimeout(1_000);
+		jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+	}
+
+	@AfterEach
+	void closeDataSource() {
+		dataSource.close();
+	}
+
+	protected void migrate() {
+		migrate(MigrationVersion.LATEST);
+	}
+
+	protected void migrate(MigrationVersion target) {
+		Flyway.configure()
+				.dataSource(dataSource)
+				.target(target)
+				.load()
+				.migrate();
+	}
+}
@@ -0,0 +1,114 @@
+package ru.practicum.repo;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.Stats;
+import ru.practicum.model.UriHits;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatsJdbcRepositoryTest extends PostgresRepositoryTest {
+	private static final LocalDateTime START = LocalDateTime.of(2024, 5, 10, 10, 0);
+	private static final LocalDateTime END = START.plusDays(1);
+
+	private TransactionTemplate transactionTemplate;
+	private StatsDictionaryRepository dictionaryRepository;
+	private StatsRollupRepository rollupRepository;
+	private StatsRepository repository;
+	private StatsBatchRepository batchRepository;
+
+	@BeforeEach
+	void setUp() {
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		dictionaryRepository = new StatsDictionaryRepository(jdbcTemplate, transactionManager);
+		rollupRepository = new StatsRollupRepository(jdbcTemplate);
+		repository = new StatsRepository(jdbcTemplate);
+		batchRepository = new StatsBatchRepository(jdbcTemplate.getJdbcTemplate(), dictionaryRepository, rollupRepository,
+				transactionTemplate);
+	}
+
+	@Test
+	void migrate_whenUntypedRowsExist_thenV3MovesThemToDictionaryIdsAndInet() {
+		migrate(MigrationVersion.fromVersion("2"));
+		insertUntyped("stats (app, uri, ip, created) VALUES (?, ?, ?, ?)", "ewm-main-service", "/events/5", "10.0.0.1",
+				Timestamp.valueOf(START));
+		insertUntyped("stats (app, uri, ip, created) VALUES (?, ?, ?, ?)", "ewm-main-service", "/events/5", "unknown",
+				Timestamp.valueOf(START.plusMinutes(1)));
+		insertUntyped("stats (app, uri, ip, created) VALUES (?, ?, ?, ?)", "ewm-main-service", "/about", "2001:db8::1",
+				Timestamp.valueOf(START.plusMinutes(2)));
+		insertUntyped("stats_rollup (granularity, bucket_start, app, uri, hits) VALUES (?, ?, ?, ?, ?)", "HOUR",
+				Timestamp.valueOf(START), "ewm-main-service", "/events/5", 2L);
+		insertUntyped("stats_rollup_ip (granularity, bucket_start, app, uri, ip) VALUES (?, ?, ?, ?, ?)", "HOUR",
+				Timestamp.valueOf(START), "ewm-main-service", "/events/5", "10.0.0.1");
+		insertUntyped("stats_rollup_ip (granularity, bucket_start, app, uri, ip) VALUES (?, ?, ?, ?, ?)", "HOUR",
+				Timestamp.valueOf(START), "ewm-main-service", "/events/5", "unknown");
+
+		migrate();
+
+		Map<Integer, Long> events = dictionaryRepository.findEventUriIds(List.of(5L));
+		assertThat(events.values()).containsExactly(5L);
+		int eventUriId = events.keySet().iterator().next();
+		assertThat(dictionaryRepository.getUri(eventUriId)).isEqualTo("/events/5");
+		assertThat(hitsByUri(repository.findStats(START, END, null, false))).isEqualTo(Map.of("/events/5", 2L, "/about", 1L));
+		assertThat(hitsByUri(repository.findStats(START, END, null, true))).isEqualTo(Map.of("/events/5", 1L, "/about", 1L));
+		assertThat(queryStrings("SELECT host(ip) FROM stats WHERE ip IS NOT NULL ORDER BY created"))
+				.containsExactly("10.0.0.1", "2001:db8::1");
+		assertThat(queryStrings("SELECT hits::text FROM stats_rollup WHERE uri_id = " + eventUriId)).containsExactly("2");
+		assertThat(queryStrings("SELECT host(ip) FROM stats_rollup_ip")).containsExactly("10.0.0.1");
+		assertThat(queryStrings("SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+				"WHERE i.inhparent = 'stats'::regclass")).contains("stats_default");
+	}
+
+	@Test
+	void saveAll_whenBatchHasNewNamesAndPoolHasOneConnection_thenHitsAreCountedFromRawRowsAndRollups() {
+		migrate();
+
+		batchRepository.saveAll(List.of(
+				new Stats("ewm-main-service", "/events/5", "10.0.0.1", START.plusMinutes(5)),
+				new Stats("ewm-main-service", "/events/5", "10.0.0.1", START.plusMinutes(65)),
+				new Stats("ewm-main-service", "/events/5", "2001:db8::1", START.plusMinutes(70)),
+				new Stats("ewm-main-service", "/events/5", null, START.plusMinutes(75)),
+				new Stats("ewm-main-service", "/about", "10.0.0.2", START.plusMinutes(80))));
+
+		assertThat(hitsByUri(repository.findStats(START, END, null, false))).isEqualTo(Map.of("/events/5", 4L, "/about", 1L));
+		assertThat(hitsByUri(repository.findStats(START, END, null, true))).isEqualTo(Map.of("/events/5", 2L, "/about", 1L));
+		assertThat(hitsByUri(rollupRepository.findStats(START, END, null, false))).isEqualTo(Map.of("/events/5", 4L, "/about", 1L));
+		assertThat(hitsByUri(rollupRepository.findStats(START, END, null, true))).isEqualTo(Map.of("/events/5", 2L, "/about", 1L));
+		assertThat(hitsByUri(rollupRepository.findApproxUniqueStats(START, END, null))).isEqualTo(Map.of("/events/5", 2L, "/about", 1L));
+		Map<String, Integer> uriIds = dictionaryRepository.findUriIds(List.of("/about", "/unknown"));
+		assertThat(uriIds).containsOnlyKeys("/about");
+		assertThat(hitsByUri(repository.findStats(START, END, uriIds.values(), false))).isEqualTo(Map.of("/about", 1L));
+	}
+
+	@Test
+	void getOrCreateUriIds_whenCalledInsideTransaction_thenIllegalStateExceptionIsThrown() {
+		migrate();
+
+		assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status ->
+				dictionaryRepository.getOrCreateUriIds(List.of("/events/1"))));
+	}
+
+	private void insertUntyped(String insert, Object... values) {
+		jdbcTemplate.getJdbcTemplate().update("INSERT INTO " + insert, values);
+	}
+
+	private List<String> queryStrings(String sql) {
+		return jdbcTemplate.getJdbcTemplate().queryForList(sql, String.class);
+	}
+
+	private Map<String, Long> hitsByUri(List<UriHits> hits) {
+		return hits.stream().collect(Collectors.toMap(uriHits -> dictionaryRepository.getUri(uriHits.getUriId()),
+				UriHits::getHits));
+	}
+}
@@ -0,0 +1,95 @@
+package ru.practicum.repo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StatsPartitionRepositoryTest extends PostgresRepositoryTest {
+	private static final YearMonth MONTH = YearMonth.of(2031, 3);
+
+	private JdbcTemplate jdbc;
+	private StatsPartitionRepository partitionRepository;
+
+	@BeforeEach
+	void setUp() {
+		jdbc = jdbcTemplate.getJdbcTemplate();
+		partitionRepository = new StatsPartitionRepository(jdbc,
+				new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+		migrate();
+	}
+
+	@Test
+	void createMonthPartition_whenDefaultHoldsRowsOfMonth_thenRowsAreMovedIntoNewPartition() {
+		insertHit(MONTH.atDay(1).atStartOfDay());
+		insertHit(MONTH.atEndOfMonth().atTime(23, 59, 59));
+		insertHit(MONTH.plusMonths(1).atDay(1).atStartOfDay());
+		insertHit(null);
+
+		int moved = partitionRepository.createMonthPartition(MONTH);
+
+		assertThat(moved).isEqualTo(2);
+		assertThat(partitionRepository.findMonthPartitions()).contains(MONTH);
+		assertThat(count("stats_p203103")).isEqualTo(2);
+		assertThat(count("stats_default")).isEqualTo(2);
+		assertThat(count("stats")).isEqualTo(4);
+		assertThat(jdbc.queryForList("SELECT conname::text FROM pg_constraint WHERE conrelid = 'stats_p203103'::regclass " +
+				"AND contype = 'c'", String.class)).isEmpty();
+
+		insertHit(MONTH.atDay(15).atStartOfDay());
+		assertThat(count("stats_p203103")).isEqualTo(3);
+	}
+
+	@Test
+	void createMonthPartition_whenDefaultHasNoRowsOfMonth_thenPartitionIsCreatedEmpty() {
+		insertHit(MONTH.plusMonths(1).atDay(1).atStartOfDay());
+
+		int moved = partitionRepository.createMonthPartition(MONTH);
+
+		assertThat(moved).isZero();
+		assertThat(partitionRepository.findMonthPartitions()).contains(MONTH);
+		assertThat(count("stats_p203103")).isZero();
+		assertThat(count("stats_default")).isEqualTo(1);
+	}
+
+	@Test
+	void createMonthPartition_whenPartitionExists_thenNothingChanges() {
+		partitionRepository.createMonthPartition(MONTH);
+		insertHit(MONTH.atDay(2).atStartOfDay());
+
+		int moved = partitionRepository.createMonthPartition(MONTH);
+
+		assertThat(moved).isZero();
+		assertThat(count("stats_p203103")).isEqualTo(1);
+		assertThat(partitionRepository.findMonthPartitions()).filteredOn(MONTH::equals).hasSize(1);
+	}
+
+	@Test
+	void dropMonthPartition_whenPartitionExists_thenItsRowsAreDropped() {
+		partitionRepository.createMonthPartition(MONTH);
+		insertHit(MONTH.atDay(2).atStartOfDay());
+
+		partitionRepository.dropMonthPartition(MONTH);
+
+		assertThat(partitionRepository.findMonthPartitions()).doesNotContain(MONTH);
+		assertThat(count("stats")).isZero();
+	}
+
+	private void insertHit(LocalDateTime created) {
+		jdbc.update("INSERT INTO stats (app_id, uri_id, ip, created) VALUES (1, 1, NULL, ?)",
+				created == null ? null : Timestamp.valueOf(created));
+	}
+
+	private long count(String table) {
+		List<Long> counts = jdbc.queryForList("SELECT count(*) FROM " + table, Long.class);
+		return counts.get(0);
+	}
+}
@@ -0,0 +1,53 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.enums.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupRangeTest {
+
+	@Test
+	void split_whenRangeSpansDays_thenCoarsestBucketsInTheMiddleAndRawRowsAtEdges() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 10, 22, 58, 30);
+		LocalDateTime end = LocalDateTime.of(2024, 5, 13, 1, 2, 15);
+
+		List<RollupRange.Segment> segments = RollupRange.split(start, end);
+
+		assertThat(segments).containsExactly(
+				new RollupRange.Segment(null, start, LocalDateTime.of(2024, 5, 10, 22, 59), false),
+				new RollupRange.Segment(RollupGranularity.MINUTE,
+						LocalDateTime.of(2024, 5, 10, 22, 59), LocalDateTime.of(2024, 5, 10, 23, 0), false),
+				new RollupRange.Segment(RollupGranularity.HOUR,
+						LocalDateTime.of(2024, 5, 10, 23, 0), LocalDateTime.of(2024, 5, 11, 0, 0), false),
+				new RollupRange.Segment(RollupGranularity.DAY,
+						LocalDateTime.of(2024, 5, 11, 0, 0), LocalDateTime.of(2024, 5, 13, 0, 0), false),
+				new RollupRange.Segment(RollupGranularity.HOUR,
+						LocalDateTime.of(2024, 5, 13, 0, 0), LocalDateTime.of(2024, 5, 13, 1, 0), false),
+				new RollupRange.Segment(RollupGranularity.MINUTE,
+						LocalDateTime.of(2024, 5, 13, 1, 0), LocalDateTime.of(2024, 5, 13, 1, 2), false),
+				new RollupRange.Segment(null, LocalDateTime.of(2024, 5, 13, 1, 2), end, true));
+	}
+
+	@Test
+	void split_whenRangeInsideOneMinute_thenOnlyRawRows() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 10, 10, 10, 5);
+		LocalDateTime end = LocalDateTime.of(2024, 5, 10, 10, 10, 50);
+
+		assertThat(RollupRange.split(start, end))
+				.containsExactly(new RollupRange.Segment(null, start, end, true));
+	}
+
+	@Test
+	void split_whenRangeAlignedToDays_thenOnlyDayBucketsAndInclusiveEndSecond() {
+		LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+		LocalDateTime end = LocalDateTime.of(2024, 5, 3, 0, 0);
+
+		assertThat(RollupRange.split(start, end)).containsExactly(
+				new RollupRange.Segment(RollupGranularity.DAY, start, end, false),
+				new RollupRange.Segment(null, end, end, true));
+	}
+}
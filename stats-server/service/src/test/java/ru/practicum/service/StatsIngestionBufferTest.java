@@ -0,0 +1,202 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import ru.practicum.exception.IngestionOverloadException;
+import ru.practicum.model.Stats;
+import ru.practicum.repo.StatsBatchRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsIngestionBufferTest {
+
+	@Mock
+	private StatsBatchRepository batchRepository;
+
+	private StatsIngestionBuffer buffer;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		if (buffer != null) {
+			buffer.close();
+		}
+	}
+
+	@Test
+	void flush_whenHitsQueued_thenWrittenInBatchesOfConfiguredSize() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 4, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		for (int i = 0; i < 3; i++) {
+			buffer.add(hit(i));
+		}
+
+		buffer.flush();
+
+		ArgumentCaptor<List<Stats>> captor = ArgumentCaptor.forClass(List.class);
+		verify(batchRepository, times(1)).saveAll(captor.capture());
+		assertThat(captor.getValue()).hasSize(3);
+		assertThat(buffer.getQueueSize()).isZero();
+	}
+
+	@Test
+	void add_whenBatchSizeReached_thenFlushedWithoutWaitingForInterval() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 5, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		for (int i = 0; i < 5; i++) {
+			buffer.add(hit(i));
+		}
+
+		verify(batchRepository, timeout(2_000).times(1)).saveAll(anyList());
+	}
+
+	@Test
+	void add_whenQueueFullAndPolicyReject_thenOverloadExceptionIsThrown() {
+		buffer = new StatsIngestionBuffer(batchRepository, 2, 100, 60_000, 1,
+				StatsIngestionBuffer.OverflowPolicy.REJECT, 3, 1);
+		buffer.add(hit(1));
+		buffer.add(hit(2));
+
+		assertThrows(IngestionOverloadException.class, () -> buffer.add(hit(3)));
+	}
+
+	@Test
+	void add_whenQueueFullAndPolicyCallerRuns_thenCallerWritesQueuedHits() {
+		buffer = new StatsIngestionBuffer(batchRepository, 2, 100, 60_000, 1,
+				StatsIngestionBuffer.OverflowPolicy.CALLER_RUNS, 3, 1);
+		buffer.add(hit(1));
+		buffer.add(hit(2));
+		buffer.add(hit(3));
+
+		verify(batchRepository, times(2)).saveAll(anyList());
+		assertThat(buffer.getQueueSize()).isZero();
+	}
+
+	@Test
+	void close_whenHitsQueued_thenAllHitsAreDrained() throws InterruptedException {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 50, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		for (int i = 0; i < 10; i++) {
+			buffer.add(hit(i));
+		}
+
+		buffer.close();
+		buffer = null;
+
+		ArgumentCaptor<List<Stats>> captor = ArgumentCaptor.forClass(List.class);
+		verify(batchRepository).saveAll(captor.capture());
+		assertThat(captor.getValue()).hasSize(10);
+	}
+
+	@Test
+	void flush_whenBatchHasRowThatCannotBeWritten_thenOnlyThatRowIsDropped() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 8, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		Stats bad = hit(5);
+		doAnswer(invocation -> {
+			if (invocation.<List<Stats>>getArgument(0).contains(bad)) {
+				throw new DataIntegrityViolationException("value too long");
+			}
+			return null;
+		}).when(batchRepository).saveAll(anyList());
+		for (int i = 0; i < 8; i++) {
+			buffer.add(i == 5 ? bad : hit(i));
+		}
+
+		buffer.flush();
+
+		ArgumentCaptor<List<Stats>> captor = ArgumentCaptor.forClass(List.class);
+		verify(batchRepository, atLeastOnce()).saveAll(captor.capture());
+		long written = captor.getAllValues().stream()
+				.filter(batch -> !batch.contains(bad))
+				.mapToLong(List::size)
+				.sum();
+		assertThat(written).isEqualTo(7);
+		assertThat(buffer.getFailedHits()).isEqualTo(1);
+	}
+
+	@Test
+	void flush_whenWriteFailsTransiently_thenBatchIsRetried() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 10, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		doThrow(new TransientDataAccessResourceException("connection lost"))
+				.doNothing()
+				.when(batchRepository).saveAll(anyList());
+		for (int i = 0; i < 4; i++) {
+			buffer.add(hit(i));
+		}
+
+		buffer.flush();
+
+		verify(batchRepository, times(2)).saveAll(argThat(batch -> batch.size() == 4));
+		assertThat(buffer.getFailedHits()).isZero();
+	}
+
+	@Test
+	void flush_whenWriteFailsTransientlyOnEveryAttempt_thenBatchIsCountedAsFailed() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 10, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		doThrow(new TransientDataAccessResourceException("connection lost"))
+				.when(batchRepository).saveAll(anyList());
+		for (int i = 0; i < 4; i++) {
+			buffer.add(hit(i));
+		}
+
+		buffer.flush();
+
+		verify(batchRepository, times(3)).saveAll(anyList());
+		assertThat(buffer.getFailedHits()).isEqualTo(4);
+	}
+
+	@Test
+	void flushOverlapping_whenRangeEndsBeforeQueuedHits_thenQueueIsNotWritten() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 10, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		LocalDateTime now = LocalDateTime.now();
+		buffer.add(hit(1, now));
+		buffer.add(hit(2, now.plusSeconds(1)));
+
+		buffer.flushOverlapping(now.minusDays(2), now.minusDays(1));
+
+		verify(batchRepository, never()).saveAll(anyList());
+		assertThat(buffer.getQueueSize()).isEqualTo(2);
+	}
+
+	@Test
+	void flushOverlapping_whenRangeReachesQueuedHit_thenQueueIsWritten() {
+		buffer = new StatsIngestionBuffer(batchRepository, 100, 10, 60_000, 10,
+				StatsIngestionBuffer.OverflowPolicy.BLOCK, 3, 1);
+		LocalDateTime now = LocalDateTime.now();
+		buffer.add(hit(1, now.minusHours(1)));
+		buffer.add(hit(2, now));
+
+		buffer.flushOverlapping(now.minusDays(1), now.minusMinutes(30));
+
+		verify(batchRepository, times(1)).saveAll(argThat(batch -> batch.size() == 2));
+		assertThat(buffer.getQueueSize()).isZero();
+
+		buffer.flushOverlapping(now.minusDays(1), now.plusDays(1));
+
+		verify(batchRepository, times(1)).saveAll(anyList());
+	}
+
+	private Stats hit(int i, LocalDateTime created) {
+		return new Stats("ewm-main-service", "/events/" + i, "192.168.0." + i, created);
+	}
+
+	private Stats hit(int i) {
+		return new Stats("ewm-main-service", "/events/" + i, "192.168.0." + i, LocalDateTime.now());
+	}
+}
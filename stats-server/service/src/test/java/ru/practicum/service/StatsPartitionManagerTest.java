@@ -0,0 +1,47 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.repo.StatsPartitionRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsPartitionManagerTest {
+
+	@Mock
+	private StatsPartitionRepository partitionRepository;
+
+	@Test
+	void maintain_whenCalled_thenCurrentAndUpcomingMonthsAreCreated() {
+		StatsPartitionManager manager = new StatsPartitionManager(partitionRepository, 2, 0);
+
+		manager.maintain(YearMonth.of(2024, 11));
+
+		verify(partitionRepository).createMonthPartition(YearMonth.of(2024, 11));
+		verify(partitionRepository).createMonthPartition(YearMonth.of(2024, 12));
+		verify(partitionRepository).createMonthPartition(YearMonth.of(2025, 1));
+		verify(partitionRepository, never()).findMonthPartitions();
+		verify(partitionRepository, never()).dropMonthPartition(any());
+	}
+
+	@Test
+	void maintain_whenRetentionSet_thenOnlyOlderPartitionsAreDropped() {
+		StatsPartitionManager manager = new StatsPartitionManager(partitionRepository, 0, 3);
+		when(partitionRepository.findMonthPartitions()).thenReturn(List.of(
+				YearMonth.of(2024, 6), YearMonth.of(2024, 7), YearMonth.of(2024, 8), YearMonth.of(2024, 9)));
+
+		manager.maintain(YearMonth.of(2024, 11));
+
+		verify(partitionRepository).dropMonthPartition(YearMonth.of(2024, 6));
+		verify(partitionRepository).dropMonthPartition(YearMonth.of(2024, 7));
+		verify(partitionRepository, never()).dropMonthPartition(YearMonth.of(2024, 8));
+		verify(partitionRepository, never()).dropMonthPartition(YearMonth.of(2024, 9));
+	}
+}
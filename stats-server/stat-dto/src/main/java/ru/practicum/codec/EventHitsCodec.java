@@ -0,0 +1,91 @@
+package ru.practicum.codec;
+
+import ru.practicum.dto.EventHitsDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compact binary form of hits per event. The payload is the number of pairs followed by the pairs ordered by
+ * event id, each pair written as the difference to the previous event id and the hits. All numbers are unsigned
+ * LEB128 varints, so a page of close event ids with moderate hits takes two to four bytes per event.
+ */
+public final class EventHitsCodec {
+	public static final String MEDIA_TYPE = "application/x-ewm-event-hits";
+	private static final int MAX_VARINT_BYTES = 10;
+
+	private EventHitsCodec() {
+	}
+
+	public static byte[] encode(List<EventHitsDto> hits) {
+		List<EventHitsDto> sorted = new ArrayList<>(hits);
+		sorted.sort(Comparator.comparingLong(EventHitsDto::getEventId));
+		byte[] buffer = new byte[MAX_VARINT_BYTES * (1 + 2 * sorted.size())];
+		int position = writeVarint(buffer, 0, sorted.size());
+		long previousId = 0;
+		for (EventHitsDto eventHits : sorted) {
+			if (eventHits.getEventId() < 0 || eventHits.getHits() < 0) {
+				throw new IllegalArgumentException("Event ids and hits must not be negative: " + eventHits);
+			}
+			position = writeVarint(buffer, position, eventHits.getEventId() - previousId);
+			position = writeVarint(buffer, position, eventHits.getHits());
+			previousId = eventHits.getEventId();
+		}
+		return Arrays.copyOf(buffer, position);
+	}
+
+	public static List<EventHitsDto> decode(byte[] payload) {
+		Reader reader = new Reader(payload);
+		long size = reader.readVarint();
+		if (size > payload.length) {
+			throw new IllegalArgumentException("Malformed event hits payload: " + size + " pairs in "
+					+ payload.length + " bytes");
+		}
+		List<EventHitsDto> hits = new ArrayList<>((int) size);
+		long eventId = 0;
+		for (long i = 0; i < size; i++) {
+			eventId += reader.readVarint();
+			hits.add(new EventHitsDto(eventId, reader.readVarint()));
+		}
+		if (reader.position != payload.length) {
+			throw new IllegalArgumentException("Malformed event hits payload: " + (payload.length - reader.position)
+					+ " trailing bytes");
+		}
+		return hits;
+	}
+
+	private static int writeVarint(byte[] buffer, int position, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+		return position;
+	}
+
+	private static class Reader {
+		private final byte[] payload;
+		private int position;
+
+		Reader(byte[] payload) {
+			this.payload = payload;
+		}
+
+		long readVarint() {
+			long value = 0;
+			for (int i = 0, shift = 0; i < MAX_VARINT_BYTES; i++, shift += 7) {
+				if (position == payload.length) {
+					throw new IllegalArgumentException("Truncated event hits payload");
+				}
+				byte b = payload[position++];
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IllegalArgumentException("Malformed event hits payload: varint is longer than 10 bytes");
+		}
+	}
+}
@@ -5,15 +5,24 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class StatsRequestDto {
+	@NotBlank
+	@Size(max = 100)
 	private String app;
+	@NotBlank
+	@Size(max = 100)
 	private String uri;
+	@NotBlank
 	private String ip;
+	@NotNull
 	@JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
 	private LocalDateTime timestamp;
 }
@@ -0,0 +1,115 @@
+package ru.practicum.sketch;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog sketch with 2^precision one-byte registers. The standard error of the estimate is
+ * 1.04 / sqrt(2^precision), about 0.81% for the default precision of 14, and the sketch always takes
+ * 2^precision bytes no matter how many values are added. Sketches with the same precision are merged
+ * by taking the maximum of each register.
+ */
+public class HyperLogLog {
+	public static final int DEFAULT_PRECISION = 14;
+
+	private final int precision;
+	private final byte[] registers;
+
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	public HyperLogLog(int precision) {
+		if (precision < 4 || precision > 18) {
+			throw new IllegalArgumentException("Precision should be between 4 and 18, got " + precision);
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	public static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		return hash(hash);
+	}
+
+	/**
+	 * Spreads the bits of a number, e.g. an IPv4 address, over the whole hash.
+	 */
+	public static long hash(long value) {
+		long hash = value;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	public static int registerIndex(long hash, int precision) {
+		return (int) (hash >>> (Long.SIZE - precision));
+	}
+
+	public static int rank(long hash, int precision) {
+		return Math.min(Long.numberOfTrailingZeros(hash), Long.SIZE - precision) + 1;
+	}
+
+	public void add(String value) {
+		addHash(hash(value));
+	}
+
+	public void addHash(long hash) {
+		setRegister(registerIndex(hash, precision), rank(hash, precision));
+	}
+
+	public void setRegister(int index, int rank) {
+		if (registers[index] < rank) {
+			registers[index] = (byte) rank;
+		}
+	}
+
+	public void merge(HyperLogLog other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot merge sketches with precision " + precision + " and " + other.precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			setRegister(i, other.registers[i]);
+		}
+	}
+
+	public long estimate() {
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += 1.0 / (1L << register);
+			if (register == 0) {
+				zeros++;
+			}
+		}
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	private static double alpha(int m) {
+		switch (m) {
+			case 16:
+				return 0.673;
+			case 32:
+				return 0.697;
+			case 64:
+				return 0.709;
+			default:
+				return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package ru.practicum.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.practicum.dto.EventHitsDto;
+import ru.practicum.dto.StatsResponseDto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of a page of event views in the uri-keyed JSON of GET /stats, the id-keyed JSON of POST /stats/events
+ * and the varint payload. Not run by the build; start {@link #main} from the test classpath, e.g. in the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventHitsCodecBenchmark {
+	private static final TypeReference<List<StatsResponseDto>> URI_HITS_TYPE = new TypeReference<>() {
+	};
+	private static final TypeReference<List<EventHitsDto>> EVENT_HITS_TYPE = new TypeReference<>() {
+	};
+
+	@Param({"10", "100", "1000"})
+	private int events;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private List<StatsResponseDto> uriHits;
+	private List<EventHitsDto> eventHits;
+	private byte[] uriHitsJson;
+	private byte[] eventHitsJson;
+	private byte[] eventHitsBinary;
+
+	@Setup
+	public void setUp() throws IOException {
+		uriHits = new ArrayList<>(events);
+		eventHits = new ArrayList<>(events);
+		for (int i = 0; i < events; i++) {
+			long eventId = 10_000 + i * 3L;
+			long hits = (i * 7919L) % 5000;
+			uriHits.add(new StatsResponseDto("ewm-main-service", "/events/" + eventId, hits));
+			eventHits.add(new EventHitsDto(eventId, hits));
+		}
+		uriHitsJson = objectMapper.writeValueAsBytes(uriHits);
+		eventHitsJson = objectMapper.writeValueAsBytes(eventHits);
+		eventHitsBinary = EventHitsCodec.encode(eventHits);
+		System.out.printf("%n%d events: uri json %d bytes, event json %d bytes, binary %d bytes%n",
+				events, uriHitsJson.length, eventHitsJson.length, eventHitsBinary.length);
+	}
+
+	@Benchmark
+	public byte[] encodeUriJson() throws IOException {
+		return objectMapper.writeValueAsBytes(uriHits);
+	}
+
+	@Benchmark
+	public List<StatsResponseDto> decodeUriJson() throws IOException {
+		return objectMapper.readValue(uriHitsJson, URI_HITS_TYPE);
+	}
+
+	@Benchmark
+	public byte[] encodeEventJson() throws IOException {
+		return objectMapper.writeValueAsBytes(eventHits);
+	}
+
+	@Benchmark
+	public List<EventHitsDto> decodeEventJson() throws IOException {
+		return objectMapper.readValue(eventHitsJson, EVENT_HITS_TYPE);
+	}
+
+	@Benchmark
+	public byte[] encodeBinary() {
+		return EventHitsCodec.encode(eventHits);
+	}
+
+	@Benchmark
+	public List<EventHitsDto> decodeBinary() {
+		return EventHitsCodec.decode(eventHitsBinary);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(EventHitsCodecBenchmark.class.getSimpleName())
+				.build())
+				.run();
+	}
+}
@@ -0,0 +1,59 @@
+package ru.practicum.codec;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.dto.EventHitsDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EventHitsCodecTest {
+
+	@Test
+	void decode_whenEncoded_thenPairsAreReturnedOrderedByEventId() {
+		List<EventHitsDto> hits = List.of(
+				new EventHitsDto(42, 7),
+				new EventHitsDto(3, 0),
+				new EventHitsDto(Long.MAX_VALUE, Long.MAX_VALUE),
+				new EventHitsDto(40, 300));
+
+		List<EventHitsDto> decoded = EventHitsCodec.decode(EventHitsCodec.encode(hits));
+
+		assertThat(decoded).containsExactly(
+				new EventHitsDto(3, 0),
+				new EventHitsDto(40, 300),
+				new EventHitsDto(42, 7),
+				new EventHitsDto(Long.MAX_VALUE, Long.MAX_VALUE));
+	}
+
+	@Test
+	void encode_whenCloseEventIds_thenTwoBytesPerEvent() {
+		List<EventHitsDto> hits = new ArrayList<>();
+		for (long id = 1000; id < 1100; id++) {
+			hits.add(new EventHitsDto(id, 50));
+		}
+
+		// the first id delta takes two bytes, the size one byte
+		assertThat(EventHitsCodec.encode(hits)).hasSize(1 + 100 * 2 + 1);
+		assertThat(EventHitsCodec.encode(List.of())).containsExactly(0);
+	}
+
+	@Test
+	void decode_whenPayloadIsTruncatedOrHasTrailingBytes_thenExceptionIsThrown() {
+		byte[] payload = EventHitsCodec.encode(List.of(new EventHitsDto(1, 300)));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> EventHitsCodec.decode(Arrays.copyOf(payload, payload.length - 1)));
+		assertThrows(IllegalArgumentException.class,
+				() -> EventHitsCodec.decode(Arrays.copyOf(payload, payload.length + 1)));
+	}
+
+	@Test
+	void encode_whenNegativeHits_thenExceptionIsThrown() {
+		assertThrows(IllegalArgumentException.class,
+				() -> EventHitsCodec.encode(List.of(new EventHitsDto(1, -1))));
+	}
+}
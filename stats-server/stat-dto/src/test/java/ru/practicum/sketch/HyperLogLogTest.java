@@ -0,0 +1,55 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HyperLogLogTest {
+
+	@Test
+	void estimate_whenFewValues_thenCountIsExact() {
+		HyperLogLog sketch = new HyperLogLog();
+		for (int i = 0; i < 100; i++) {
+			sketch.add("192.168.0." + i);
+			sketch.add("192.168.0." + i);
+		}
+
+		assertThat(sketch.estimate()).isEqualTo(100);
+	}
+
+	@Test
+	void estimate_whenManyValues_thenWithinThreeStandardErrors() {
+		HyperLogLog sketch = new HyperLogLog();
+		int count = 1_000_000;
+		for (int i = 0; i < count; i++) {
+			sketch.add(ip(i));
+		}
+
+		assertThat((double) sketch.estimate()).isCloseTo(count, within(count * 3 * 0.0081));
+	}
+
+	@Test
+	void merge_whenSketchesOverlap_thenUnionIsEstimated() {
+		HyperLogLog first = new HyperLogLog();
+		HyperLogLog second = new HyperLogLog();
+		for (int i = 0; i < 60_000; i++) {
+			first.add(ip(i));
+			second.add(ip(i + 40_000));
+		}
+
+		first.merge(second);
+
+		assertThat((double) first.estimate()).isCloseTo(100_000, within(100_000 * 3 * 0.0081));
+	}
+
+	@Test
+	void merge_whenPrecisionDiffers_thenThrows() {
+		assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(14).merge(new HyperLogLog(12)));
+	}
+
+	private String ip(int i) {
+		return (i >>> 24) + "." + ((i >>> 16) & 0xff) + "." + ((i >>> 8) & 0xff) + "." + (i & 0xff);
+	}
+}